@@ -4,6 +4,7 @@ package aufgabe1;
 
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
 
 /**
  * Implementation of the Dictionary interface as AVL tree.
@@ -12,6 +13,10 @@ import java.util.NoSuchElementException;
  * or by a Comparator provided at set creation time, depending on which constructor is used.
  * <p>
  * An iterator for this dictionary is implemented by using the parent node reference.
+ * <p>
+ * Every node also stores the number of nodes in its subtree, so the order statistics
+ * (rank, select) and the ordered queries (floor, ceiling, range) run in O(log n)
+ * (plus the number of returned entries for range).
  *
  * @param <K> Key.
  * @param <V> Value.
@@ -22,6 +27,7 @@ public class BinaryTreeDictionary<K extends Comparable<? super K>, V> implements
         K key;
         V value;
         int height;
+        int count; // number of nodes in the subtree
         Node<K, V> left;
         Node<K, V> right;
         Node<K, V> parent;
@@ -30,6 +36,7 @@ public class BinaryTreeDictionary<K extends Comparable<? super K>, V> implements
             key = k;
             value = v;
             height = 0;
+            count = 1;
             left = null;
             right = null;
             parent = null;
@@ -39,8 +46,6 @@ public class BinaryTreeDictionary<K extends Comparable<? super K>, V> implements
     private Node<K, V> root = null;
     private int size = 0;
 
-    private V oldValue = null;
-
     private int getHeight(Node<K, V> p) {
         if (p == null) {
             return -1;
@@ -49,6 +54,16 @@ public class BinaryTreeDictionary<K extends Comparable<? super K>, V> implements
         }
     }
 
+    private int getCount(Node<K, V> p) {
+        return (p == null) ? 0 : p.count;
+    }
+
+    // Recomputes height and count of p from its children
+    private void update(Node<K, V> p) {
+        p.height = Math.max(getHeight(p.left), getHeight(p.right)) + 1;
+        p.count = getCount(p.left) + getCount(p.right) + 1;
+    }
+
     private int getBalance(Node<K, V> p) {
         if (p == null) {
             return 0;
@@ -61,7 +76,7 @@ public class BinaryTreeDictionary<K extends Comparable<? super K>, V> implements
         if (p == null) {
             return null;
         }
-        p.height = Math.max(getHeight(p.left), getHeight(p.right)) + 1;
+        update(p);
         if (getBalance(p) == -2) {
             if (getBalance(p.left) <= 0) {
                 p = rotateRight(p);
@@ -87,8 +102,8 @@ public class BinaryTreeDictionary<K extends Comparable<? super K>, V> implements
         }
         q.right = p;
         q.right.parent = q;
-        p.height = Math.max(getHeight(p.left), getHeight(p.right)) + 1;
-        q.height = Math.max(getHeight(q.left), getHeight(q.right)) + 1;
+        update(p);
+        update(q);
         return q;
     }
 
@@ -101,8 +116,8 @@ public class BinaryTreeDictionary<K extends Comparable<? super K>, V> implements
         }
         q.left = p;
         q.left.parent = q;
-        p.height = Math.max(getHeight(p.left), getHeight(p.right)) + 1;
-        q.height = Math.max(getHeight(q.left), getHeight(q.right)) + 1;
+        update(p);
+        update(q);
         return q;
     }
 
@@ -119,105 +134,239 @@ public class BinaryTreeDictionary<K extends Comparable<? super K>, V> implements
     }
 
 
+    // Rebalances the subtrees from p up to the root after p or one of its children has changed.
+    // Stops as soon as the height of a subtree is unchanged, since its ancestors are then
+    // still balanced.
+    private void rebalanceUp(Node<K, V> p) {
+        while (p != null) {
+            int oldHeight = p.height;
+            Node<K, V> parent = p.parent;
+            Node<K, V> q = balance(p);
+            q.parent = parent;
+            if (parent == null) {
+                root = q;
+            } else if (parent.left == p) {
+                parent.left = q;
+            } else {
+                parent.right = q;
+            }
+            if (q.height == oldHeight) {
+                // the ancestors stay balanced, only their counts change
+                for (p = parent; p != null; p = p.parent) {
+                    p.count = getCount(p.left) + getCount(p.right) + 1;
+                }
+                return;
+            }
+            p = parent;
+        }
+    }
+
     @Override
     public V insert(K key, V value) {
-        root = insertR(key, value, root);
-        if (root != null) {
-            root.parent = null;
+        // Descend with one comparison per level
+        Node<K, V> parent = null;
+        Node<K, V> p = root;
+        int cmp = 0;
+        while (p != null) {
+            cmp = key.compareTo(p.key);
+            if (cmp == 0) {
+                V oldValue = p.value;
+                p.value = value;
+                return oldValue;
+            }
+            parent = p;
+            p = (cmp < 0) ? p.left : p.right;
         }
-        return oldValue;
-    }
 
-    private Node<K, V> insertR(K key, V value, Node<K, V> p) {
-        if (p == null) {
-            size++;
-            oldValue = null;
-            p = new Node<>(key, value);
+        Node<K, V> node = new Node<>(key, value);
+        node.parent = parent;
+        if (parent == null) {
+            root = node;
+        } else if (cmp < 0) {
+            parent.left = node;
+        } else {
+            parent.right = node;
         }
-        if (key.compareTo(p.key) < 0) {
-            p.left = insertR(key, value, p.left);
-            if (p.left != null) {
-                p.left.parent = p;
-            }
-        } else if (key.compareTo(p.key) > 0) {
-            p.right = insertR(key, value, p.right);
-            if (p.right != null) {
-                p.right.parent = p;
+        size++;
+        rebalanceUp(parent);
+        return null;
+    }
+
+    // Returns the node with the key or null
+    private Node<K, V> find(K key) {
+        Node<K, V> p = root;
+        while (p != null) {
+            int cmp = key.compareTo(p.key);
+            if (cmp == 0) {
+                return p;
             }
-        } else {
-            oldValue = p.value;
-            p.value = value;
+            p = (cmp < 0) ? p.left : p.right;
         }
-        p = balance(p);
-        return p;
+        return null;
     }
 
     @Override
     public V search(K key) {
-        return searchR(key, root);
+        Node<K, V> p = find(key);
+        return (p != null) ? p.value : null;
     }
 
-    private V searchR(K key, Node<K, V> p) {
+    @Override
+    public V remove(K key) {
+        Node<K, V> p = find(key);
         if (p == null) {
             return null;
         }
-        if (key.compareTo(p.key) == 0) {
-            return p.value;
-        } else if (key.compareTo(p.key) < 0) {
-            return searchR(key, p.left);
-        } else {
-            return searchR(key, p.right);
+        V oldValue = p.value;
+
+        // A node with two children takes the entry of its successor, which is removed instead
+        if (p.left != null && p.right != null) {
+            Node<K, V> min = leftMostDescendant(p.right);
+            p.key = min.key;
+            p.value = min.value;
+            p = min;
         }
-    }
 
-    @Override
-    public V remove(K key) {
-        root = removeR(key, root);
-        if (root != null) {
-            root.parent = null;
+        // p has at most one child: replace p by it
+        Node<K, V> child = (p.left != null) ? p.left : p.right;
+        Node<K, V> parent = p.parent;
+        if (child != null) {
+            child.parent = parent;
         }
+        if (parent == null) {
+            root = child;
+        } else if (parent.left == p) {
+            parent.left = child;
+        } else {
+            parent.right = child;
+        }
+        size--;
+        rebalanceUp(parent);
         return oldValue;
     }
 
-    private Node<K, V> removeR(K key, Node<K, V> p) {
-        if (p == null) {
-            oldValue = null;
-            return null;
+    // Returns the node with the greatest key <= key or null
+    private Node<K, V> floorNode(K key) {
+        Node<K, V> floor = null;
+        Node<K, V> p = root;
+        while (p != null) {
+            int cmp = key.compareTo(p.key);
+            if (cmp == 0) {
+                return p;
+            }
+            if (cmp < 0) {
+                p = p.left;
+            } else {
+                floor = p;
+                p = p.right;
+            }
         }
-        if (key.compareTo(p.key) < 0) {
-            p.left = removeR(key, p.left);
-            if (p.left != null) {
-                p.left.parent = p;
+        return floor;
+    }
+
+    // Returns the node with the smallest key >= key or null
+    private Node<K, V> ceilingNode(K key) {
+        Node<K, V> ceiling = null;
+        Node<K, V> p = root;
+        while (p != null) {
+            int cmp = key.compareTo(p.key);
+            if (cmp == 0) {
+                return p;
             }
-        } else if (key.compareTo(p.key) > 0) {
-            p.right = removeR(key, p.right);
-            if (p.right != null) {
-                p.right.parent = p;
+            if (cmp < 0) {
+                ceiling = p;
+                p = p.left;
+            } else {
+                p = p.right;
             }
-        } else {
-            oldValue = p.value;
-            if (p.left == null || p.right == null) {
-                size--;
-                return (p.left == null) ? p.right : p.left;
+        }
+        return ceiling;
+    }
+
+    private static <K, V> Entry<K, V> entry(Node<K, V> p) {
+        return (p != null) ? new Entry<>(p.key, p.value) : null;
+    }
+
+    /**
+     * Returns the entry with the greatest key less than or equal to key.
+     * @param key the key.
+     * @return the entry or null if there is no such key.
+     */
+    public Entry<K, V> floor(K key) {
+        return entry(floorNode(key));
+    }
+
+    /**
+     * Returns the entry with the smallest key greater than or equal to key,
+     * e.g. the first word that starts with a given prefix.
+     * @param key the key.
+     * @return the entry or null if there is no such key.
+     */
+    public Entry<K, V> ceiling(K key) {
+        return entry(ceilingNode(key));
+    }
+
+    /**
+     * Returns the number of keys that are less than key
+     * (the position of key in the sorted order if it is contained).
+     * @param key the key.
+     * @return the number of keys less than key.
+     */
+    public int rank(K key) {
+        int rank = 0;
+        Node<K, V> p = root;
+        while (p != null) {
+            int cmp = key.compareTo(p.key);
+            if (cmp <= 0) {
+                if (cmp == 0) {
+                    return rank + getCount(p.left);
+                }
+                p = p.left;
             } else {
-                Node<K, V> min = findMin(p.right);
-                p.key = min.key;
-                p.value = min.value;
-                p.right = removeR(min.key, p.right);
+                rank += getCount(p.left) + 1;
+                p = p.right;
             }
         }
-        p = balance(p);
-        return p;
+        return rank;
     }
 
-    private Node<K, V> findMin(Node<K, V> p) {
-        if (p.left == null) {
-            return p;
-        } else {
-            return findMin(p.left);
+    /**
+     * Returns the entry with the k-th smallest key (k = 0 for the smallest).
+     * @param k position in the sorted order.
+     * @return the entry at position k.
+     * @throws IndexOutOfBoundsException if k is not in 0 .. size() - 1.
+     */
+    public Entry<K, V> select(int k) {
+        if (k < 0 || k >= size) {
+            throw new IndexOutOfBoundsException("k = " + k + ", size = " + size);
+        }
+        Node<K, V> p = root;
+        while (true) {
+            int left = getCount(p.left);
+            if (k < left) {
+                p = p.left;
+            } else if (k > left) {
+                k -= left + 1;
+                p = p.right;
+            } else {
+                return entry(p);
+            }
         }
     }
 
+    /**
+     * Returns an iterator over the entries with from <= key < to in ascending order,
+     * e.g. range("ge", "gf") for all words starting with "ge".
+     * The iterator starts at the ceiling of from and follows the parent references,
+     * so it costs O(log n) plus the number of returned entries.
+     * @param from smallest key (inclusive).
+     * @param to upper bound (exclusive).
+     * @return an iterator over the entries in the range.
+     */
+    public Iterator<Entry<K, V>> range(K from, K to) {
+        return new TreeIterator(ceilingNode(from), to);
+    }
+
     @Override
     public int size() {
         return size;
@@ -245,28 +394,85 @@ public class BinaryTreeDictionary<K extends Comparable<? super K>, V> implements
 
     @Override
     public Iterator<Entry<K, V>> iterator() {
-        return new Iterator<>() {
+        return new TreeIterator(leftMostDescendant(root), null);
+    }
 
-            Node<K, V> p = leftMostDescendant(root);
+    // In-order iterator from node p on, up to the key to (exclusive; null = to the end)
+    private class TreeIterator implements Iterator<Entry<K, V>> {
 
-            @Override
-            public boolean hasNext() {
-                return p != null ;
+        Node<K, V> p;
+        final K to;
+
+        TreeIterator(Node<K, V> start, K to) {
+            this.to = to;
+            p = (start != null && to != null && start.key.compareTo(to) >= 0) ? null : start;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return p != null ;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
             }
+            Entry<K, V> entry = new Entry<>(p.key, p.value);
+
+            p = (p.right != null) ? leftMostDescendant(p.right) : parentOfRightMostAncestor(p);
+            if (p != null && to != null && p.key.compareTo(to) >= 0) {
+                p = null;
+            }
+            return entry;
+        }
+    }
+
+    // In-order cursor along the parent pointers, like TreeIterator
+    @Override
+    public Dictionary.Cursor<K, V> cursor() {
+        return new Dictionary.Cursor<>() {
+            Node<K, V> p; // current node
+            boolean started;
 
             @Override
-            public Entry<K, V> next() {
-                if (!hasNext()) {
-                    throw new NoSuchElementException();
+            public boolean advance() {
+                if (!started) {
+                    started = true;
+                    p = leftMostDescendant(root);
+                } else if (p != null) {
+                    p = (p.right != null) ? leftMostDescendant(p.right) : parentOfRightMostAncestor(p);
                 }
-                Entry<K, V> entry = new Entry<>(p.key, p.value);
+                return p != null;
+            }
+
+            @Override
+            public K key() {
+                return p.key;
+            }
+
+            @Override
+            public V value() {
+                return p.value;
+            }
 
-                p = (p.right != null) ? leftMostDescendant(p.right) : parentOfRightMostAncestor(p);
-                return entry;
+            @Override
+            public V setValue(V value) {
+                V oldValue = p.value;
+                p.value = value;
+                return oldValue;
             }
         };
     }
 
+    @Override
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        for (Node<K, V> p = leftMostDescendant(root); p != null;
+                p = (p.right != null) ? leftMostDescendant(p.right) : parentOfRightMostAncestor(p)) {
+            action.accept(p.key, p.value);
+        }
+    }
+
     /**
      * Pretty prints the tree
      */
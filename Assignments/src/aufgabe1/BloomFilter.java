@@ -0,0 +1,146 @@
+package aufgabe1;
+
+/**
+ * Bloom filter for strings: a set that can answer "definitely not contained" without
+ * storing the elements. mightContain never returns false for an added key; for other keys it
+ * returns true with a small probability (about 1% with 10 bits per key).
+ * <p>
+ * Each key is hashed once to 64 bits; the k bit positions are derived from the two halves
+ * (double hashing, h1 + i * h2), so the cost of a query is one pass over the key plus k bit tests.
+ * <p>
+ * A blocked filter (see blocked) puts all k bits of a key into one block of 512 bits, i.e.
+ * one cache line: a query costs at most one cache miss instead of k. The price is a slightly
+ * higher false positive rate (about 1.3% instead of 0.8% with 10 bits per key), because the
+ * blocks are not filled evenly.
+ */
+public class BloomFilter {
+
+    private static final int BLOCK_WORDS = 8; // 512 bits = 64 bytes
+    private static final int MAX_BLOCK_HASHES = 7; // 9 bits per position from one 64-bit value
+
+    private final long[] bits;
+    private final long bitCount;
+    private final int hashes;
+    private final boolean blocked;
+
+    /**
+     * @param expectedKeys number of keys that will be added.
+     * @param bitsPerKey bits per key; the false positive rate is about 0.6185^bitsPerKey.
+     */
+    public BloomFilter(long expectedKeys, int bitsPerKey) {
+        this(new long[(int) Math.max(1, (Math.max(1, expectedKeys) * bitsPerKey + 63) / 64)],
+                Math.max(1, (int) Math.round(bitsPerKey * Math.log(2))));
+    }
+
+    /**
+     * Filter with the given bits (e.g. read from a file, see bits and hashes).
+     * @param bits bit array, not copied.
+     * @param hashes number of bit positions per key.
+     */
+    public BloomFilter(long[] bits, int hashes) {
+        this(bits, hashes, false);
+    }
+
+    private BloomFilter(long[] bits, int hashes, boolean blocked) {
+        this.bits = bits;
+        this.bitCount = 64L * bits.length;
+        this.hashes = hashes;
+        this.blocked = blocked;
+    }
+
+    /**
+     * Blocked filter: all bits of a key are in one cache line.
+     * @param expectedKeys number of keys that will be added.
+     * @param bitsPerKey bits per key.
+     * @return empty filter.
+     */
+    public static BloomFilter blocked(long expectedKeys, int bitsPerKey) {
+        long blocks = Math.max(1, (Math.max(1, expectedKeys) * bitsPerKey + 511) / 512);
+        return new BloomFilter(new long[(int) Math.min(blocks * BLOCK_WORDS, Integer.MAX_VALUE - 7)],
+                Math.max(1, Math.min(MAX_BLOCK_HASHES, (int) Math.round(bitsPerKey * Math.log(2)))), true);
+    }
+
+    public void add(String key) {
+        add(hash(key));
+    }
+
+    public boolean mightContain(String key) {
+        return mightContain(hash(key));
+    }
+
+    /**
+     * Adds a key by its 64-bit hash (for keys that are no strings; the bits of the hash
+     * must be well mixed).
+     * @param h hash of the key.
+     */
+    public void add(long h) {
+        if (blocked) {
+            int block = block(h);
+            long g = h * 0x9E3779B97F4A7C15L;
+            for (int i = 0; i < hashes; i++, g >>>= 9) {
+                bits[block + ((int) g >>> 6 & 7)] |= 1L << g;
+            }
+            return;
+        }
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32);
+        for (int i = 0; i < hashes; i++) {
+            long bit = Integer.toUnsignedLong(h1 + i * h2) % bitCount;
+            bits[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    /**
+     * @param h hash of the key (see add(long)).
+     * @return false if the key has certainly not been added.
+     */
+    public boolean mightContain(long h) {
+        if (blocked) {
+            int block = block(h);
+            long g = h * 0x9E3779B97F4A7C15L;
+            for (int i = 0; i < hashes; i++, g >>>= 9) {
+                if ((bits[block + ((int) g >>> 6 & 7)] & (1L << g)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32);
+        for (int i = 0; i < hashes; i++) {
+            long bit = Integer.toUnsignedLong(h1 + i * h2) % bitCount;
+            if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // First word of the block of hash h (upper 32 bits mapped to the number of blocks)
+    private int block(long h) {
+        return (int) (((h >>> 32) * (bits.length / BLOCK_WORDS)) >>> 32) * BLOCK_WORDS;
+    }
+
+    public long[] bits() {
+        return bits;
+    }
+
+    public int hashes() {
+        return hashes;
+    }
+
+    // 64-bit hash of the chars of s (multiply-xorshift per char, murmur3 finalizer)
+    static long hash(String s) {
+        long h = 0x9E3779B97F4A7C15L ^ s.length();
+        for (int i = 0; i < s.length(); i++) {
+            h = (h ^ s.charAt(i)) * 0xC2B2AE3D27D4EB4FL;
+            h ^= h >>> 29;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,161 @@
+package aufgabe1;
+
+import java.util.Iterator;
+import java.util.function.BiConsumer;
+
+/**
+ * Decorator that puts a blocked Bloom filter in front of a dictionary, so that most searches
+ * for a key that is not contained are answered after one cache line of work instead of a
+ * full probe sequence, chain or root-to-leaf path of the wrapped dictionary.
+ * <p>
+ * The filter hashes key.hashCode() (cached by String), so a rejected search does not even
+ * read the characters of the key. Removed keys cannot be taken out of a Bloom filter; they
+ * only make it less selective. Therefore the filter is rebuilt from the entries of the
+ * dictionary when the removes since the last build reach half of its capacity, and with
+ * twice the capacity when the dictionary outgrows it.
+ * <p>
+ * The statistics (searches, rejected searches, false positives) tell whether the filter
+ * pays off for a workload and whether more bits per key are needed.
+ *
+ * @param <K> Key.
+ * @param <V> Value.
+ */
+public class BloomFilterDictionary<K, V> implements Dictionary<K, V> {
+
+    private static final int DEFAULT_BITS_PER_KEY = 10;
+    private static final int MIN_CAPACITY = 1024;
+
+    private final Dictionary<K, V> dict;
+    private final int bitsPerKey;
+    private BloomFilter filter;
+    private int capacity; // number of keys the filter is sized for
+    private int removed; // removes since the last build
+
+    private long searches;
+    private long rejected; // searches answered by the filter
+    private long falsePositives; // searches that passed the filter but found nothing
+
+    public BloomFilterDictionary(Dictionary<K, V> dict) {
+        this(dict, DEFAULT_BITS_PER_KEY);
+    }
+
+    /**
+     * @param dict dictionary to decorate (may contain entries already).
+     * @param bitsPerKey filter bits per key; 10 bits give about 1.3% false positives.
+     */
+    public BloomFilterDictionary(Dictionary<K, V> dict, int bitsPerKey) {
+        this.dict = dict;
+        this.bitsPerKey = bitsPerKey;
+        rebuild();
+    }
+
+    // Builds a new filter for twice the current size from the entries of dict
+    private void rebuild() {
+        capacity = Math.max(MIN_CAPACITY, 2 * dict.size());
+        filter = BloomFilter.blocked(capacity, bitsPerKey);
+        for (Entry<K, V> e : dict) {
+            filter.add(hash(e.getKey()));
+        }
+        removed = 0;
+    }
+
+    // Spreads the 32 bits of hashCode over 64 bits (murmur3 finalizer)
+    private static long hash(Object key) {
+        long h = key.hashCode() * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    @Override
+    public V insert(K key, V value) {
+        V old = dict.insert(key, value);
+        filter.add(hash(key));
+        if (dict.size() > capacity) {
+            rebuild();
+        }
+        return old;
+    }
+
+    @Override
+    public V search(K key) {
+        searches++;
+        if (!filter.mightContain(hash(key))) {
+            rejected++;
+            return null;
+        }
+        V value = dict.search(key);
+        if (value == null) {
+            falsePositives++; // (or a key with the value null)
+        }
+        return value;
+    }
+
+    @Override
+    public V remove(K key) {
+        if (!filter.mightContain(hash(key))) {
+            return null;
+        }
+        int size = dict.size();
+        V old = dict.remove(key);
+        if (dict.size() < size && ++removed >= capacity / 2) {
+            rebuild();
+        }
+        return old;
+    }
+
+    @Override
+    public int size() {
+        return dict.size();
+    }
+
+    @Override
+    public Iterator<Entry<K, V>> iterator() {
+        return dict.iterator();
+    }
+
+    @Override
+    public Cursor<K, V> cursor() {
+        return dict.cursor();
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        dict.forEach(action);
+    }
+
+    public long searches() {
+        return searches;
+    }
+
+    // Number of searches answered by the filter alone
+    public long rejected() {
+        return rejected;
+    }
+
+    // Number of searches that passed the filter for a key that is not contained
+    public long falsePositives() {
+        return falsePositives;
+    }
+
+    // Fraction of the searches for keys that are not contained that passed the filter
+    public double falsePositiveRate() {
+        long misses = rejected + falsePositives;
+        return (misses == 0) ? 0 : (double) falsePositives / misses;
+    }
+
+    public void resetStatistics() {
+        searches = 0;
+        rejected = 0;
+        falsePositives = 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("searches=%d rejected=%d false positives=%d (rate %.2f%%) filter=%d KB",
+                searches, rejected, falsePositives, 100 * falsePositiveRate(), filter.bits().length / 128);
+    }
+}
@@ -0,0 +1,227 @@
+package aufgabe1;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+/**
+ * Multi-threaded throughput benchmark for the thread-safe dictionaries.
+ * <p>
+ * The dictionary is loaded with the word pairs of dtengl.txt (the translation lookup
+ * workload). Then 1, 2, 4, ... threads run a mix of searches (half of them for a contained
+ * german word, half for an english word, i.e. a miss) and the given percentage of writes
+ * (insert/remove of a word) for a fixed time. The result is the total throughput and the
+ * speedup compared to one thread.
+ * <p>
+ * Implementations that are not thread-safe are measured behind a single global lock
+ * (SynchronizedDictionary) for comparison.
+ * <p>
+ * Options (all optional):
+ * <pre>
+ *   -impl      comma separated implementation names (default: all)
+ *   -threads   comma separated thread counts (default: 1,2,4,... up to the number of cores)
+ *   -write     percentage of inserts/removes (default: 0)
+ *   -warmup    warm-up seconds per measurement (default: 1)
+ *   -time      measured seconds per measurement (default: 2)
+ *   -file      word pair file (default: src/aufgabe1/dtengl.txt)
+ * </pre>
+ */
+public class ConcurrentDictionaryBenchmark {
+
+    private static final Map<String, Supplier<Dictionary<String, String>>> IMPLEMENTATIONS = new LinkedHashMap<>();
+
+    static {
+        IMPLEMENTATIONS.put("Sync-LinkedHash", () -> new SynchronizedDictionary<>(new LinkedHashDictionary<>(11)));
+        IMPLEMENTATIONS.put("Sync-BinaryTree", () -> new SynchronizedDictionary<>(new BinaryTreeDictionary<String, String>()));
+        IMPLEMENTATIONS.put("StripedHash", StripedHashDictionary::new);
+        IMPLEMENTATIONS.put("LockFreeHash", LockFreeHashDictionary::new);
+        IMPLEMENTATIONS.put("PersistentTree", PersistentTreeDictionary::new);
+        IMPLEMENTATIONS.put("SkipList", SkipListDictionary::new);
+    }
+
+    /**
+     * Makes any dictionary thread-safe with one global lock (the dictionary object).
+     * Iteration must be synchronized on the dictionary by the caller.
+     */
+    static class SynchronizedDictionary<K, V> implements Dictionary<K, V> {
+        private final Dictionary<K, V> dict;
+
+        SynchronizedDictionary(Dictionary<K, V> dict) {
+            this.dict = dict;
+        }
+
+        @Override
+        public synchronized V insert(K key, V value) {
+            return dict.insert(key, value);
+        }
+
+        @Override
+        public synchronized V search(K key) {
+            return dict.search(key);
+        }
+
+        @Override
+        public synchronized V remove(K key) {
+            return dict.remove(key);
+        }
+
+        @Override
+        public synchronized int size() {
+            return dict.size();
+        }
+
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+            return dict.iterator();
+        }
+    }
+
+    private static String[] implNames = IMPLEMENTATIONS.keySet().toArray(new String[0]);
+    private static int[] threadCounts = defaultThreadCounts();
+    private static int writePercent = 0;
+    private static double warmupSeconds = 1;
+    private static double measureSeconds = 2;
+    private static String file = "src/aufgabe1/dtengl.txt";
+
+    private static String[] german;
+    private static String[] english;
+
+    // Set by the main thread: 0 = warm-up, 1 = measuring, 2 = stop
+    private static volatile int phase;
+
+    // Consumes search results so that the JIT cannot eliminate the operations
+    private static volatile long sink;
+
+    public static void main(String[] args) throws Exception {
+        parseArgs(args);
+        readFile();
+        System.out.printf("entries=%d write=%d%% time=%.1fs cores=%d%n",
+                german.length, writePercent, measureSeconds, Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-20s %8s %14s %10s%n", "impl", "threads", "ops/s", "speedup");
+        for (String name : implNames) {
+            double single = 0;
+            for (int threads : threadCounts) {
+                double opsPerSecond = run(IMPLEMENTATIONS.get(name), threads);
+                if (single == 0) {
+                    single = opsPerSecond / threads;
+                }
+                System.out.printf("%-20s %8d %14.0f %10.2f%n", name, threads, opsPerSecond, opsPerSecond / single);
+            }
+        }
+    }
+
+    private static int[] defaultThreadCounts() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int n = 1;
+        int[] counts = new int[0];
+        while (n <= cores) {
+            counts = Arrays.copyOf(counts, counts.length + 1);
+            counts[counts.length - 1] = n;
+            n *= 2;
+        }
+        return counts;
+    }
+
+    private static void parseArgs(String[] args) {
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "-impl":
+                    implNames = value.split(",");
+                    for (String name : implNames) {
+                        if (!IMPLEMENTATIONS.containsKey(name)) {
+                            throw new IllegalArgumentException("Unknown implementation: " + name
+                                    + " (known: " + IMPLEMENTATIONS.keySet() + ")");
+                        }
+                    }
+                    break;
+                case "-threads":
+                    threadCounts = Arrays.stream(value.split(",")).mapToInt(Integer::parseInt).toArray();
+                    break;
+                case "-write":
+                    writePercent = Integer.parseInt(value);
+                    break;
+                case "-warmup":
+                    warmupSeconds = Double.parseDouble(value);
+                    break;
+                case "-time":
+                    measureSeconds = Double.parseDouble(value);
+                    break;
+                case "-file":
+                    file = value;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+    }
+
+    private static void readFile() throws IOException {
+        String[][] pairs = WordPairLoader.read(Paths.get(file), Runtime.getRuntime().availableProcessors());
+        german = pairs[0];
+        english = pairs[1];
+    }
+
+    // Returns the total number of operations per second of all threads
+    private static double run(Supplier<Dictionary<String, String>> factory, int threadCount) throws InterruptedException {
+        Dictionary<String, String> dict = factory.get();
+        for (int i = 0; i < german.length; i++) {
+            dict.insert(german[i], english[i]);
+        }
+
+        long[] counts = new long[threadCount];
+        Thread[] threads = new Thread[threadCount];
+        phase = 0;
+        for (int t = 0; t < threadCount; t++) {
+            int id = t;
+            threads[t] = new Thread(() -> counts[id] = work(dict, id));
+            threads[t].start();
+        }
+        Thread.sleep((long) (warmupSeconds * 1000));
+        phase = 1;
+        long start = System.nanoTime();
+        Thread.sleep((long) (measureSeconds * 1000));
+        phase = 2;
+        long nanos = System.nanoTime() - start;
+        long total = 0;
+        for (int t = 0; t < threadCount; t++) {
+            threads[t].join();
+            total += counts[t];
+        }
+        return total * 1e9 / nanos;
+    }
+
+    // Runs operations until the phase is 2 and returns the number of operations while measuring
+    private static long work(Dictionary<String, String> dict, int id) {
+        SplittableRandom rnd = new SplittableRandom(id);
+        long ops = 0;
+        long found = 0;
+        int p;
+        while ((p = phase) != 2) {
+            // batches of operations between the reads of the volatile phase
+            for (int k = 0; k < 64; k++) {
+                int i = rnd.nextInt(german.length);
+                int r = rnd.nextInt(100);
+                String v;
+                if (r < writePercent) {
+                    v = ((r & 1) == 0) ? dict.insert(german[i], english[i]) : dict.remove(german[i]);
+                } else {
+                    v = dict.search(((r & 1) == 0) ? german[i] : english[i]);
+                }
+                if (v != null) {
+                    found++;
+                }
+            }
+            if (p == 1) {
+                ops += 64;
+            }
+        }
+        sink = found;
+        return ops;
+    }
+}
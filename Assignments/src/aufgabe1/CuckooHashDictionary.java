@@ -0,0 +1,355 @@
+package aufgabe1;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
+
+/**
+ * Bucketized cuckoo hash table: every key has two candidate buckets of 4 slots, chosen by
+ * two hash functions, and is stored in one of them or in a small stash.
+ * <p>
+ * A search therefore looks at no more than 8 slots: the cached hash codes of a bucket are
+ * 4 consecutive ints (16 bytes, never split across a cache line), so the two buckets cost
+ * two cache lines, and a key is only compared with equals if its hash code matches. The
+ * stash is only looked at while it is not empty. Unlike probing or chaining, this bound does
+ * not depend on the load or on an unlucky insertion order.
+ * <p>
+ * An insert into two full buckets moves a random entry of one of them to its other bucket,
+ * which may displace another entry, and so on (random walk). After 128 moves the
+ * entry in hand goes into the stash. When the stash holds more than 4 entries the table is
+ * rehashed with new hash functions (and grows if it is at least half full). Keys with the
+ * same hashCode share both buckets under every hash function, so more than 8 of them keep the
+ * stash larger: if a rehash does not bring the stash back to 4 entries, it may grow until
+ * the next rehash for growth instead of rehashing the table on every insert.
+ * The table grows at a load factor of 0.9; the slot arrays hold the keys, the values and
+ * the hash codes (no entry objects, no tombstones).
+ *
+ * @param <K> Key.
+ * @param <V> Value.
+ */
+public class CuckooHashDictionary<K, V> implements Dictionary<K, V> {
+
+    private static final int SLOTS = 4; // per bucket
+    private static final double LOAD_FACTOR = 0.9;
+    private static final int MAX_PATH = 128; // moves before an entry goes into the stash
+    private static final int STASH_SIZE = 4; // more entries in the stash cause a rehash
+    private static final int DEFAULT_BUCKETS = 4;
+
+    private Object[] keys; // null = free slot
+    private Object[] values;
+    private int[] hashes; // hashCode of the key
+    private int mask; // number of buckets - 1
+    private long seed; // of both hash functions, changed by a rehash
+    private int size;
+
+    private Object[] stashKeys = new Object[STASH_SIZE];
+    private Object[] stashValues = new Object[STASH_SIZE];
+    private int[] stashHashes = new int[STASH_SIZE];
+    private int stashSize;
+    private boolean stashFits = true; // the last rehash brought the stash back to STASH_SIZE
+
+    private int random = 0x2545F491; // xorshift state for the random walk
+
+    public CuckooHashDictionary() {
+        this(0);
+    }
+
+    /**
+     * Creates a dictionary for about the given number of entries without resizing.
+     * @param expectedSize expected number of entries.
+     */
+    public CuckooHashDictionary(int expectedSize) {
+        int buckets = DEFAULT_BUCKETS;
+        while (buckets * SLOTS * LOAD_FACTOR < expectedSize) {
+            buckets *= 2;
+        }
+        createTable(buckets);
+    }
+
+    private void createTable(int buckets) {
+        keys = new Object[buckets * SLOTS];
+        values = new Object[buckets * SLOTS];
+        hashes = new int[buckets * SLOTS];
+        mask = buckets - 1;
+    }
+
+    // The two hash functions: 64-bit mix of hashCode and seed, one half per bucket
+    private long mix(int h) {
+        long z = (h ^ seed) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 32)) * 0xD6E8FEB86659FD93L;
+        return z ^ (z >>> 32);
+    }
+
+    private int bucket1(int h) {
+        return (int) mix(h) & mask;
+    }
+
+    // Returns the other bucket of a key with hash code h that is in bucket b
+    private int other(int h, int b) {
+        long z = mix(h);
+        int b1 = (int) z & mask;
+        int b2 = (int) (z >>> 32) & mask;
+        if (b2 == b1) {
+            b2 ^= 1; // the same bucket twice would halve the choice
+        }
+        return b == b1 ? b2 : b1;
+    }
+
+    // Returns the slot of key in bucket b or -1
+    private int findInBucket(Object key, int h, int b) {
+        int slot = b * SLOTS;
+        for (int i = slot; i < slot + SLOTS; i++) {
+            Object k;
+            if (hashes[i] == h && (k = keys[i]) != null && key.equals(k)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Returns the slot of key, -2 - (index in the stash) or -1
+    private int find(Object key, int h) {
+        long z = mix(h);
+        int b1 = (int) z & mask;
+        int slot = findInBucket(key, h, b1);
+        if (slot >= 0) {
+            return slot;
+        }
+        int b2 = (int) (z >>> 32) & mask;
+        slot = findInBucket(key, h, b2 != b1 ? b2 : b2 ^ 1);
+        if (slot >= 0) {
+            return slot;
+        }
+        for (int i = 0; i < stashSize; i++) {
+            if (stashHashes[i] == h && key.equals(stashKeys[i])) {
+                return -2 - i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V insert(K key, V value) {
+        int h = key.hashCode();
+        int slot = find(key, h);
+        if (slot >= 0) {
+            V oldValue = (V) values[slot];
+            values[slot] = value;
+            return oldValue;
+        }
+        if (slot < -1) {
+            V oldValue = (V) stashValues[-2 - slot];
+            stashValues[-2 - slot] = value;
+            return oldValue;
+        }
+        if (size + 1 > LOAD_FACTOR * keys.length) {
+            rehash(2 * (mask + 1));
+        }
+        int stashBefore = stashSize;
+        place(key, value, h);
+        size++;
+        if (stashSize > STASH_SIZE && stashSize > stashBefore && stashFits) {
+            rehash(size >= keys.length / 2 ? 2 * (mask + 1) : mask + 1);
+        }
+        return null;
+    }
+
+    // Stores a key that is not contained: in a free slot of one of its buckets, else by
+    // moving entries along a random path, else in the stash
+    private void place(Object key, Object value, int h) {
+        int b = bucket1(h);
+        for (int path = 0; path < MAX_PATH; path++) {
+            if (putFree(key, value, h, b) || putFree(key, value, h, other(h, b))) {
+                return;
+            }
+            // swap with a random entry of b and continue with it in its other bucket
+            random ^= random << 13;
+            random ^= random >>> 17;
+            random ^= random << 5;
+            int victim = b * SLOTS + (random & (SLOTS - 1));
+            Object k = keys[victim];
+            Object v = values[victim];
+            int vh = hashes[victim];
+            keys[victim] = key;
+            values[victim] = value;
+            hashes[victim] = h;
+            key = k;
+            value = v;
+            h = vh;
+            b = other(h, b);
+        }
+        if (stashSize == stashKeys.length) {
+            stashKeys = Arrays.copyOf(stashKeys, 2 * stashSize);
+            stashValues = Arrays.copyOf(stashValues, 2 * stashSize);
+            stashHashes = Arrays.copyOf(stashHashes, 2 * stashSize);
+        }
+        stashKeys[stashSize] = key;
+        stashValues[stashSize] = value;
+        stashHashes[stashSize++] = h;
+    }
+
+    private boolean putFree(Object key, Object value, int h, int b) {
+        int slot = b * SLOTS;
+        for (int i = slot; i < slot + SLOTS; i++) {
+            if (keys[i] == null) {
+                keys[i] = key;
+                values[i] = value;
+                hashes[i] = h;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Puts all entries into a new table with the given number of buckets and new hash functions
+    private void rehash(int buckets) {
+        Object[] oldKeys = keys;
+        Object[] oldValues = values;
+        int[] oldHashes = hashes;
+        Object[] oldStashKeys = Arrays.copyOf(stashKeys, stashSize);
+        Object[] oldStashValues = Arrays.copyOf(stashValues, stashSize);
+        int[] oldStashHashes = Arrays.copyOf(stashHashes, stashSize);
+        createTable(buckets);
+        seed = seed * 0x5DEECE66DL + 0xB;
+        Arrays.fill(stashKeys, null);
+        Arrays.fill(stashValues, null);
+        stashSize = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                place(oldKeys[i], oldValues[i], oldHashes[i]);
+            }
+        }
+        for (int i = 0; i < oldStashKeys.length; i++) {
+            place(oldStashKeys[i], oldStashValues[i], oldStashHashes[i]);
+        }
+        stashFits = stashSize <= STASH_SIZE;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V search(K key) {
+        int slot = find(key, key.hashCode());
+        if (slot >= 0) {
+            return (V) values[slot];
+        }
+        return slot < -1 ? (V) stashValues[-2 - slot] : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(K key) {
+        int slot = find(key, key.hashCode());
+        if (slot == -1) {
+            return null;
+        }
+        V oldValue;
+        if (slot >= 0) {
+            oldValue = (V) values[slot];
+            keys[slot] = null;
+            values[slot] = null;
+            hashes[slot] = 0;
+        } else {
+            // the last entry of the stash takes the place of the removed one
+            int i = -2 - slot;
+            oldValue = (V) stashValues[i];
+            stashSize--;
+            stashKeys[i] = stashKeys[stashSize];
+            stashValues[i] = stashValues[stashSize];
+            stashHashes[i] = stashHashes[stashSize];
+            stashKeys[stashSize] = null;
+            stashValues[stashSize] = null;
+        }
+        size--;
+        return oldValue;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<Entry<K, V>> iterator() {
+        return new Iterator<>() {
+            int index = 0; // slots, then the stash
+
+            @Override
+            public boolean hasNext() {
+                while (index < keys.length && keys[index] == null) {
+                    index++;
+                }
+                return index < keys.length + stashSize;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public Entry<K, V> next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                Entry<K, V> entry = index < keys.length
+                        ? new Entry<>((K) keys[index], (V) values[index])
+                        : new Entry<>((K) stashKeys[index - keys.length], (V) stashValues[index - keys.length]);
+                index++;
+                return entry;
+            }
+        };
+    }
+
+    // Cursor over the used slots, then the stash
+    @Override
+    public Cursor<K, V> cursor() {
+        return new Cursor<>() {
+            int index = -1; // slots, then the stash
+
+            @Override
+            public boolean advance() {
+                while (++index < keys.length) {
+                    if (keys[index] != null) {
+                        return true;
+                    }
+                }
+                if (index < keys.length + stashSize) {
+                    return true;
+                }
+                index = keys.length + stashSize; // stays at the end
+                return false;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public K key() {
+                return (K) (index < keys.length ? keys[index] : stashKeys[index - keys.length]);
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public V value() {
+                return (V) (index < keys.length ? values[index] : stashValues[index - keys.length]);
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public V setValue(V value) {
+                Object[] array = index < keys.length ? values : stashValues;
+                int i = index < keys.length ? index : index - keys.length;
+                V oldValue = (V) array[i];
+                array[i] = value;
+                return oldValue;
+            }
+        };
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                action.accept((K) keys[i], (V) values[i]);
+            }
+        }
+        for (int i = 0; i < stashSize; i++) {
+            action.accept((K) stashKeys[i], (V) stashValues[i]);
+        }
+    }
+}
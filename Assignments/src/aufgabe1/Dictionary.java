@@ -4,6 +4,7 @@
 package aufgabe1;
 
 import java.util.Iterator;
+import java.util.function.BiConsumer;
 
 /**
  * Collection of entries.
@@ -57,6 +58,85 @@ public interface Dictionary<K,V> extends Iterable<Dictionary.Entry<K,V>> {
 	@Override
 	public Iterator<Entry<K, V>> iterator();
 
+	/**
+	 * Returns a cursor over the entries in this dictionary, in the order of iterator().
+	 * Unlike the iterator, a cursor does not copy the entries, so that a full scan allocates
+	 * nothing but the cursor. The dictionary must not be changed while the cursor is used,
+	 * except with Cursor.setValue.
+	 * The default implementation is based on iterator() and insert; the implementations
+	 * override it with a cursor over their own data structure.
+	 * @return a cursor before the first entry.
+	 */
+	default Cursor<K, V> cursor() {
+		Iterator<Entry<K, V>> it = iterator();
+		return new Cursor<>() {
+			private Entry<K, V> entry;
+
+			@Override
+			public boolean advance() {
+				entry = it.hasNext() ? it.next() : null;
+				return entry != null;
+			}
+
+			@Override
+			public K key() {return entry.getKey();}
+
+			@Override
+			public V value() {return entry.getValue();}
+
+			@Override
+			public V setValue(V value) {
+				Dictionary.this.insert(entry.getKey(), value);
+				return entry.setValue(value);
+			}
+		};
+	}
+
+	/**
+	 * Performs the given action for each entry in this dictionary, in the order of iterator().
+	 * The default implementation uses cursor(); the implementations override it with a loop
+	 * over their own data structure.
+	 * @param action receives key and value of every entry.
+	 */
+	default void forEach(BiConsumer<? super K, ? super V> action) {
+		for (Cursor<K, V> c = cursor(); c.advance(); ) {
+			action.accept(c.key(), c.value());
+		}
+	}
+
+	/**
+	 * Position in a dictionary, see cursor(). key, value and setValue may only be called
+	 * after advance has returned true.
+	 * @param <K> Key.
+	 * @param <V> Value.
+	 */
+	interface Cursor<K,V> {
+		/**
+		 * Moves the cursor to the next entry.
+		 * @return false if there is no more entry.
+		 */
+		boolean advance();
+
+		/**
+		 * Returns the key of the current entry.
+		 * @return the key of the current entry
+		 */
+		K key();
+
+		/**
+		 * Returns the value of the current entry.
+		 * @return the value of the current entry
+		 */
+		V value();
+
+		/**
+		 * Replaces the value of the current entry in the dictionary.
+		 * @param value new value
+		 * @return old value of the entry
+		 */
+		V setValue(V value);
+	}
+
 	/**
 	 * A dictionary entry (key-value pair).
 	 * @param <K> Key (must be immutable).
@@ -0,0 +1,580 @@
+package aufgabe1;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Benchmark suite for the Dictionary implementations.
+ * <p>
+ * In contrast to {@link Laufzeit} every configuration is run several times: the first
+ * iterations only warm up the JIT, the remaining ones are measured. The input is generated
+ * (or read) once per configuration and reused by all implementations. Each row reports the
+ * time to load the dictionary, throughput and time per operation of the operation mix,
+ * bytes allocated per operation and the garbage collector activity during the measurement.
+ * <p>
+ * Workloads:
+ * <ul>
+ *     <li>dtengl: the Laufzeit sequence (insert all pairs, search all german words, search all english words)</li>
+ *     <li>insert: 80% insert, 15% search, 5% remove</li>
+ *     <li>read: 5% insert, 90% search, 5% remove</li>
+ *     <li>lookup: 100% search (read-only dictionaries are only measured with dtengl and lookup)</li>
+ *     <li>remove: 45% insert, 10% search, 45% remove (churn at constant size)</li>
+ * </ul>
+ * Options (all optional):
+ * <pre>
+ *   -impl      comma separated implementation names (default: all)
+ *   -workload  comma separated workloads (default: all)
+ *   -sizes     comma separated number of preloaded entries (default: 1000,10000,100000)
+ *   -hit       fraction of searches for a contained key (default: 0.5)
+ *   -ops       operations per measured iteration (default: 1000000)
+ *   -warmup    number of warm-up iterations (default: 3)
+ *   -iter      number of measured iterations (default: 5)
+ *   -file      word pair file for the dtengl workload (default: src/aufgabe1/dtengl.txt)
+ *   -latency   true: additional iterations that time every single insert and search and
+ *              report the p50, p99, p99.9 and maximal latency (default: false)
+ * </pre>
+ * Example for the full range (needs a large heap):
+ * <pre>
+ *   java -Xmx12g aufgabe1.DictionaryBenchmark -sizes 1000,10000,100000,1000000,10000000
+ * </pre>
+ */
+public class DictionaryBenchmark {
+
+    // How the dictionary is loaded before the measured operations
+    private enum Load {
+        INSERT, // single inserts
+        BULK, // SortedArrayDictionary.insertAll
+        FROZEN, // SortedArrayDictionary.insertAll, then a read-only copy (only for workloads without changes)
+        PERFECT // single inserts, then a PerfectHashDictionary of the entries (only for workloads without changes)
+    }
+
+    // A named dictionary factory. Implementations with a worse than O(log n) insert
+    // are only measured up to maxSize entries.
+    private static class Implementation {
+        final String name;
+        final Supplier<Dictionary<String, String>> factory;
+        final int maxSize;
+        final Load load;
+
+        Implementation(String name, Supplier<Dictionary<String, String>> factory, int maxSize, Load load) {
+            this.name = name;
+            this.factory = factory;
+            this.maxSize = maxSize;
+            this.load = load;
+        }
+    }
+
+    private static final Map<String, Implementation> IMPLEMENTATIONS = new LinkedHashMap<>();
+
+    static {
+        register("SortedArray", SortedArrayDictionary::new, 100_000);
+        register("SortedArray-bulk", SortedArrayDictionary::new, 100_000, Load.BULK);
+        register("Eytzinger", SortedArrayDictionary::new, Integer.MAX_VALUE, Load.FROZEN);
+        register("PerfectHash", OpenHashDictionary::new, Integer.MAX_VALUE, Load.PERFECT);
+        register("LinkedHash", () -> new LinkedHashDictionary<>(11), Integer.MAX_VALUE);
+        register("OpenHash", OpenHashDictionary::new, Integer.MAX_VALUE);
+        register("OpenHash-lin", () -> new OpenHashDictionary<>(ProbingStrategy.LINEAR), Integer.MAX_VALUE);
+        register("OpenHash-tri", () -> new OpenHashDictionary<>(ProbingStrategy.TRIANGULAR), Integer.MAX_VALUE);
+        register("FlatOpenHash", FlatOpenHashDictionary::new, Integer.MAX_VALUE);
+        register("FlatOpenHash-lin", () -> new FlatOpenHashDictionary<>(0, ProbingStrategy.LINEAR), Integer.MAX_VALUE);
+        register("FlatOpenHash-tri", () -> new FlatOpenHashDictionary<>(0, ProbingStrategy.TRIANGULAR), Integer.MAX_VALUE);
+        register("RobinHood", RobinHoodHashDictionary::new, Integer.MAX_VALUE);
+        register("RobinHood-0.7", () -> new RobinHoodHashDictionary<>(0.7), Integer.MAX_VALUE);
+        register("Cuckoo", CuckooHashDictionary::new, Integer.MAX_VALUE);
+        register("Swiss", SwissTableDictionary::new, Integer.MAX_VALUE);
+        register("Swiss-0.75", () -> new SwissTableDictionary<>(0, 0.75), Integer.MAX_VALUE);
+        register("Swiss-0.5", () -> new SwissTableDictionary<>(0, 0.5), Integer.MAX_VALUE);
+        register("LinkedHash-inc", () -> new LinkedHashDictionary<>(11, true), Integer.MAX_VALUE);
+        register("OpenHash-inc", () -> new OpenHashDictionary<>(ProbingStrategy.QUADRATIC, true), Integer.MAX_VALUE);
+        register("LockFreeHash", LockFreeHashDictionary::new, Integer.MAX_VALUE);
+        register("BinaryTree", BinaryTreeDictionary::new, Integer.MAX_VALUE);
+        register("PersistentTree", PersistentTreeDictionary::new, Integer.MAX_VALUE);
+        register("SkipList", SkipListDictionary::new, Integer.MAX_VALUE);
+        register("RadixTree", RadixTreeDictionary::new, Integer.MAX_VALUE);
+        register("OpenHash+Bloom", () -> new BloomFilterDictionary<>(new OpenHashDictionary<>()), Integer.MAX_VALUE);
+        register("LinkedHash+Bloom", () -> new BloomFilterDictionary<>(new LinkedHashDictionary<>(11)), Integer.MAX_VALUE);
+        register("BinaryTree+Bloom", () -> new BloomFilterDictionary<>(new BinaryTreeDictionary<String, String>()), Integer.MAX_VALUE);
+    }
+
+    private static void register(String name, Supplier<Dictionary<String, String>> factory, int maxSize) {
+        register(name, factory, maxSize, Load.INSERT);
+    }
+
+    private static void register(String name, Supplier<Dictionary<String, String>> factory, int maxSize, Load load) {
+        IMPLEMENTATIONS.put(name, new Implementation(name, factory, maxSize, load));
+    }
+
+    // Operation codes of a generated workload
+    private static final byte INSERT = 0;
+    private static final byte SEARCH = 1;
+    private static final byte REMOVE = 2;
+
+    private enum Workload {
+        DTENGL("dtengl", 0, 0, 0),
+        INSERT_HEAVY("insert", 80, 15, 5),
+        READ_HEAVY("read", 5, 90, 5),
+        LOOKUP("lookup", 0, 100, 0),
+        REMOVE_HEAVY("remove", 45, 10, 45);
+
+        final String name;
+        final int insertPercent;
+        final int searchPercent;
+        final int removePercent;
+
+        Workload(String name, int insertPercent, int searchPercent, int removePercent) {
+            this.name = name;
+            this.insertPercent = insertPercent;
+            this.searchPercent = searchPercent;
+            this.removePercent = removePercent;
+        }
+
+        static Workload byName(String name) {
+            for (Workload w : values()) {
+                if (w.name.equals(name)) {
+                    return w;
+                }
+            }
+            throw new IllegalArgumentException("Unknown workload: " + name);
+        }
+    }
+
+    // Pre-generated input: the entries loaded before the measurement and the measured operations.
+    private static class Input {
+        final String[] loadKeys;
+        final String[] loadValues;
+        final byte[] ops;
+        final String[] opKeys;
+
+        Input(String[] loadKeys, String[] loadValues, byte[] ops, String[] opKeys) {
+            this.loadKeys = loadKeys;
+            this.loadValues = loadValues;
+            this.ops = ops;
+            this.opKeys = opKeys;
+        }
+    }
+
+    // Aggregated results of the measured iterations of one configuration
+    private static class Result {
+        final double[] loadNanos;
+        final double[] opNanos;
+        long allocatedBytes;
+        long gcCount;
+        long gcMillis;
+
+        Result(int iterations) {
+            loadNanos = new double[iterations];
+            opNanos = new double[iterations];
+        }
+    }
+
+    // Collects the latencies of single operations of one iteration and
+    // sums up their percentiles over all iterations
+    private static class Latency {
+        static final double[] PERCENTILES = {0.5, 0.99, 0.999};
+
+        final long[] samples;
+        int count;
+        final double[] sums = new double[PERCENTILES.length];
+        long max;
+        int runs;
+
+        Latency(int capacity) {
+            samples = new long[capacity];
+        }
+
+        void add(long nanos) {
+            samples[count++] = nanos;
+        }
+
+        void endIteration() {
+            if (count == 0) {
+                return;
+            }
+            Arrays.sort(samples, 0, count);
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                sums[i] += samples[(int) Math.ceil(PERCENTILES[i] * count) - 1];
+            }
+            max = Math.max(max, samples[count - 1]);
+            runs++;
+            count = 0;
+        }
+
+        String format() {
+            if (runs == 0) {
+                return "-";
+            }
+            return String.format("p50 %d  p99 %d  p99.9 %d  max %d",
+                    Math.round(sums[0] / runs), Math.round(sums[1] / runs), Math.round(sums[2] / runs), max);
+        }
+    }
+
+    private static String[] implNames = IMPLEMENTATIONS.keySet().toArray(new String[0]);
+    private static Workload[] workloads = Workload.values();
+    private static int[] sizes = {1_000, 10_000, 100_000};
+    private static double hitRatio = 0.5;
+    private static int opCount = 1_000_000;
+    private static int warmup = 3;
+    private static int iterations = 5;
+    private static Path file = Paths.get("src/aufgabe1/dtengl.txt");
+    private static boolean latency = false;
+
+    // Consumes search results so that the JIT cannot eliminate the operations
+    private static long sink;
+
+    public static void main(String[] args) throws IOException {
+        parseArgs(args);
+        System.out.printf("warmup=%d iterations=%d ops=%d hit=%.2f%n", warmup, iterations, opCount, hitRatio);
+        printHeader();
+
+        for (Workload w : workloads) {
+            if (w == Workload.DTENGL) {
+                Input input = readWordFile(file);
+                for (String name : implNames) {
+                    run(IMPLEMENTATIONS.get(name), w, input.loadKeys.length, input);
+                }
+                continue;
+            }
+            for (int size : sizes) {
+                Input input = generate(w, size, opCount, hitRatio, 42);
+                for (String name : implNames) {
+                    Implementation impl = IMPLEMENTATIONS.get(name);
+                    if (size > impl.maxSize) {
+                        System.out.printf("%-16s %-8s %10d   skipped (max size %d)%n", impl.name, w.name, size, impl.maxSize);
+                        continue;
+                    }
+                    if ((impl.load == Load.FROZEN || impl.load == Load.PERFECT) && w.insertPercent + w.removePercent > 0) {
+                        System.out.printf("%-16s %-8s %10d   skipped (read-only)%n", impl.name, w.name, size);
+                        continue;
+                    }
+                    run(impl, w, size, input);
+                }
+            }
+        }
+        System.out.println("sink: " + sink);
+    }
+
+    private static void parseArgs(String[] args) {
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "-impl":
+                    implNames = value.split(",");
+                    for (String name : implNames) {
+                        if (!IMPLEMENTATIONS.containsKey(name)) {
+                            throw new IllegalArgumentException("Unknown implementation: " + name
+                                    + " (known: " + IMPLEMENTATIONS.keySet() + ")");
+                        }
+                    }
+                    break;
+                case "-workload":
+                    workloads = Arrays.stream(value.split(",")).map(Workload::byName).toArray(Workload[]::new);
+                    break;
+                case "-sizes":
+                    sizes = Arrays.stream(value.split(",")).mapToInt(Integer::parseInt).toArray();
+                    break;
+                case "-hit":
+                    hitRatio = Double.parseDouble(value);
+                    break;
+                case "-ops":
+                    opCount = Integer.parseInt(value);
+                    break;
+                case "-warmup":
+                    warmup = Integer.parseInt(value);
+                    break;
+                case "-iter":
+                    iterations = Integer.parseInt(value);
+                    break;
+                case "-file":
+                    file = Paths.get(value);
+                    break;
+                case "-latency":
+                    latency = Boolean.parseBoolean(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+    }
+
+    // Reads the word pairs once; the operations are the searches of Laufzeit.testDict.
+    private static Input readWordFile(Path path) throws IOException {
+        String[][] pairs = WordPairLoader.read(path, Runtime.getRuntime().availableProcessors());
+        String[] keys = pairs[0];
+        String[] values = pairs[1];
+        int n = keys.length;
+        byte[] ops = new byte[2 * n];
+        String[] opKeys = new String[2 * n];
+        for (int i = 0; i < n; i++) {
+            ops[i] = SEARCH;
+            opKeys[i] = new String(keys[i]);
+            ops[n + i] = SEARCH;
+            opKeys[n + i] = new String(values[i]);
+        }
+        return new Input(keys, values, ops, opKeys);
+    }
+
+    // Generates size distinct keys to preload (in random order) and opCount operations
+    // following the percentages of the workload. Searches hit a contained key with
+    // probability hitRatio, removes always hit while the dictionary is not empty.
+    private static Input generate(Workload w, int size, int opCount, double hitRatio, long seed) {
+        Random rnd = new Random(seed);
+        String[] loadKeys = new String[size];
+        String[] loadValues = new String[size];
+        int[] live = new int[size + opCount];
+        for (int i = 0; i < size; i++) {
+            live[i] = i;
+        }
+        for (int i = size - 1; i > 0; i--) {
+            int j = rnd.nextInt(i + 1);
+            int t = live[i];
+            live[i] = live[j];
+            live[j] = t;
+        }
+        for (int i = 0; i < size; i++) {
+            loadKeys[i] = key(live[i]);
+            loadValues[i] = "v" + live[i];
+        }
+
+        int liveCount = size;
+        int nextId = size;
+        byte[] ops = new byte[opCount];
+        String[] opKeys = new String[opCount];
+        for (int i = 0; i < opCount; i++) {
+            int r = rnd.nextInt(100);
+            if (r < w.insertPercent) {
+                ops[i] = INSERT;
+                live[liveCount++] = nextId;
+                opKeys[i] = key(nextId++);
+            } else if (r < w.insertPercent + w.searchPercent) {
+                ops[i] = SEARCH;
+                if (liveCount > 0 && rnd.nextDouble() < hitRatio) {
+                    opKeys[i] = key(live[rnd.nextInt(liveCount)]);
+                } else {
+                    opKeys[i] = "miss" + rnd.nextInt(Integer.MAX_VALUE);
+                }
+            } else {
+                ops[i] = REMOVE;
+                if (liveCount > 0) {
+                    int j = rnd.nextInt(liveCount);
+                    opKeys[i] = key(live[j]);
+                    live[j] = live[--liveCount];
+                } else {
+                    opKeys[i] = "miss" + rnd.nextInt(Integer.MAX_VALUE);
+                }
+            }
+        }
+        return new Input(loadKeys, loadValues, ops, opKeys);
+    }
+
+    private static String key(int id) {
+        return "key" + id;
+    }
+
+    private static void run(Implementation impl, Workload w, int size, Input input) {
+        for (int i = 0; i < warmup; i++) {
+            runIteration(impl, input, null, 0);
+        }
+        Result result = new Result(iterations);
+        for (int i = 0; i < iterations; i++) {
+            runIteration(impl, input, result, i);
+        }
+        printResult(impl, w, size, input.ops.length, result);
+
+        if (latency) {
+            Latency insertLatency = new Latency(input.loadKeys.length + input.ops.length);
+            Latency searchLatency = new Latency(input.ops.length);
+            for (int i = 0; i < iterations; i++) {
+                runLatencyIteration(impl, input, insertLatency, searchLatency);
+            }
+            System.out.printf("%-16s   insert ns: %s%n", "", insertLatency.format());
+            System.out.printf("%-16s   search ns: %s%n", "", searchLatency.format());
+        }
+    }
+
+    // Like runIteration, but times every insert (including the load) and every search
+    private static void runLatencyIteration(Implementation impl, Input input, Latency insertLatency, Latency searchLatency) {
+        System.gc();
+        Dictionary<String, String> dict = impl.factory.get();
+        long found = 0;
+        if (impl.load != Load.INSERT) {
+            dict = load(impl, dict, input); // a bulk load is not a single insert
+        } else {
+            for (int i = 0; i < input.loadKeys.length; i++) {
+                long start = System.nanoTime();
+                dict.insert(input.loadKeys[i], input.loadValues[i]);
+                insertLatency.add(System.nanoTime() - start);
+            }
+        }
+        byte[] ops = input.ops;
+        String[] keys = input.opKeys;
+        for (int i = 0; i < ops.length; i++) {
+            String v;
+            long start = System.nanoTime();
+            switch (ops[i]) {
+                case INSERT:
+                    v = dict.insert(keys[i], keys[i]);
+                    insertLatency.add(System.nanoTime() - start);
+                    break;
+                case SEARCH:
+                    v = dict.search(keys[i]);
+                    searchLatency.add(System.nanoTime() - start);
+                    break;
+                default:
+                    v = dict.remove(keys[i]);
+                    break;
+            }
+            if (v != null) {
+                found++;
+            }
+        }
+        sink += found + dict.size();
+        insertLatency.endIteration();
+        searchLatency.endIteration();
+    }
+
+    private static void runIteration(Implementation impl, Input input, Result result, int iteration) {
+        System.gc();
+        Dictionary<String, String> dict = impl.factory.get();
+
+        long start = System.nanoTime();
+        dict = load(impl, dict, input);
+        long loadNanos = System.nanoTime() - start;
+
+        long gcCountBefore = gcCount();
+        long gcMillisBefore = gcMillis();
+        long allocatedBefore = allocatedBytes();
+        start = System.nanoTime();
+        long found = 0;
+        byte[] ops = input.ops;
+        String[] keys = input.opKeys;
+        for (int i = 0; i < ops.length; i++) {
+            String v;
+            switch (ops[i]) {
+                case INSERT:
+                    v = dict.insert(keys[i], keys[i]);
+                    break;
+                case SEARCH:
+                    v = dict.search(keys[i]);
+                    break;
+                default:
+                    v = dict.remove(keys[i]);
+                    break;
+            }
+            if (v != null) {
+                found++;
+            }
+        }
+        long opNanos = System.nanoTime() - start;
+        long allocated = allocatedBytes() - allocatedBefore;
+        sink += found + dict.size();
+
+        if (result != null) {
+            result.loadNanos[iteration] = loadNanos;
+            result.opNanos[iteration] = opNanos;
+            result.allocatedBytes += allocated;
+            result.gcCount += gcCount() - gcCountBefore;
+            result.gcMillis += gcMillis() - gcMillisBefore;
+        }
+    }
+
+    // Loads the preloaded entries of input into dict and returns the dictionary to measure
+    private static Dictionary<String, String> load(Implementation impl, Dictionary<String, String> dict, Input input) {
+        if (impl.load == Load.INSERT || impl.load == Load.PERFECT) {
+            for (int i = 0; i < input.loadKeys.length; i++) {
+                dict.insert(input.loadKeys[i], input.loadValues[i]);
+            }
+            return impl.load == Load.PERFECT ? new PerfectHashDictionary<>(dict) : dict;
+        }
+        List<Dictionary.Entry<String, String>> entries = new ArrayList<>(input.loadKeys.length);
+        for (int i = 0; i < input.loadKeys.length; i++) {
+            entries.add(new Dictionary.Entry<>(input.loadKeys[i], input.loadValues[i]));
+        }
+        ((SortedArrayDictionary<String, String>) dict).insertAll(entries);
+        return impl.load == Load.FROZEN ? new EytzingerDictionary<>(dict) : dict;
+    }
+
+    private static void printHeader() {
+        System.out.printf("%-16s %-8s %10s %10s %12s %10s %10s %8s %6s %8s%n",
+                "impl", "workload", "size", "load ms", "ops/s", "ns/op", "+/- ns", "B/op", "gc", "gc ms");
+    }
+
+    private static void printResult(Implementation impl, Workload w, int size, int ops, Result r) {
+        double[] nsPerOp = new double[r.opNanos.length];
+        for (int i = 0; i < nsPerOp.length; i++) {
+            nsPerOp[i] = r.opNanos[i] / ops;
+        }
+        double mean = mean(nsPerOp);
+        System.out.printf("%-16s %-8s %10d %10.2f %12.0f %10.1f %10.1f %8.1f %6d %8d%n",
+                impl.name, w.name, size,
+                mean(r.loadNanos) / 1e6,
+                1e9 / mean,
+                mean,
+                stdDev(nsPerOp, mean),
+                allocatedBytesSupported() ? (double) r.allocatedBytes / ((long) ops * r.opNanos.length) : Double.NaN,
+                r.gcCount,
+                r.gcMillis);
+    }
+
+    static double mean(double[] a) {
+        double sum = 0;
+        for (double x : a) {
+            sum += x;
+        }
+        return sum / a.length;
+    }
+
+    static double stdDev(double[] a, double mean) {
+        if (a.length < 2) {
+            return 0;
+        }
+        double sum = 0;
+        for (double x : a) {
+            sum += (x - mean) * (x - mean);
+        }
+        return Math.sqrt(sum / (a.length - 1));
+    }
+
+    // ----- GC and allocation counters -----
+
+    private static final List<GarbageCollectorMXBean> GCS = new ArrayList<>(ManagementFactory.getGarbageCollectorMXBeans());
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : GCS) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+        return count;
+    }
+
+    static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : GCS) {
+            millis += Math.max(0, gc.getCollectionTime());
+        }
+        return millis;
+    }
+
+    static boolean allocatedBytesSupported() {
+        return THREADS instanceof com.sun.management.ThreadMXBean;
+    }
+
+    // Bytes allocated by the current thread so far (HotSpot specific, 0 if not supported)
+    static long allocatedBytes() {
+        if (!allocatedBytesSupported()) {
+            return 0;
+        }
+        return ((com.sun.management.ThreadMXBean) THREADS).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
@@ -0,0 +1,366 @@
+package aufgabe1;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary snapshot of a Dictionary&lt;String, String&gt;, so that a dictionary can be saved once
+ * and restored much faster than it is rebuilt from a text file.
+ * <p>
+ * Format (version 1, numbers big endian, varint = 7 bits per byte, lowest first):
+ * <pre>
+ *   header   "DSNP", version (1 byte)
+ *   entries  [slot (varint), only with TABLE_LAYOUT]
+ *            key length + 1 (varint), key (UTF-8), value length + 1 (varint, 0 = null), value (UTF-8)
+ *            (with TABLE_LAYOUT a DELETED slot is written as key length 0 without a value)
+ *   footer   flags (1 byte), records (int), capacity (int), probing (1 byte),
+ *            CRC-32C of all bytes before it (int)
+ * </pre>
+ * The flags tell how the entries were written: SORTED if the keys are in strictly ascending
+ * order (the writer checks this while iterating, so it is set for every dictionary that
+ * iterates in key order), TABLE_LAYOUT if they are the slots of an OpenHashDictionary table
+ * with the given capacity and probing strategy. They are in the footer, so that any
+ * dictionary can be written in one pass over its iterator.
+ * <p>
+ * read verifies the checksum before it changes the dictionary. An empty SortedArrayDictionary
+ * is restored from a SORTED snapshot by filling its array (no sort, no shifting), an empty
+ * OpenHashDictionary with the same probing strategy from a TABLE_LAYOUT snapshot by putting
+ * every entry into its slot (no hashing, no probing). A DurableDictionary is filled without
+ * logging and then checkpointed once (see DurableDictionary.restore). Every other dictionary
+ * is filled with insert (SortedArrayDictionary with insertAll).
+ */
+public final class DictionarySnapshot {
+
+    private static final int MAGIC = 0x44534E50; // "DSNP"
+    private static final byte VERSION = 1;
+    private static final int SORTED = 1;
+    private static final int TABLE_LAYOUT = 2;
+    private static final int HEADER = 5;
+    private static final int FOOTER = 14;
+    private static final int BUFFER = 1 << 16;
+    // probing strategies of TABLE_LAYOUT snapshots by their code (0 = none)
+    private static final ProbingStrategy[] PROBINGS = {
+            null, ProbingStrategy.QUADRATIC, ProbingStrategy.LINEAR, ProbingStrategy.TRIANGULAR};
+
+    private DictionarySnapshot() {
+    }
+
+    /**
+     * Writes all entries of dict to file (an existing file is replaced).
+     * @param dict dictionary to save.
+     * @param file snapshot file.
+     * @return number of written entries.
+     * @throws IOException if the file cannot be written.
+     */
+    public static int write(Dictionary<String, String> dict, Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            Output out = new Output(channel);
+            out.putInt(MAGIC);
+            out.put(VERSION);
+
+            int flags;
+            int records = 0;
+            int count = 0;
+            int capacity = 0;
+            int probing = 0; // 0 also for a probing strategy without code
+            if (dict instanceof OpenHashDictionary) {
+                probing = Math.max(0, Arrays.asList(PROBINGS).indexOf(((OpenHashDictionary<String, String>) dict).probing()));
+            }
+            if (probing > 0) {
+                OpenHashDictionary<String, String> hash = (OpenHashDictionary<String, String>) dict;
+                flags = TABLE_LAYOUT;
+                capacity = hash.tableCapacity();
+                for (int i = 0; i < capacity; i++) {
+                    String key = hash.keyAt(i);
+                    if (key != null) {
+                        out.putVarint(i);
+                        out.putString(key);
+                        out.putString(hash.valueAt(i));
+                        records++;
+                        count++;
+                    } else if (hash.deletedAt(i)) {
+                        out.putVarint(i);
+                        out.putString(null);
+                        records++;
+                    }
+                }
+            } else {
+                boolean sorted = true;
+                String last = null;
+                for (Dictionary.Entry<String, String> e : dict) {
+                    String key = e.getKey();
+                    sorted &= (last == null || last.compareTo(key) < 0);
+                    last = key;
+                    out.putString(key);
+                    out.putString(e.getValue());
+                    count++;
+                }
+                records = count;
+                flags = sorted ? SORTED : 0;
+            }
+
+            out.put((byte) flags);
+            out.putInt(records);
+            out.putInt(capacity);
+            out.put((byte) probing);
+            out.flush();
+            ByteBuffer crc = ByteBuffer.allocate(4).putInt((int) out.crc.getValue());
+            crc.flip();
+            while (crc.hasRemaining()) {
+                channel.write(crc);
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Reads the entries of a snapshot into dict (see the class comment for the fast paths).
+     * @param file snapshot file.
+     * @param dict dictionary to fill.
+     * @return number of read entries.
+     * @throws IOException if the file cannot be read, is no snapshot, or its checksum is wrong.
+     */
+    @SuppressWarnings("unchecked")
+    public static int read(Path file, Dictionary<String, String> dict) throws IOException {
+        if (dict instanceof DurableDictionary) {
+            return ((DurableDictionary) dict).restore(file); // reads into the wrapped dictionary
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER + FOOTER) {
+                throw new IOException("Not a dictionary snapshot: " + file);
+            }
+            ByteBuffer footer = ByteBuffer.allocate(FOOTER);
+            while (footer.hasRemaining()) {
+                if (channel.read(footer, size - FOOTER + footer.position()) < 0) {
+                    throw new IOException("Truncated dictionary snapshot: " + file);
+                }
+            }
+            footer.flip();
+            int flags = footer.get();
+            int records = footer.getInt();
+            int capacity = footer.getInt();
+            int probing = footer.get();
+            int crc = footer.getInt();
+            if (records < 0 || records > size || probing < 0 || probing >= PROBINGS.length
+                    || ((flags & TABLE_LAYOUT) != 0
+                        && (probing == 0 || capacity <= records || PROBINGS[probing].capacity(capacity) != capacity))) {
+                throw new IOException("Corrupt dictionary snapshot: " + file);
+            }
+
+            Input in = new Input(channel, size - 4);
+            if (in.getInt() != MAGIC) {
+                throw new IOException("Not a dictionary snapshot: " + file);
+            }
+            int version = in.get();
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + ": " + file);
+            }
+            boolean layout = (flags & TABLE_LAYOUT) != 0;
+            int[] slots = layout ? new int[records] : null;
+            String[] keys = new String[records];
+            String[] values = new String[records];
+            int count = 0;
+            for (int i = 0; i < records; i++) {
+                if (layout) {
+                    slots[i] = in.getVarint();
+                    if (slots[i] < 0 || slots[i] >= capacity) {
+                        throw new IOException("Corrupt dictionary snapshot: " + file);
+                    }
+                }
+                keys[i] = in.getString();
+                if (keys[i] != null) {
+                    values[i] = in.getString();
+                    count++;
+                } else if (!layout) {
+                    throw new IOException("Corrupt dictionary snapshot: " + file);
+                }
+            }
+            if (in.position() != size - FOOTER) {
+                throw new IOException("Corrupt dictionary snapshot: " + file);
+            }
+            in.skip(FOOTER - 4); // the footer is part of the checksum
+            if ((int) in.crc.getValue() != crc) {
+                throw new IOException("Checksum mismatch in dictionary snapshot: " + file);
+            }
+
+            if (dict.size() == 0 && dict instanceof SortedArrayDictionary) {
+                SortedArrayDictionary<String, String> sorted = (SortedArrayDictionary<String, String>) dict;
+                Dictionary.Entry<String, String>[] entries = new Dictionary.Entry[count];
+                for (int i = 0, j = 0; i < records; i++) {
+                    if (keys[i] != null) {
+                        entries[j++] = new Dictionary.Entry<>(keys[i], values[i]);
+                    }
+                }
+                if ((flags & SORTED) != 0) {
+                    sorted.restoreSorted(entries, count);
+                } else {
+                    sorted.insertAll(Arrays.asList(entries));
+                }
+            } else if (layout && dict.size() == 0 && dict instanceof OpenHashDictionary
+                    && ((OpenHashDictionary<String, String>) dict).probing() == PROBINGS[probing]) {
+                ((OpenHashDictionary<String, String>) dict).restore(capacity, slots, keys, values, records);
+            } else {
+                for (int i = 0; i < records; i++) {
+                    if (keys[i] != null) {
+                        dict.insert(keys[i], values[i]);
+                    }
+                }
+            }
+            return count;
+        }
+    }
+
+    // Buffered writer that computes the checksum of everything it writes
+    private static final class Output {
+        final FileChannel channel;
+        final CRC32C crc = new CRC32C();
+        ByteBuffer buf = ByteBuffer.allocate(BUFFER);
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void ensure(int n) throws IOException {
+            if (buf.remaining() < n) {
+                flush();
+                if (buf.capacity() < n) {
+                    buf = ByteBuffer.allocate(n);
+                }
+            }
+        }
+
+        void flush() throws IOException {
+            buf.flip();
+            crc.update(buf.array(), 0, buf.limit());
+            while (buf.hasRemaining()) {
+                channel.write(buf);
+            }
+            buf.clear();
+        }
+
+        void put(byte b) throws IOException {
+            ensure(1);
+            buf.put(b);
+        }
+
+        void putInt(int v) throws IOException {
+            ensure(4);
+            buf.putInt(v);
+        }
+
+        void putVarint(int v) throws IOException {
+            ensure(5);
+            while ((v & ~0x7F) != 0) {
+                buf.put((byte) ((v & 0x7F) | 0x80));
+                v >>>= 7;
+            }
+            buf.put((byte) v);
+        }
+
+        void putString(String s) throws IOException {
+            if (s == null) {
+                putVarint(0);
+                return;
+            }
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            putVarint(bytes.length + 1);
+            ensure(bytes.length);
+            buf.put(bytes);
+        }
+    }
+
+    // Buffered reader of the bytes [0, end) of a file that computes their checksum
+    private static final class Input {
+        final FileChannel channel;
+        final long end;
+        final CRC32C crc = new CRC32C();
+        ByteBuffer buf = ByteBuffer.allocate(BUFFER);
+        long filePosition; // of the first byte behind the buffer content
+
+        Input(FileChannel channel, long end) {
+            this.channel = channel;
+            this.end = end;
+            buf.limit(0);
+        }
+
+        long position() {
+            return filePosition - buf.remaining();
+        }
+
+        void ensure(int n) throws IOException {
+            if (buf.remaining() >= n) {
+                return;
+            }
+            if (buf.capacity() < n) {
+                ByteBuffer bigger = ByteBuffer.allocate(n);
+                bigger.put(buf);
+                buf = bigger;
+            } else {
+                buf.compact();
+            }
+            while (buf.position() < n && filePosition < end) {
+                int from = buf.position();
+                buf.limit((int) Math.min(buf.capacity(), from + end - filePosition));
+                int read = channel.read(buf, filePosition);
+                if (read < 0) {
+                    break;
+                }
+                crc.update(buf.array(), from, read);
+                filePosition += read;
+            }
+            buf.flip();
+            if (buf.remaining() < n) {
+                throw new IOException("Truncated dictionary snapshot");
+            }
+        }
+
+        int get() throws IOException {
+            ensure(1);
+            return buf.get();
+        }
+
+        int getInt() throws IOException {
+            ensure(4);
+            return buf.getInt();
+        }
+
+        int getVarint() throws IOException {
+            int v = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = get();
+                v |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return v;
+                }
+            }
+            throw new IOException("Corrupt dictionary snapshot");
+        }
+
+        String getString() throws IOException {
+            int length = getVarint() - 1;
+            if (length < 0) {
+                return null;
+            }
+            if (length > end - position()) {
+                throw new IOException("Corrupt dictionary snapshot");
+            }
+            ensure(length);
+            String s = new String(buf.array(), buf.position(), length, StandardCharsets.UTF_8);
+            buf.position(buf.position() + length);
+            return s;
+        }
+
+        void skip(int n) throws IOException {
+            ensure(n);
+            buf.position(buf.position() + n);
+        }
+    }
+}
@@ -6,6 +6,23 @@
  */
 package aufgabe1;
 
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
 /**
  * Static test methods for different Dictionary implementations.
  * @author oliverbittel
@@ -15,11 +32,32 @@ public class DictionaryTest {
 	/**
 	 * @param args not used.
 	 */
-	public static void main(String[] args)  {
+	public static void main(String[] args) throws IOException {
 		testSortedArrayDictionary();
+		testSortedArrayBulkOperations();
 		testLinkedHashDictionary();
 		testOpenHashWithQuadraticProbingDictionary();
+		testOpenHashProbingStrategies();
+		testIncrementalResize();
+		testFlatOpenHashDictionary();
+		testRobinHoodHashDictionary();
+		testCuckooHashDictionary();
+		testSwissTableDictionary();
+		testPrimitiveOpenHashDictionaries();
+		testStripedHashDictionary();
+		testLockFreeHashDictionary();
+		testEytzingerDictionary();
+		testPerfectHashDictionary();
 		testBinaryTreeDictionary();
+		testBinaryTreeOrderStatistics();
+		testPersistentTreeDictionary();
+		testSkipListDictionary();
+		testRadixTreeDictionary();
+		testBloomFilterDictionary();
+		testCursorAndForEach();
+		testDictionarySnapshot();
+		testDurableDictionary();
+		testLsmTreeDictionary();
 
 		cpuTime();
 	}
@@ -33,6 +71,27 @@ public class DictionaryTest {
 		testDict(dict);
 	}
 
+	private static void testSortedArrayBulkOperations() {
+		System.out.println("===== New Test Case ========================");
+		System.out.println("test SortedArrayDictionary.insertAll/removeAll");
+		SortedArrayDictionary<String, String> dict = new SortedArrayDictionary<>();
+		dict.insert("gehen", "go");
+		dict.insert("schreiben", "write");
+		List<Dictionary.Entry<String, String>> batch = List.of(
+				new Dictionary.Entry<>("lesen", "read"),
+				new Dictionary.Entry<>("gehen", "walk"),
+				new Dictionary.Entry<>("arbeiten", "work"),
+				new Dictionary.Entry<>("lesen", "reading"));
+		System.out.println(dict.insertAll(batch));						// 2
+		System.out.println(dict.size());								// 4
+		System.out.println(dict.search("gehen"));						// walk
+		System.out.println(dict.search("lesen"));						// reading
+		System.out.println(dict.removeAll(List.of("arbeiten", "schreiben", "fahren")));	// 2
+		for (Dictionary.Entry<String, String> e : dict) {
+			System.out.println(e.getKey() + ": " + e.getValue());	// gehen: walk, lesen: reading
+		}
+	}
+
 	private static void testLinkedHashDictionary() {
 		Dictionary<String, String> dict = new LinkedHashDictionary<>(7);
 		testDict(dict);
@@ -43,6 +102,211 @@ public class DictionaryTest {
 		testDict(dict);
 	}
 
+	private static void testOpenHashProbingStrategies() {
+		testDict(new OpenHashDictionary<>(ProbingStrategy.LINEAR));
+		testDict(new OpenHashDictionary<>(ProbingStrategy.TRIANGULAR));
+	}
+
+	private static void testIncrementalResize() {
+		testDict(new LinkedHashDictionary<>(7, true));
+		testDict(new OpenHashDictionary<>(ProbingStrategy.QUADRATIC, true));
+
+		// searching while iterating must not move entries of a resize in progress
+		System.out.println("search while iterating:");
+		System.out.println(searchWhileIterating(() -> new LinkedHashDictionary<>(7, true)));	// 0
+		System.out.println(searchWhileIterating(() -> new OpenHashDictionary<>(ProbingStrategy.QUADRATIC, true)));	// 0
+	}
+
+	// Returns for how many sizes 1..400 iterator, cursor or forEach did not return every key exactly once
+	// while every returned key was searched
+	private static int searchWhileIterating(Supplier<Dictionary<String, String>> factory) {
+		int failures = 0;
+		for (int n = 1; n <= 400; n++) {
+			Dictionary<String, String> dict = factory.get();
+			for (int i = 0; i < n; i++) {
+				dict.insert("k" + i, "v" + i);
+			}
+			Set<String> seen = new HashSet<>();
+			int count = 0;
+			for (Dictionary.Entry<String, String> e : dict) {
+				count += (dict.search(e.getKey()) != null && seen.add(e.getKey())) ? 1 : 100;
+			}
+			seen.clear();
+			for (Dictionary.Cursor<String, String> c = dict.cursor(); c.advance(); ) {
+				count += (dict.search(c.key()) != null && seen.add(c.key())) ? 1 : 100;
+			}
+			seen.clear();
+			int[] forEachCount = {0};
+			dict.forEach((k, v) -> forEachCount[0] += (dict.search(k) != null && seen.add(k)) ? 1 : 100);
+			if (count != 2 * n || forEachCount[0] != n) {
+				failures++;
+			}
+		}
+		return failures;
+	}
+
+	private static void testFlatOpenHashDictionary() {
+		Dictionary<String, String> dict = new FlatOpenHashDictionary<>();
+		testDict(dict);
+	}
+
+	private static void testRobinHoodHashDictionary() {
+		Dictionary<String, String> dict = new RobinHoodHashDictionary<>();
+		testDict(dict);
+	}
+
+	private static void testCuckooHashDictionary() {
+		Dictionary<String, String> dict = new CuckooHashDictionary<>();
+		testDict(dict);
+
+		// 32 keys with one hashCode ("Aa" and "BB" have the same): more than fit into their
+		// two buckets and the stash, under any hash function
+		System.out.println("colliding hash codes:");
+		Dictionary<String, String> cuckoo = new CuckooHashDictionary<>();
+		List<String> same = new ArrayList<>();
+		for (int m = 0; m < 32; m++) {
+			StringBuilder key = new StringBuilder();
+			for (int b = 0; b < 5; b++) {
+				key.append((m >> b & 1) == 0 ? "Aa" : "BB");
+			}
+			same.add(key.toString());
+			cuckoo.insert(key.toString(), "v" + m);
+		}
+		long start = System.nanoTime();
+		for (int i = 0; i < 20_000; i++) {
+			cuckoo.insert("key" + i, "v" + i);
+		}
+		long millis = (System.nanoTime() - start) / 1_000_000;
+		int found = 0;
+		for (String key : same) {
+			found += (cuckoo.search(key) != null) ? 1 : 0;
+		}
+		System.out.println(cuckoo.size() + " " + found + " " + cuckoo.search("key19999") + " " + (millis < 1000));	// 20032 32 v19999 true
+		for (String key : same) {
+			cuckoo.remove(key);
+		}
+		System.out.println(cuckoo.size() + " " + cuckoo.search(same.get(0)) + " " + cuckoo.search("key0"));	// 20000 null v0
+	}
+
+	private static void testSwissTableDictionary() {
+		Dictionary<String, String> dict = new SwissTableDictionary<>();
+		testDict(dict);
+	}
+
+	private static void testPrimitiveOpenHashDictionaries() {
+		System.out.println("===== New Test Case ========================");
+		System.out.println("test " + IntIntOpenHashDictionary.class);
+		IntIntOpenHashDictionary ints = new IntIntOpenHashDictionary(0, -1);
+		for (int i = -50; i <= 50; i++) {
+			ints.insertInt(7 * i, i);										// includes the key 0
+		}
+		ints.insertInt(Integer.MIN_VALUE, 99);
+		System.out.println(ints.size());								// 102
+		System.out.println(ints.searchInt(14) + " " + ints.searchInt(0) + " " + ints.searchInt(Integer.MIN_VALUE));	// 2 0 99
+		System.out.println(ints.searchInt(15) + " " + ints.containsKey(15));	// -1 false
+		System.out.println(ints.insertInt(14, 20) + " " + ints.searchInt(14));	// 2 20
+		for (int i = -50; i <= 50; i += 2) {
+			ints.removeInt(7 * i);
+		}
+		System.out.println(ints.size() + " " + ints.searchInt(0) + " " + ints.searchInt(7));	// 51 -1 1
+		Dictionary<Integer, Integer> boxed = ints;
+		System.out.println(boxed.search(7) + " " + boxed.search(14) + " " + boxed.remove(14));	// 1 null null
+		int n = 0;
+		for (Dictionary.Entry<Integer, Integer> e : boxed) {
+			n++;
+		}
+		System.out.println(n);											// 51
+
+		System.out.println("test " + IntObjOpenHashDictionary.class + ", " + LongObjOpenHashDictionary.class);
+		IntObjOpenHashDictionary<String> intObj = new IntObjOpenHashDictionary<>();
+		LongObjOpenHashDictionary<String> longObj = new LongObjOpenHashDictionary<>();
+		for (int i = 0; i < 1000; i++) {
+			intObj.insertInt(i, "v" + i);
+			longObj.insertLong(i * 10_000_000_000L, "v" + i);
+		}
+		System.out.println(intObj.size() + " " + longObj.size());		// 1000 1000
+		System.out.println(intObj.searchInt(0) + " " + intObj.searchInt(999) + " " + intObj.searchInt(1000));	// v0 v999 null
+		System.out.println(longObj.searchLong(0) + " " + longObj.searchLong(9_990_000_000_000L) + " " + longObj.searchLong(999));	// v0 v999 null
+		System.out.println(intObj.removeInt(500) + " " + longObj.removeLong(5_000_000_000_000L) + " " + intObj.removeInt(500));	// v500 v500 null
+		System.out.println(intObj.size() + " " + longObj.size());		// 999 999
+
+		// value type equal to the boxed key type: the primitive and the Dictionary methods must not be ambiguous
+		IntObjOpenHashDictionary<Integer> intInteger = new IntObjOpenHashDictionary<>();
+		LongObjOpenHashDictionary<Long> longLong = new LongObjOpenHashDictionary<>();
+		intInteger.insertInt(1, 2);
+		intInteger.insert(3, 4);
+		longLong.insertLong(1L, 2L);
+		longLong.insert(3L, 4L);
+		System.out.println(intInteger.searchInt(3) + " " + intInteger.search(1) + " " + intInteger.removeInt(1) + " " + intInteger.remove(3));	// 4 2 2 4
+		System.out.println(longLong.searchLong(3L) + " " + longLong.search(1L) + " " + longLong.removeLong(1L) + " " + longLong.remove(3L));	// 4 2 2 4
+	}
+
+	private static void testStripedHashDictionary() {
+		Dictionary<String, String> dict = new StripedHashDictionary<>(4);
+		testDict(dict);
+		testConcurrentDict(new StripedHashDictionary<>(4));
+	}
+
+	private static void testLockFreeHashDictionary() {
+		Dictionary<String, String> dict = new LockFreeHashDictionary<>();
+		testDict(dict);
+		testConcurrentDict(new LockFreeHashDictionary<>());
+	}
+
+	private static void testEytzingerDictionary() {
+		System.out.println("===== New Test Case ========================");
+		System.out.println("test " + EytzingerDictionary.class);
+		Dictionary<String, String> source = new LinkedHashDictionary<>(7);
+		String[] words = {"gehen", "lesen", "schreiben", "arbeiten", "fahren", "geh", "gehenx", "z"};
+		for (String w : words) {
+			source.insert(w, w.toUpperCase());
+		}
+		Dictionary<String, String> dict = new EytzingerDictionary<>(source);
+		System.out.println(dict.size());								// 8
+		for (String w : words) {
+			System.out.println(w + ": " + dict.search(new String(w)));	// w: W
+		}
+		System.out.println(dict.search("gehe"));						// null
+		System.out.println(dict.search("a") + " " + dict.search("zz"));	// null null
+		for (Dictionary.Entry<String, String> e : dict) {
+			System.out.print(e.getKey() + " ");							// ascending order
+		}
+		System.out.println();
+		try {
+			dict.insert("laufen", "run");
+			System.out.println("insert: no exception");
+		} catch (UnsupportedOperationException e) {
+			System.out.println("insert: UnsupportedOperationException");	// expected
+		}
+	}
+
+	private static void testPerfectHashDictionary() {
+		System.out.println("===== New Test Case ========================");
+		System.out.println("test " + PerfectHashDictionary.class);
+		Dictionary<String, String> source = new LinkedHashDictionary<>(7);
+		String[] words = {"gehen", "lesen", "schreiben", "arbeiten", "fahren", "Aa", "BB"}; // "Aa" and "BB" have the same hashCode
+		for (String w : words) {
+			source.insert(w, w.toUpperCase());
+		}
+		PerfectHashDictionary<String, String> dict = new PerfectHashDictionary<>(source, 2);
+		System.out.println(dict.size() + " " + dict.overflowSize());	// 7 1
+		for (String w : words) {
+			System.out.println(w + ": " + dict.search(new String(w)));	// w: W
+		}
+		System.out.println(dict.search("gehe") + " " + dict.search("C#"));	// null null ("C#" has the hashCode of "Aa")
+		int n = 0;
+		for (Dictionary.Entry<String, String> e : dict) {
+			n++;
+		}
+		System.out.println(n);											// 7
+		try {
+			dict.remove("gehen");
+			System.out.println("remove: no exception");
+		} catch (UnsupportedOperationException e) {
+			System.out.println("remove: UnsupportedOperationException");	// expected
+		}
+	}
+
 	private static void testBinaryTreeDictionary() {
 		Dictionary<String, String> dict = new BinaryTreeDictionary<>();
 		testDict(dict);
@@ -96,6 +360,390 @@ public class DictionaryTest {
 		}
 	}
 
+	private static void testBinaryTreeOrderStatistics() {
+		System.out.println("===== New Test Case ========================");
+		System.out.println("test BinaryTreeDictionary floor/ceiling/rank/select/range");
+		BinaryTreeDictionary<String, String> dict = new BinaryTreeDictionary<>();
+		String[] words = {"gehen", "lesen", "schreiben", "arbeiten", "fahren", "geben", "gelb"};
+		for (String w : words) {
+			dict.insert(w, w.toUpperCase());
+		}
+		System.out.println(dict.floor("gehe").getKey());				// geben
+		System.out.println(dict.ceiling("gehe").getKey());				// gehen
+		System.out.println(dict.ceiling("z"));							// null
+		System.out.println(dict.rank("gehen"));						// 3
+		System.out.println(dict.select(0).getKey() + " " + dict.select(6).getKey());	// arbeiten schreiben
+		for (Iterator<Dictionary.Entry<String, String>> it = dict.range("ge", "gf"); it.hasNext(); ) {
+			System.out.print(it.next().getKey() + " ");				// geben gehen gelb
+		}
+		System.out.println();
+	}
+
+	private static void testPersistentTreeDictionary() {
+		PersistentTreeDictionary<String, String> dict = new PersistentTreeDictionary<>();
+		testDict(dict);
+
+		System.out.println("snapshot:");
+		PersistentTreeDictionary<String, String> snapshot = dict.snapshot();
+		dict.insert("laufen", "run");
+		System.out.println(dict.size() + " " + snapshot.size());						// 18 17
+		dict.remove("gehen");
+		System.out.println(dict.search("laufen") + " " + snapshot.search("laufen"));	// run null
+		System.out.println(dict.search("gehen") + " " + snapshot.search("gehen"));		// null go
+		testConcurrentDict(new PersistentTreeDictionary<>());
+	}
+
+	private static void testSkipListDictionary() {
+		SkipListDictionary<String, String> dict = new SkipListDictionary<>();
+		testDict(dict);
+		System.out.println(dict.floor("gehe").getKey());				// fahren
+		System.out.println(dict.ceiling("gehe").getKey());				// gehen
+		System.out.println(dict.floor("a"));							// null
+		testConcurrentDict(new SkipListDictionary<>());
+		testContendedDict(new SkipListDictionary<>());
+	}
+
+	private static void testRadixTreeDictionary() {
+		RadixTreeDictionary<String> dict = new RadixTreeDictionary<>();
+		testDict(dict);
+
+		System.out.println("prefix sch:");
+		Iterator<Dictionary.Entry<String, String>> it = dict.prefixIterator("sch");
+		while (it.hasNext()) {
+			System.out.print(it.next().getKey() + " ");				// schreiben schreien schwimmen
+		}
+		System.out.println();
+		System.out.println(dict.longestPrefixMatch("gehenden").getKey());	// gehen
+		System.out.println(dict.longestPrefixMatch("geh"));				// null
+		for (Dictionary.Entry<String, String> e : dict.autocomplete("s", 3)) {
+			System.out.print(e.getKey() + " ");							// singen spielen starten
+		}
+		System.out.println();
+
+		System.out.println("fuzzy:");
+		for (Dictionary.Entry<String, String> e : dict.fuzzySearch("schreiem", 2)) {
+			System.out.print(e.getKey() + " ");							// schreien schreiben
+		}
+		System.out.println();
+		System.out.println(dict.fuzzySearch("tantzen", 1).get(0).getKey());	// tanzen
+	}
+
+	private static void testBloomFilterDictionary() {
+		BloomFilterDictionary<String, String> dict = new BloomFilterDictionary<>(new BinaryTreeDictionary<String, String>());
+		testDict(dict);
+		dict.resetStatistics();
+		System.out.println(dict.search("go"));							// null
+		System.out.println(dict.search("tanzen"));						// dance
+		System.out.println(dict.searches() + " " + (dict.rejected() + dict.falsePositives()));	// 2 1
+	}
+
+	private static void testCursorAndForEach() {
+		System.out.println("===== New Test Case ========================");
+		System.out.println("test Dictionary.cursor/forEach");
+		Dictionary<String, String> source = new LinkedHashDictionary<>(7);
+		String[] words = {"gehen", "lesen", "schreiben", "arbeiten", "fahren", "Aa", "BB"};
+		for (String w : words) {
+			source.insert(w, w.toUpperCase());
+		}
+		List<Dictionary<String, String>> dicts = new ArrayList<>(List.of(new SortedArrayDictionary<>(), new LinkedHashDictionary<>(3),
+				new OpenHashDictionary<>(ProbingStrategy.QUADRATIC, true), new FlatOpenHashDictionary<>(), new RobinHoodHashDictionary<>(),
+				new CuckooHashDictionary<>(), new SwissTableDictionary<>(), new BinaryTreeDictionary<>(),
+				new SkipListDictionary<>(), new BloomFilterDictionary<>(new OpenHashDictionary<>())));
+		for (Dictionary<String, String> dict : dicts) {
+			for (String w : words) {
+				dict.insert(w, w.toUpperCase());
+			}
+		}
+		dicts.add(new EytzingerDictionary<>(source));
+		dicts.add(new PerfectHashDictionary<>(source, 1));
+		for (Dictionary<String, String> dict : dicts) {
+			StringBuilder keys = new StringBuilder();
+			dict.forEach((k, v) -> keys.append(k.charAt(0)));
+			Dictionary.Cursor<String, String> c = dict.cursor();
+			int n = 0;
+			while (c.advance()) {
+				n++;
+				if (c.key().equals("BB") || c.key().equals("lesen")) {
+					c.setValue(c.value().toLowerCase());
+				}
+			}
+			System.out.println(dict.getClass().getSimpleName() + ": " + keys.length() + " " + n + " "
+					+ dict.search("BB") + " " + dict.search("lesen") + " " + dict.search("gehen") + " " + c.advance());	// 7 7 bb lesen GEHEN false
+		}
+
+		IntIntOpenHashDictionary ints = new IntIntOpenHashDictionary();
+		for (int i = -2; i <= 2; i++) {
+			ints.insertInt(i, 10 * i);
+		}
+		ints.insertInt(Integer.MIN_VALUE, 1);
+		long sum = 0;
+		IntIntOpenHashDictionary.IntIntCursor ic = ints.cursor();
+		while (ic.advance()) {
+			sum += ic.intKey() / 2 + ic.intValue();
+			ic.setIntValue(ic.intValue() + 1);
+		}
+		int[] values = {0};
+		ints.forEach((k, v) -> values[0] += v);
+		System.out.println(sum + " " + values[0] + " " + ints.searchInt(0));	// -1073741823 7 1
+	}
+
+	// 4 threads insert, search and remove their own keys and insert common keys at the same time
+	private static void testConcurrentDict(Dictionary<Integer, Integer> dict) {
+		System.out.println("test " + dict.getClass() + " with 4 threads");
+		int threads = 4;
+		int n = 40_000;
+		AtomicInteger errors = new AtomicInteger();
+		Thread[] workers = new Thread[threads];
+		for (int t = 0; t < threads; t++) {
+			int id = t;
+			workers[t] = new Thread(() -> {
+				for (int k = id; k < n; k += threads) {
+					dict.insert(k, k);
+					dict.insert(-1 - k % 1000, -1 - k % 1000);				// the same keys in all threads
+					int other = (7 * k) % n;								// a key of any thread
+					Integer v = dict.search(other);
+					if (v != null && v != other) {
+						errors.incrementAndGet();
+					}
+				}
+				for (int k = id; k < n; k += threads) {
+					if (k % 3 == 0 && !Integer.valueOf(k).equals(dict.remove(k))) {
+						errors.incrementAndGet();
+					}
+				}
+			});
+			workers[t].start();
+		}
+		try {
+			for (Thread worker : workers) {
+				worker.join();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return;
+		}
+		for (int k = -1000; k < n; k++) {
+			Integer expected = (k >= 0 && k % 3 == 0) ? null : k;
+			if (!Objects.equals(dict.search(k), expected)) {
+				errors.incrementAndGet();
+			}
+		}
+		int count = 0;
+		for (Dictionary.Entry<Integer, Integer> e : dict) {
+			count++;
+		}
+		System.out.println(dict.size() + " " + count + " " + errors.get());	// 27666 27666 0
+	}
+
+	// 4 threads insert and remove the same 32 keys at random, then all keys are inserted and
+	// removed again; a removed node that stays linked would let the inserts spin for ever
+	private static void testContendedDict(Dictionary<Integer, Integer> dict) {
+		System.out.println("test " + dict.getClass() + " with 4 threads on 32 keys");
+		Thread[] workers = new Thread[4];
+		for (int t = 0; t < workers.length; t++) {
+			workers[t] = new Thread(() -> {
+				ThreadLocalRandom rnd = ThreadLocalRandom.current();
+				for (int i = 0; i < 200_000; i++) {
+					int k = rnd.nextInt(32);
+					if (rnd.nextBoolean()) {
+						dict.insert(k, k);
+					} else {
+						dict.remove(k);
+					}
+				}
+			});
+			workers[t].start();
+		}
+		int[] result = new int[4];
+		Thread check = new Thread(() -> {
+			int previous = -1;
+			for (Dictionary.Entry<Integer, Integer> e : dict) {
+				if (e.getKey() <= previous || !e.getKey().equals(e.getValue())) {
+					result[0]++;												// not ascending or wrong value
+				}
+				previous = e.getKey();
+				result[1]++;
+			}
+			result[1] -= dict.size();
+			for (int k = 0; k < 32; k++) {
+				dict.insert(k, k);
+			}
+			result[2] = dict.size();
+			for (int k = 0; k < 32; k++) {
+				dict.remove(k);
+			}
+			result[3] = dict.size() + (dict.iterator().hasNext() ? 1 : 0);
+		});
+		check.setDaemon(true);
+		try {
+			for (Thread worker : workers) {
+				worker.join();
+			}
+			check.start();
+			check.join(10_000);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return;
+		}
+		System.out.println(check.isAlive() ? "timeout"
+				: result[0] + " " + result[1] + " " + result[2] + " " + result[3]);	// 0 0 32 0
+	}
+
+	private static void testDictionarySnapshot() throws IOException {
+		System.out.println("===== New Test Case ========================");
+		System.out.println("test " + DictionarySnapshot.class);
+		Path dir = Files.createTempDirectory("snapshot");
+		Path file = dir.resolve("dict.snp");
+		OpenHashDictionary<String, String> hash = new OpenHashDictionary<>();
+		for (String w : new String[] {"gehen", "lesen", "schreiben", "arbeiten", "fahren", "tanzen", "öffnen"}) {
+			hash.insert(w, w.toUpperCase());
+		}
+		hash.remove("lesen");											// a DELETED slot
+
+		// table layout: restored slot by slot into an empty OpenHashDictionary
+		System.out.println(DictionarySnapshot.write(hash, file));		// 6
+		OpenHashDictionary<String, String> hash2 = new OpenHashDictionary<>();
+		System.out.println(DictionarySnapshot.read(file, hash2) + " " + hash2.search("öffnen") + " " + hash2.search("lesen"));	// 6 ÖFFNEN null
+		hash2.insert("lesen", "read");
+		System.out.println(hash2.size() + " " + hash2.search("lesen"));	// 7 read
+
+		// unsorted entries into a SortedArrayDictionary (insertAll), then the sorted restore
+		SortedArrayDictionary<String, String> sorted = new SortedArrayDictionary<>();
+		DictionarySnapshot.read(file, sorted);
+		DictionarySnapshot.write(sorted, file);
+		SortedArrayDictionary<String, String> sorted2 = new SortedArrayDictionary<>();
+		System.out.println(DictionarySnapshot.read(file, sorted2));	// 6
+		for (Dictionary.Entry<String, String> e : sorted2) {
+			System.out.print(e.getKey() + " ");							// arbeiten fahren gehen schreiben tanzen öffnen
+		}
+		System.out.println();
+		Dictionary<String, String> linked = new LinkedHashDictionary<>(7);	// no fast path: insert
+		System.out.println(DictionarySnapshot.read(file, linked) + " " + linked.search("tanzen"));	// 6 TANZEN
+
+		// into a DurableDictionary: one checkpoint instead of a forced log record per entry
+		Path durableDir = dir.resolve("durable");
+		try (DurableDictionary durable = new DurableDictionary(new SortedArrayDictionary<>(), durableDir)) {
+			durable.insert("laufen", "run");
+			System.out.println(DictionarySnapshot.read(file, durable) + " " + durable.size()
+					+ " " + Files.size(durableDir.resolve("log")));				// 6 7 0
+		}
+		try (DurableDictionary durable = new DurableDictionary(new SortedArrayDictionary<>(), durableDir)) {
+			System.out.println(durable.size() + " " + durable.search("laufen") + " " + durable.search("gehen"));	// 7 run GEHEN
+		}
+
+		// a changed byte is detected before the dictionary is changed
+		byte[] bytes = Files.readAllBytes(file);
+		bytes[bytes.length / 2] ^= 1;
+		Files.write(file, bytes);
+		Dictionary<String, String> damaged = new SortedArrayDictionary<>();
+		try {
+			DictionarySnapshot.read(file, damaged);
+			System.out.println("no exception");
+		} catch (IOException e) {
+			System.out.println("IOException " + damaged.size());		// IOException 0
+		}
+		deleteDirectory(dir);
+	}
+
+	private static void testDurableDictionary() throws IOException {
+		System.out.println("===== New Test Case ========================");
+		System.out.println("test " + DurableDictionary.class + " log replay");
+		Path dir = Files.createTempDirectory("durable");
+		Path log = dir.resolve("log");
+		String big = "x".repeat(100_000);								// larger than the replay buffer
+		try (DurableDictionary dict = new DurableDictionary(new OpenHashDictionary<>(), dir)) {
+			for (int i = 0; i < 3000; i++) {
+				dict.insert("key" + i, "value" + i);
+			}
+			for (int i = 0; i < 3000; i += 2) {
+				dict.remove("key" + i);
+			}
+			dict.insert("big", big);
+			dict.insert("last", "L");
+		}
+		try (DurableDictionary dict = new DurableDictionary(new OpenHashDictionary<>(), dir)) {
+			System.out.println(dict.size() + " " + dict.search("key2999") + " " + dict.search("key2")
+					+ " " + big.equals(dict.search("big")) + " " + dict.search("last"));	// 1502 value2999 null true L
+		}
+
+		// a crash while the last record was written: it is cut off, all others are replayed
+		long size = Files.size(log);
+		try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+			channel.truncate(size - 3);
+		}
+		try (DurableDictionary dict = new DurableDictionary(new OpenHashDictionary<>(), dir)) {
+			System.out.println(dict.size() + " " + dict.search("last") + " " + big.equals(dict.search("big"))
+					+ " " + (Files.size(log) < size - 3));					// 1501 null true true
+			dict.insert("last", "again");
+		}
+		try (DurableDictionary dict = new DurableDictionary(new OpenHashDictionary<>(), dir)) {
+			System.out.println(dict.size() + " " + dict.search("last"));	// 1502 again
+		}
+		deleteDirectory(dir);
+	}
+
+	private static void testLsmTreeDictionary() throws IOException {
+		System.out.println("===== New Test Case ========================");
+		System.out.println("test " + LsmTreeDictionary.class);
+		Path dir = Files.createTempDirectory("lsm");
+		LsmTreeDictionary dict = new LsmTreeDictionary(dir, 16 << 10);	// many flushes and compactions
+		for (int i = 0; i < 20_000; i++) {
+			dict.insert(String.format("k%05d", i), "v" + i);
+		}
+		for (int i = 0; i < 20_000; i += 5) {
+			dict.remove(String.format("k%05d", i));						// tombstones
+		}
+		System.out.println(dict.size() + " " + dict.search("k00005") + " " + dict.search("k00006"));	// 16000 null v6
+		System.out.println(dict.remove("k00005") + " " + dict.size());	// null 16000
+
+		// a null value is an entry, a removed key is none
+		System.out.println(dict.insert("k00006", null) + " " + dict.size());	// v6 16000
+		System.out.println(dict.insert("k00006", "w6") + " " + dict.size());	// null 16000
+		dict.insert("k00006", null);
+		System.out.println(dict.insert("k00005", "w5") + " " + dict.size());	// null 16001
+		dict.remove("k00005");
+
+		// ascending order without removed keys; an open iterator survives close
+		Iterator<Dictionary.Entry<String, String>> it = dict.iterator();
+		Dictionary.Entry<String, String> first = it.next();
+		dict.close();
+		int count = 1;
+		boolean ascending = true;
+		boolean nullValue = first.getValue() == null;
+		for (String previous = first.getKey(); it.hasNext(); count++) {
+			Dictionary.Entry<String, String> e = it.next();
+			ascending &= previous.compareTo(e.getKey()) < 0;
+			nullValue |= e.getKey().equals("k00006") && e.getValue() == null;
+			previous = e.getKey();
+		}
+		System.out.println(count + " " + ascending + " " + nullValue);	// 16000 true true
+		int runs;
+		try (Stream<Path> files = Files.list(dir)) {
+			runs = (int) files.filter(f -> f.getFileName().toString().endsWith(".lsm")).count();
+		}
+		System.out.println(runs < 20);									// true (compacted)
+
+		// reopen with the size written by close, and with an unknown size (crash)
+		dict = new LsmTreeDictionary(dir, 16 << 10);
+		System.out.println(dict.size() + " " + dict.search("k19999") + " " + dict.search("k19995"));	// 16000 v19999 null
+		dict.close();
+		List<String> manifest = new ArrayList<>(Files.readAllLines(dir.resolve("MANIFEST")));
+		manifest.set(0, "size -1");
+		Files.write(dir.resolve("MANIFEST"), manifest);
+		dict = new LsmTreeDictionary(dir, 16 << 10);
+		System.out.println(dict.size());								// 16000
+		dict.close();
+		deleteDirectory(dir);
+	}
+
+	private static void deleteDirectory(Path dir) throws IOException {
+		try (Stream<Path> files = Files.walk(dir)) {
+			for (Path p : files.sorted(Comparator.reverseOrder()).toArray(Path[]::new)) {
+				Files.delete(p);
+			}
+		}
+	}
+
 	private static void testDict(Dictionary<String, String> dict) {
 		System.out.println("===== New Test Case ========================");
 		System.out.println("test " + dict.getClass());
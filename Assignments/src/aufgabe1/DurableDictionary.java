@@ -0,0 +1,418 @@
+package aufgabe1;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.zip.CRC32C;
+
+/**
+ * Dictionary&lt;String, String&gt; that survives a crash: every insert and remove is appended
+ * to a write-ahead log and forced to disk before it returns.
+ * <p>
+ * The directory holds two files: snapshot (a DictionarySnapshot of an earlier state) and
+ * log (the operations since that snapshot). On open the snapshot is read and the log is
+ * replayed on top of it; a torn record at the end of the log (crash while writing) is cut off.
+ * When the log grows larger than the snapshot (at least 1 MB), a checkpoint writes a new
+ * snapshot (to a temporary file that is moved over the old one) and truncates the log. A
+ * crash between the move and the truncation is harmless, because replaying insert and
+ * remove on a state that already contains them gives the same state.
+ * <p>
+ * Log record: type (1 byte: 1 = insert, 2 = remove), key length (varint), key (UTF-8),
+ * for insert value length + 1 (varint, 0 = null) and value (UTF-8), CRC-32C of the record (int).
+ * <p>
+ * Group commit: the records of all threads are collected in one buffer. A thread that waits
+ * for its record becomes the leader if no write is in progress: it writes the whole buffer
+ * and calls force once for all records in it. Records appended meanwhile are written by the
+ * next leader, so with n writing threads one fsync makes up to n operations durable.
+ * <p>
+ * All methods are thread-safe (the wrapped dictionary is guarded by this object), except
+ * the iterator. A search can see an insert whose record is not forced yet.
+ */
+public class DurableDictionary implements Dictionary<String, String>, Closeable {
+
+    private static final byte INSERT = 1;
+    private static final byte REMOVE = 2;
+    private static final long MIN_CHECKPOINT = 1 << 20; // log size in bytes that never triggers a checkpoint
+    private static final int BUFFER = 1 << 16;
+    // results of decoding a log record that is not complete or not valid
+    private static final int INCOMPLETE = -1;
+    private static final int DAMAGED = -2;
+
+    private final Dictionary<String, String> dict;
+    private final Path directory;
+    private final Path snapshotFile;
+    private final FileChannel log;
+    private final CRC32C crc = new CRC32C(); // used under the lock of this object
+    private long snapshotSize;
+
+    // Group commit state, guarded by commitLock
+    private final Object commitLock = new Object();
+    private ByteBuffer pending = ByteBuffer.allocate(BUFFER); // records not written yet
+    private ByteBuffer spare = ByteBuffer.allocate(BUFFER); // buffer for the next batch, null while written
+    private long appended; // number of appended records
+    private long durable; // number of records that are written and forced
+    private boolean writing; // a leader is writing a batch
+    private IOException failure; // the log cannot be written any more
+    private volatile long logSize; // bytes in the log file
+
+    /**
+     * Opens the dictionary in directory (created if necessary) and restores its last state.
+     * @param dict empty dictionary that holds the entries in memory.
+     * @param directory directory of snapshot and log.
+     * @throws IOException if a file cannot be read or written, or the snapshot is corrupt.
+     */
+    public DurableDictionary(Dictionary<String, String> dict, Path directory) throws IOException {
+        this.dict = dict;
+        this.directory = directory;
+        this.snapshotFile = directory.resolve("snapshot");
+        Files.createDirectories(directory);
+        if (Files.exists(snapshotFile)) {
+            DictionarySnapshot.read(snapshotFile, dict);
+            snapshotSize = Files.size(snapshotFile);
+        }
+        log = FileChannel.open(directory.resolve("log"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long valid = replay();
+        if (valid < log.size()) {
+            log.truncate(valid);
+            log.force(false);
+        }
+        log.position(valid);
+        logSize = valid;
+    }
+
+    // Applies the records of the log to dict and returns the length of its valid part. The log
+    // is read in chunks of BUFFER bytes (larger for a larger record), so its size is not limited.
+    private long replay() throws IOException {
+        long size = log.size();
+        ByteBuffer buf = ByteBuffer.allocate(BUFFER);
+        long valid = 0; // position behind the last applied record
+        while (valid < size) {
+            buf.clear();
+            int read = 0;
+            while (buf.hasRemaining() && read >= 0) {
+                read = log.read(buf, valid + buf.position());
+            }
+            byte[] bytes = buf.array();
+            int n = buf.position();
+            boolean last = valid + n >= size; // the chunk reaches the end of the log
+            int pos = 0;
+            int next = 0;
+            while (pos < n && (next = apply(bytes, pos, n, size - valid)) >= 0) {
+                pos = next;
+            }
+            valid += pos;
+            if (n == 0 || next == DAMAGED || next == INCOMPLETE && last) {
+                break; // torn or damaged record: the rest of the log is cut off
+            }
+            if (next == INCOMPLETE && pos == 0) {
+                // a record larger than the buffer
+                if (buf.capacity() >= Integer.MAX_VALUE / 2) {
+                    throw new IOException("Log record too large at position " + valid);
+                }
+                buf = ByteBuffer.allocate(2 * buf.capacity());
+            }
+        }
+        return valid;
+    }
+
+    // Decodes the record at pos in bytes[0, n) and applies it to dict. Returns the position
+    // behind it, INCOMPLETE if it continues behind n, or DAMAGED if it is no valid record
+    // (available is the number of bytes of the log from bytes[0] on).
+    private int apply(byte[] bytes, int pos, int n, long available) {
+        int type = bytes[pos];
+        if (type != INSERT && type != REMOVE) {
+            return DAMAGED;
+        }
+        int[] cursor = {pos + 1};
+        int keyLength = varint(bytes, n, cursor);
+        if (keyLength < 0) {
+            return keyLength;
+        }
+        if (keyLength > available - cursor[0]) {
+            return DAMAGED;
+        }
+        if (keyLength > n - cursor[0]) {
+            return INCOMPLETE;
+        }
+        int keyStart = cursor[0];
+        cursor[0] += keyLength;
+        int valueLength = -1;
+        int valueStart = 0;
+        if (type == INSERT) {
+            int v = varint(bytes, n, cursor);
+            if (v < 0) {
+                return v;
+            }
+            valueLength = v - 1;
+            if (valueLength > available - cursor[0]) {
+                return DAMAGED;
+            }
+            if (valueLength > n - cursor[0]) {
+                return INCOMPLETE;
+            }
+            valueStart = cursor[0];
+            cursor[0] += Math.max(0, valueLength);
+        }
+        int end = cursor[0];
+        if (end > available - 4) {
+            return DAMAGED;
+        }
+        if (end > n - 4) {
+            return INCOMPLETE;
+        }
+        crc.reset();
+        crc.update(bytes, pos, end - pos);
+        if ((int) crc.getValue() != ByteBuffer.wrap(bytes, end, 4).getInt()) {
+            return DAMAGED;
+        }
+        String key = new String(bytes, keyStart, keyLength, StandardCharsets.UTF_8);
+        if (type == INSERT) {
+            dict.insert(key, valueLength < 0 ? null : new String(bytes, valueStart, valueLength, StandardCharsets.UTF_8));
+        } else {
+            dict.remove(key);
+        }
+        return end + 4;
+    }
+
+    // Reads a varint at cursor[0] and advances it; returns INCOMPLETE if it continues behind n
+    // and DAMAGED if it is longer than 5 bytes or negative
+    private static int varint(byte[] bytes, int n, int[] cursor) {
+        int v = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            if (cursor[0] >= n) {
+                return INCOMPLETE;
+            }
+            int b = bytes[cursor[0]++];
+            v |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return (v < 0) ? DAMAGED : v;
+            }
+        }
+        return DAMAGED;
+    }
+
+    @Override
+    public String insert(String key, String value) {
+        long record;
+        String old;
+        synchronized (this) {
+            record = append(INSERT, key, value);
+            old = dict.insert(key, value);
+        }
+        commit(record);
+        checkpointIfNeeded();
+        return old;
+    }
+
+    @Override
+    public String remove(String key) {
+        long record;
+        String old;
+        synchronized (this) {
+            record = append(REMOVE, key, null);
+            old = dict.remove(key);
+        }
+        commit(record);
+        checkpointIfNeeded();
+        return old;
+    }
+
+    @Override
+    public synchronized String search(String key) {
+        return dict.search(key);
+    }
+
+    @Override
+    public synchronized int size() {
+        return dict.size();
+    }
+
+    // Not synchronized: the caller must synchronize on this dictionary while iterating
+    @Override
+    public Iterator<Entry<String, String>> iterator() {
+        return dict.iterator();
+    }
+
+    // Encodes a record into the pending buffer and returns its number (called under the lock of this object)
+    private long append(byte type, String key, String value) {
+        byte[] k = key.getBytes(StandardCharsets.UTF_8);
+        byte[] v = (value == null) ? null : value.getBytes(StandardCharsets.UTF_8);
+        int length = 1 + 5 + k.length + (type == INSERT ? 5 + (v == null ? 0 : v.length) : 0) + 4;
+        synchronized (commitLock) {
+            if (failure != null) {
+                throw new UncheckedIOException("Log is not writable", failure);
+            }
+            if (pending.remaining() < length) {
+                ByteBuffer bigger = ByteBuffer.allocate(Math.max(2 * pending.capacity(), pending.position() + length));
+                pending.flip();
+                pending = bigger.put(pending);
+            }
+            int start = pending.position();
+            pending.put(type);
+            putVarint(k.length);
+            pending.put(k);
+            if (type == INSERT) {
+                putVarint(v == null ? 0 : v.length + 1);
+                if (v != null) {
+                    pending.put(v);
+                }
+            }
+            crc.reset();
+            crc.update(pending.array(), start, pending.position() - start);
+            pending.putInt((int) crc.getValue());
+            return ++appended;
+        }
+    }
+
+    private void putVarint(int v) {
+        while ((v & ~0x7F) != 0) {
+            pending.put((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        pending.put((byte) v);
+    }
+
+    // Returns when record is durable; writes and forces the pending records if no other thread does
+    private void commit(long record) {
+        while (true) {
+            ByteBuffer batch;
+            long last;
+            synchronized (commitLock) {
+                while (writing && durable < record && failure == null) {
+                    try {
+                        commitLock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new UncheckedIOException(new InterruptedIOException("Interrupted before the log was forced"));
+                    }
+                }
+                if (durable >= record) {
+                    return;
+                }
+                if (failure != null) {
+                    throw new UncheckedIOException("Log is not writable", failure);
+                }
+                // become the leader for all records appended so far
+                writing = true;
+                batch = pending;
+                pending = spare;
+                spare = null;
+                last = appended;
+            }
+            IOException error = null;
+            batch.flip();
+            int bytes = batch.remaining();
+            try {
+                while (batch.hasRemaining()) {
+                    log.write(batch);
+                }
+                log.force(false);
+            } catch (IOException e) {
+                error = e;
+            }
+            synchronized (commitLock) {
+                spare = batch.clear();
+                if (error == null) {
+                    durable = last;
+                    logSize += bytes;
+                } else {
+                    failure = error;
+                }
+                writing = false;
+                commitLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Reads the entries of a snapshot (see DictionarySnapshot) and makes them durable with one
+     * checkpoint instead of a log record and a force per entry. A crash before the checkpoint
+     * is complete loses only the read entries.
+     * @param file snapshot file.
+     * @return number of read entries.
+     * @throws IOException if the snapshot cannot be read or the checkpoint cannot be written.
+     */
+    public synchronized int restore(Path file) throws IOException {
+        int count = DictionarySnapshot.read(file, dict);
+        checkpoint();
+        return count;
+    }
+
+    private void checkpointIfNeeded() {
+        if (logSize > Math.max(MIN_CHECKPOINT, snapshotSize)) {
+            try {
+                synchronized (this) {
+                    if (logSize > Math.max(MIN_CHECKPOINT, snapshotSize)) {
+                        checkpoint();
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Checkpoint failed", e);
+            }
+        }
+    }
+
+    /**
+     * Writes a snapshot of the current state and truncates the log.
+     * @throws IOException if the snapshot cannot be written.
+     */
+    public synchronized void checkpoint() throws IOException {
+        long last;
+        synchronized (commitLock) {
+            last = appended;
+        }
+        commit(last); // the log must not lose records if the snapshot fails
+        Path temp = directory.resolve("snapshot.tmp");
+        DictionarySnapshot.write(dict, temp);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        forceDirectory();
+        snapshotSize = Files.size(snapshotFile);
+        synchronized (commitLock) {
+            // no leader is writing: all records are durable and no new one is appended under this lock
+            log.truncate(0);
+            log.force(false);
+            logSize = 0;
+        }
+    }
+
+    // Makes the rename durable (not supported on every platform, e.g. Windows)
+    private void forceDirectory() {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // the rename is made durable by the file system later
+        }
+    }
+
+    /**
+     * Waits until all records are durable and closes the log.
+     * @throws IOException if the log cannot be written or closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        long last;
+        synchronized (commitLock) {
+            last = appended;
+        }
+        try {
+            commit(last);
+        } catch (UncheckedIOException e) {
+            log.close();
+            throw e.getCause();
+        }
+        log.close();
+    }
+}
@@ -0,0 +1,258 @@
+package aufgabe1;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
+
+/**
+ * Frozen, read-optimized sorted dictionary in Eytzinger (BFS) layout.
+ * <p>
+ * The sorted keys are stored like an implicit complete binary search tree:
+ * the root at index 1, the children of node k at 2k and 2k + 1. A search walks from the
+ * root to a leaf with one comparison per level and no early exit
+ * (k = 2k + (key > keys[k])), so there is no hard to predict branch; the result is
+ * reconstructed from the bits of k. The top levels of the tree lie next to each other in
+ * memory and stay in the cache, whereas a binary search over a sorted array jumps across
+ * the whole array on every search.
+ * <p>
+ * For String keys the characters behind the common prefix of all keys are additionally
+ * packed into a long per node (eight characters if they all fit into a byte, otherwise four),
+ * so most comparisons read a primitive array and do not dereference the key object at all.
+ * <p>
+ * The dictionary is built once from any other dictionary (O(n) if its iterator returns
+ * the keys in ascending order, as SortedArrayDictionary and BinaryTreeDictionary do,
+ * otherwise O(n log n)) and cannot be changed afterwards: insert and remove throw
+ * UnsupportedOperationException. The iterator returns the entries in ascending key order.
+ *
+ * @param <K> Key.
+ * @param <V> Value.
+ */
+public class EytzingerDictionary<K extends Comparable<? super K>, V> implements Dictionary<K, V> {
+
+    private final int size;
+    private final Object[] keys; // Eytzinger order, index 0 unused
+    private final Object[] values;
+    private final long[] prefixes; // packed characters behind the common prefix; null if not all keys are Strings
+    private String common; // common prefix of all keys (String keys only)
+    private int bits; // bits per packed character: 8 or 16
+
+    /**
+     * Builds the dictionary from the entries of source.
+     * @param source dictionary to copy; later changes of source are not reflected.
+     */
+    @SuppressWarnings("unchecked")
+    public EytzingerDictionary(Dictionary<K, ? extends V> source) {
+        Entry<K, V>[] sorted = new Entry[source.size()];
+        int n = 0;
+        boolean ascending = true;
+        boolean strings = true;
+        for (Entry<K, ? extends V> e : source) {
+            if (n == sorted.length) {
+                sorted = Arrays.copyOf(sorted, Math.max(16, 2 * n));
+            }
+            if (n > 0 && sorted[n - 1].getKey().compareTo(e.getKey()) >= 0) {
+                ascending = false;
+            }
+            strings &= e.getKey() instanceof String;
+            sorted[n++] = new Entry<>(e.getKey(), e.getValue());
+        }
+        if (!ascending) {
+            Arrays.sort(sorted, 0, n, (a, b) -> a.getKey().compareTo(b.getKey()));
+        }
+
+        size = n;
+        keys = new Object[n + 1];
+        values = new Object[n + 1];
+        prefixes = (strings && n > 0) ? new long[n + 1] : null;
+        if (prefixes != null) {
+            // the first and the last key have the shortest common prefix of all keys
+            String first = (String) sorted[0].getKey();
+            String last = (String) sorted[n - 1].getKey();
+            int lcp = 0;
+            while (lcp < Math.min(first.length(), last.length()) && first.charAt(lcp) == last.charAt(lcp)) {
+                lcp++;
+            }
+            common = first.substring(0, lcp);
+            bits = 8;
+            for (int i = 0; i < n && bits == 8; i++) {
+                if (prefix((String) sorted[i].getKey()) == -1) {
+                    bits = 16;
+                }
+            }
+        }
+        fill(sorted, 0, 1);
+    }
+
+    // In-order traversal of the implicit tree below node k, which takes the entries
+    // from sorted[i] on; returns the index of the next unused entry.
+    private int fill(Entry<K, V>[] sorted, int i, int k) {
+        if (k <= size) {
+            i = fill(sorted, i, 2 * k);
+            keys[k] = sorted[i].getKey();
+            values[k] = sorted[i].getValue();
+            if (prefixes != null) {
+                prefixes[k] = prefix((String) keys[k]);
+            }
+            i++;
+            i = fill(sorted, i, 2 * k + 1);
+        }
+        return i;
+    }
+
+    // The 64 / bits characters of s behind the common prefix (missing ones as 0), or -1 if one
+    // of them does not fit into bits. Compares (unsigned) like the strings, unless equal.
+    private long prefix(String s) {
+        long p = 0;
+        int end = common.length() + 64 / bits;
+        for (int i = common.length(); i < end; i++) {
+            int c = (i < s.length()) ? s.charAt(i) : 0;
+            if (c >>> bits != 0) {
+                return -1;
+            }
+            p = (p << bits) | c;
+        }
+        return p;
+    }
+
+    // Returns the index of the node with key or 0
+    @SuppressWarnings("unchecked")
+    private int find(K key) {
+        int k = 1;
+        long p = -1;
+        if (prefixes != null) {
+            String s = (String) key;
+            if (!s.startsWith(common)) {
+                return 0; // every key starts with common
+            }
+            p = prefix(s); // -1 if it contains a character that no key has at this position
+        }
+        if (p != -1) {
+            while (k <= size) {
+                long q = prefixes[k];
+                int cmp = (p != q) ? Long.compareUnsigned(p, q) : key.compareTo((K) keys[k]);
+                k = 2 * k + (cmp > 0 ? 1 : 0);
+            }
+        } else {
+            while (k <= size) {
+                k = 2 * k + (key.compareTo((K) keys[k]) > 0 ? 1 : 0);
+            }
+        }
+        // k went right (bit 1) after every node smaller than key; the last node where it went
+        // left is the smallest key >= key: drop the trailing ones and that left step
+        k >>>= Integer.numberOfTrailingZeros(~k) + 1;
+        return (k != 0 && key.compareTo((K) keys[k]) == 0) ? k : 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V search(K key) {
+        int k = find(key);
+        return k != 0 ? (V) values[k] : null;
+    }
+
+    @Override
+    public V insert(K key, V value) {
+        throw new UnsupportedOperationException("EytzingerDictionary is read-only");
+    }
+
+    @Override
+    public V remove(K key) {
+        throw new UnsupportedOperationException("EytzingerDictionary is read-only");
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    // Leftmost node in the subtree of k
+    private int leftmost(int k) {
+        while (2 * k <= size) {
+            k = 2 * k;
+        }
+        return k;
+    }
+
+    /**
+     * Returns the entries in ascending key order (in-order traversal of the implicit tree).
+     */
+    @Override
+    public Iterator<Entry<K, V>> iterator() {
+        return new Iterator<>() {
+            int k = (size > 0) ? leftmost(1) : 0; // next node, 0 = end
+
+            @Override
+            public boolean hasNext() {
+                return k != 0;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public Entry<K, V> next() {
+                if (k == 0) throw new NoSuchElementException();
+                Entry<K, V> entry = new Entry<>((K) keys[k], (V) values[k]);
+                if (2 * k + 1 <= size) {
+                    k = leftmost(2 * k + 1);
+                } else {
+                    // up while k is a right child, then once more to the parent
+                    k >>>= Integer.numberOfTrailingZeros(~k) + 1;
+                }
+                return entry;
+            }
+        };
+    }
+
+    // In-order cursor over the implicit tree, like the iterator
+    @Override
+    public Cursor<K, V> cursor() {
+        return new Cursor<>() {
+            int k = -1; // current node, -1 = before the first, 0 = end
+
+            @Override
+            public boolean advance() {
+                if (k == -1) {
+                    k = (size > 0) ? leftmost(1) : 0;
+                } else if (k != 0) {
+                    k = (2 * k + 1 <= size) ? leftmost(2 * k + 1) : k >>> (Integer.numberOfTrailingZeros(~k) + 1);
+                }
+                return k != 0;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public K key() {
+                return (K) keys[k];
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public V value() {
+                return (V) values[k];
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public V setValue(V value) {
+                V oldValue = (V) values[k];
+                values[k] = value;
+                return oldValue;
+            }
+        };
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        forEach(1, action);
+    }
+
+    // In-order traversal of the subtree of node k
+    @SuppressWarnings("unchecked")
+    private void forEach(int k, BiConsumer<? super K, ? super V> action) {
+        if (k <= size) {
+            forEach(2 * k, action);
+            action.accept((K) keys[k], (V) values[k]);
+            forEach(2 * k + 1, action);
+        }
+    }
+}
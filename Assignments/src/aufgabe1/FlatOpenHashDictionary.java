@@ -0,0 +1,259 @@
+package aufgabe1;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
+
+/**
+ * Open addressing hash table with quadratic probing, stored as parallel arrays.
+ * <p>
+ * Same semantics as {@link OpenHashDictionary} (a {@link ProbingStrategy}, by default
+ * alternating quadratic probing over primes of the form 4k + 3, load factor 0.66),
+ * but instead of an Entry object per slot
+ * the table consists of the arrays keys, values, hashes and state.
+ * Insert allocates nothing (except when the table grows), a probe first looks at the
+ * state byte and the cached hash code and only calls equals if the hash codes match,
+ * and resizing reinserts from the arrays without calling hashCode again.
+ *
+ * @param <K> Key.
+ * @param <V> Value.
+ */
+public class FlatOpenHashDictionary<K, V> implements Dictionary<K, V> {
+
+    // Slot states: FREE = empty, FULL = contains a value, DELETED = was used but now removed
+    private static final byte FREE = 0;
+    private static final byte FULL = 1;
+    private static final byte DELETED = 2;
+
+    private static final double LOAD_FACTOR = 0.66;
+    private static final int DEFAULT_CAPACITY = 7; // 7 = 4*1 + 3
+
+    private final ProbingStrategy probing;
+    private Object[] keys;
+    private Object[] values;
+    private int[] hashes; // cached hashCode of the key
+    private byte[] state;
+    private int size; // Number of FULL slots
+    private int deleted; // Number of DELETED slots
+
+    public FlatOpenHashDictionary() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a dictionary for about the given number of entries without resizing.
+     * @param expectedSize expected number of entries.
+     */
+    public FlatOpenHashDictionary(int expectedSize) {
+        this(expectedSize, ProbingStrategy.QUADRATIC);
+    }
+
+    /**
+     * Creates a dictionary for about the given number of entries with the given probe sequence.
+     * @param expectedSize expected number of entries.
+     * @param probing probe sequence.
+     */
+    public FlatOpenHashDictionary(int expectedSize, ProbingStrategy probing) {
+        this.probing = probing;
+        int capacity = Math.max(DEFAULT_CAPACITY, (int) (expectedSize / LOAD_FACTOR) + 1);
+        createTable(probing.capacity(capacity));
+    }
+
+    private void createTable(int capacity) {
+        keys = new Object[capacity];
+        values = new Object[capacity];
+        hashes = new int[capacity];
+        state = new byte[capacity];
+        size = 0;
+        deleted = 0;
+    }
+
+    // Grows the table (or only removes the DELETED slots) and reinserts using the cached hashes
+    private void resize() {
+        int newCapacity = (double) size / keys.length > LOAD_FACTOR / 2 ? keys.length * 2 : keys.length;
+        Object[] oldKeys = keys;
+        Object[] oldValues = values;
+        int[] oldHashes = hashes;
+        byte[] oldState = state;
+        createTable(probing.capacity(newCapacity));
+
+        int capacity = keys.length;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldState[j] != FULL) {
+                continue;
+            }
+            int h = oldHashes[j];
+            int home = probing.home(h, capacity);
+            int index = home;
+            for (int i = 1; state[index] != FREE; i++) {
+                index = probing.next(home, index, i, capacity);
+            }
+            keys[index] = oldKeys[j];
+            values[index] = oldValues[j];
+            hashes[index] = h;
+            state[index] = FULL;
+            size++;
+        }
+    }
+
+    // Returns the slot of key or -1
+    private int find(Object key, int h) {
+        int capacity = keys.length;
+        int home = probing.home(h, capacity);
+        int index = home;
+        for (int i = 1; i <= capacity; i++) {
+            byte s = state[index];
+            if (s == FREE) {
+                return -1;
+            }
+            if (s == FULL && hashes[index] == h && key.equals(keys[index])) {
+                return index;
+            }
+            index = probing.next(home, index, i, capacity);
+        }
+        return -1;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V insert(K key, V value) {
+        if ((double) (size + deleted + 1) / keys.length > LOAD_FACTOR) {
+            resize();
+        }
+        int h = key.hashCode();
+        int capacity = keys.length;
+        int home = probing.home(h, capacity);
+        int index = home;
+        int firstDeleted = -1;
+
+        // the load factor guarantees a FREE slot within capacity probes
+        for (int i = 1; ; i++) {
+            byte s = state[index];
+            if (s == FREE) {
+                break;
+            }
+            if (s == DELETED) {
+                if (firstDeleted == -1) {
+                    firstDeleted = index;
+                }
+            } else if (hashes[index] == h && key.equals(keys[index])) {
+                V oldValue = (V) values[index];
+                values[index] = value;
+                return oldValue;
+            }
+            index = probing.next(home, index, i, capacity);
+        }
+
+        // key not contained: use the first DELETED slot or else the FREE slot that ended the probe
+        if (firstDeleted != -1) {
+            index = firstDeleted;
+            deleted--;
+        }
+        keys[index] = key;
+        values[index] = value;
+        hashes[index] = h;
+        state[index] = FULL;
+        size++;
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V search(K key) {
+        int index = find(key, key.hashCode());
+        return index >= 0 ? (V) values[index] : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(K key) {
+        int index = find(key, key.hashCode());
+        if (index < 0) {
+            return null;
+        }
+        V oldValue = (V) values[index];
+        keys[index] = null;
+        values[index] = null;
+        state[index] = DELETED;
+        size--;
+        deleted++;
+        return oldValue;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<Entry<K, V>> iterator() {
+        return new Iterator<>() {
+            int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                while (index < state.length && state[index] != FULL) {
+                    index++;
+                }
+                return index < state.length;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public Entry<K, V> next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                Entry<K, V> entry = new Entry<>((K) keys[index], (V) values[index]);
+                index++;
+                return entry;
+            }
+        };
+    }
+
+    // Cursor over the FULL slots
+    @Override
+    public Cursor<K, V> cursor() {
+        return new Cursor<>() {
+            int index = -1;
+
+            @Override
+            public boolean advance() {
+                while (++index < keys.length) {
+                    if (state[index] == FULL) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public K key() {
+                return (K) keys[index];
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public V value() {
+                return (V) values[index];
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public V setValue(V value) {
+                V oldValue = (V) values[index];
+                values[index] = value;
+                return oldValue;
+            }
+        };
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (state[i] == FULL) {
+                action.accept((K) keys[i], (V) values[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package aufgabe1;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
+
+/**
+ * Open addressing hash table with int keys and int values, without boxing.
+ * <p>
+ * Same semantics as {@link FlatOpenHashDictionary}&lt;Integer, Integer&gt; (alternating quadratic
+ * probing over primes of the form 4k + 3 with Integer.hashCode, load factor 0.66, DELETED
+ * slots are reused by insert and dropped by resize), but the table consists of an int array
+ * of keys and an int array of values. The state of a slot is encoded in its key: FREE_KEY
+ * (0) marks a free slot, so a new table needs no initialization, and DELETED_KEY
+ * (Integer.MIN_VALUE) a removed one. A probe is a single int compare. The two keys 0 and
+ * Integer.MIN_VALUE themselves are stored outside the table. insertInt, searchInt and removeInt
+ * allocate nothing (except when the table grows).
+ * <p>
+ * An int cannot be null, so searchInt and removeInt return noValue (0 by default) for a key
+ * that is not contained; containsKey tells the two cases apart. For code written against
+ * Dictionary the class also implements Dictionary&lt;Integer, Integer&gt; (these methods box,
+ * and null values are not supported). The int methods have their own names, like in
+ * IntObjOpenHashDictionary.
+ */
+public class IntIntOpenHashDictionary implements Dictionary<Integer, Integer> {
+
+    private static final int FREE_KEY = 0;
+    private static final int DELETED_KEY = Integer.MIN_VALUE;
+    private static final double LOAD_FACTOR = 0.66;
+    private static final int DEFAULT_CAPACITY = 7; // 7 = 4*1 + 3
+    private static final ProbingStrategy PROBING = ProbingStrategy.QUADRATIC;
+
+    private final int noValue;
+    private int[] keys;
+    private int[] values;
+    private int used; // number of keys in the table
+    private int deleted; // number of DELETED slots
+    // the keys FREE_KEY (index 0) and DELETED_KEY (index 1)
+    private final boolean[] hasSpecial = new boolean[2];
+    private final int[] specialValues = new int[2];
+
+    public IntIntOpenHashDictionary() {
+        this(DEFAULT_CAPACITY, 0);
+    }
+
+    /**
+     * Creates a dictionary for about the given number of entries without resizing.
+     * @param expectedSize expected number of entries.
+     */
+    public IntIntOpenHashDictionary(int expectedSize) {
+        this(expectedSize, 0);
+    }
+
+    /**
+     * Creates a dictionary for about the given number of entries without resizing.
+     * @param expectedSize expected number of entries.
+     * @param noValue value returned by searchInt and removeInt for a key that is not contained.
+     */
+    public IntIntOpenHashDictionary(int expectedSize, int noValue) {
+        this.noValue = noValue;
+        int capacity = Math.max(DEFAULT_CAPACITY, (int) (expectedSize / LOAD_FACTOR) + 1);
+        createTable(PROBING.capacity(capacity));
+    }
+
+    private void createTable(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        used = 0;
+        deleted = 0;
+    }
+
+    private static boolean isSpecial(int key) {
+        return key == FREE_KEY || key == DELETED_KEY;
+    }
+
+    // Grows the table (or only removes the DELETED slots) and reinserts the keys
+    private void resize() {
+        int newCapacity = (double) used / keys.length > LOAD_FACTOR / 2 ? keys.length * 2 : keys.length;
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        createTable(PROBING.capacity(newCapacity));
+
+        int capacity = keys.length;
+        for (int j = 0; j < oldKeys.length; j++) {
+            int key = oldKeys[j];
+            if (isSpecial(key)) {
+                continue;
+            }
+            int home = PROBING.home(key, capacity);
+            int index = home;
+            for (int i = 1; keys[index] != FREE_KEY; i++) {
+                index = PROBING.next(home, index, i, capacity);
+            }
+            keys[index] = key;
+            values[index] = oldValues[j];
+            used++;
+        }
+    }
+
+    // Returns the slot of key (not special) or -1
+    private int find(int key) {
+        int capacity = keys.length;
+        int home = PROBING.home(key, capacity);
+        int index = home;
+        for (int i = 1; i <= capacity; i++) {
+            int k = keys[index];
+            if (k == key) {
+                return index;
+            }
+            if (k == FREE_KEY) {
+                return -1;
+            }
+            index = PROBING.next(home, index, i, capacity);
+        }
+        return -1;
+    }
+
+    /**
+     * Inserts or replaces the value of key.
+     * @param key key.
+     * @param value value.
+     * @return the old value, or noValue if key was not contained.
+     */
+    public int insertInt(int key, int value) {
+        if (isSpecial(key)) {
+            int s = key == FREE_KEY ? 0 : 1;
+            int oldValue = hasSpecial[s] ? specialValues[s] : noValue;
+            hasSpecial[s] = true;
+            specialValues[s] = value;
+            return oldValue;
+        }
+        if ((double) (used + deleted + 1) / keys.length > LOAD_FACTOR) {
+            resize();
+        }
+        int capacity = keys.length;
+        int home = PROBING.home(key, capacity);
+        int index = home;
+        int firstDeleted = -1;
+
+        // the load factor guarantees a FREE slot within capacity probes
+        for (int i = 1; ; i++) {
+            int k = keys[index];
+            if (k == key) {
+                int oldValue = values[index];
+                values[index] = value;
+                return oldValue;
+            }
+            if (k == FREE_KEY) {
+                break;
+            }
+            if (k == DELETED_KEY && firstDeleted == -1) {
+                firstDeleted = index;
+            }
+            index = PROBING.next(home, index, i, capacity);
+        }
+
+        // key not contained: use the first DELETED slot or else the FREE slot that ended the probe
+        if (firstDeleted != -1) {
+            index = firstDeleted;
+            deleted--;
+        }
+        keys[index] = key;
+        values[index] = value;
+        used++;
+        return noValue;
+    }
+
+    /**
+     * @param key key.
+     * @return the value of key, or noValue if key is not contained.
+     */
+    public int searchInt(int key) {
+        if (isSpecial(key)) {
+            int s = key == FREE_KEY ? 0 : 1;
+            return hasSpecial[s] ? specialValues[s] : noValue;
+        }
+        int index = find(key);
+        return index >= 0 ? values[index] : noValue;
+    }
+
+    public boolean containsKey(int key) {
+        if (isSpecial(key)) {
+            return hasSpecial[key == FREE_KEY ? 0 : 1];
+        }
+        return find(key) >= 0;
+    }
+
+    /**
+     * @param key key.
+     * @return the removed value, or noValue if key was not contained.
+     */
+    public int removeInt(int key) {
+        if (isSpecial(key)) {
+            int s = key == FREE_KEY ? 0 : 1;
+            int oldValue = hasSpecial[s] ? specialValues[s] : noValue;
+            hasSpecial[s] = false;
+            return oldValue;
+        }
+        int index = find(key);
+        if (index < 0) {
+            return noValue;
+        }
+        keys[index] = DELETED_KEY;
+        used--;
+        deleted++;
+        return values[index];
+    }
+
+    @Override
+    public Integer insert(Integer key, Integer value) {
+        int size = size();
+        int oldValue = insertInt(key, value);
+        return size() == size ? Integer.valueOf(oldValue) : null;
+    }
+
+    @Override
+    public Integer search(Integer key) {
+        int value = searchInt(key);
+        return (value != noValue || containsKey((int) key)) ? Integer.valueOf(value) : null;
+    }
+
+    @Override
+    public Integer remove(Integer key) {
+        int size = size();
+        int oldValue = removeInt(key);
+        return size() != size ? Integer.valueOf(oldValue) : null;
+    }
+
+    @Override
+    public int size() {
+        return used + (hasSpecial[0] ? 1 : 0) + (hasSpecial[1] ? 1 : 0);
+    }
+
+    @Override
+    public Iterator<Entry<Integer, Integer>> iterator() {
+        return new Iterator<>() {
+            int index = 0; // slots, then the two special keys
+
+            @Override
+            public boolean hasNext() {
+                while (index < keys.length && isSpecial(keys[index])
+                        || index >= keys.length && index < keys.length + 2 && !hasSpecial[index - keys.length]) {
+                    index++;
+                }
+                return index < keys.length + 2;
+            }
+
+            @Override
+            public Entry<Integer, Integer> next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                Entry<Integer, Integer> entry = index < keys.length
+                        ? new Entry<>(keys[index], values[index])
+                        : new Entry<>(index == keys.length ? FREE_KEY : DELETED_KEY, specialValues[index - keys.length]);
+                index++;
+                return entry;
+            }
+        };
+    }
+
+    /**
+     * Returns a cursor over the slots, then the two special keys. intKey and intValue read the
+     * entry without boxing.
+     */
+    @Override
+    public IntIntCursor cursor() {
+        return new IntIntCursor();
+    }
+
+    /**
+     * Cursor with unboxed accessors.
+     */
+    public class IntIntCursor implements Cursor<Integer, Integer> {
+        private int index = -1;
+
+        @Override
+        public boolean advance() {
+            if (index < keys.length + 2) {
+                index++;
+            }
+            while (index < keys.length && isSpecial(keys[index])
+                    || index >= keys.length && index < keys.length + 2 && !hasSpecial[index - keys.length]) {
+                index++;
+            }
+            return index < keys.length + 2;
+        }
+
+        public int intKey() {
+            return index < keys.length ? keys[index] : (index == keys.length ? FREE_KEY : DELETED_KEY);
+        }
+
+        public int intValue() {
+            return index < keys.length ? values[index] : specialValues[index - keys.length];
+        }
+
+        /**
+         * Replaces the value of the current entry.
+         * @return the old value.
+         */
+        public int setIntValue(int value) {
+            int oldValue = intValue();
+            if (index < keys.length) {
+                values[index] = value;
+            } else {
+                specialValues[index - keys.length] = value;
+            }
+            return oldValue;
+        }
+
+        @Override
+        public Integer key() {
+            return intKey();
+        }
+
+        @Override
+        public Integer value() {
+            return intValue();
+        }
+
+        @Override
+        public Integer setValue(Integer value) {
+            return setIntValue(value);
+        }
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super Integer, ? super Integer> action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (!isSpecial(keys[i])) {
+                action.accept(keys[i], values[i]);
+            }
+        }
+        if (hasSpecial[0]) {
+            action.accept(FREE_KEY, specialValues[0]);
+        }
+        if (hasSpecial[1]) {
+            action.accept(DELETED_KEY, specialValues[1]);
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package aufgabe1;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
+
+/**
+ * Open addressing hash table with int keys and object values, without boxing of the keys.
+ * <p>
+ * Same table as {@link IntIntOpenHashDictionary} (quadratic probing like
+ * FlatOpenHashDictionary&lt;Integer, V&gt;, the keys 0 and Integer.MIN_VALUE mark FREE and
+ * DELETED slots and are stored outside the table), but the values are an Object array.
+ * insertInt, searchInt and removeInt allocate nothing (except when the table grows). The class
+ * also implements Dictionary&lt;Integer, V&gt; for code written against the interface; those
+ * methods unbox the key. The int methods have their own names, because for V = Integer a call
+ * like insert(1, 2) would match both insert(int, V) and insert(Integer, V).
+ *
+ * @param <V> Value.
+ */
+public class IntObjOpenHashDictionary<V> implements Dictionary<Integer, V> {
+
+    private static final int FREE_KEY = 0;
+    private static final int DELETED_KEY = Integer.MIN_VALUE;
+    private static final double LOAD_FACTOR = 0.66;
+    private static final int DEFAULT_CAPACITY = 7; // 7 = 4*1 + 3
+    private static final ProbingStrategy PROBING = ProbingStrategy.QUADRATIC;
+
+    private int[] keys;
+    private Object[] values;
+    private int used; // number of keys in the table
+    private int deleted; // number of DELETED slots
+    // the keys FREE_KEY (index 0) and DELETED_KEY (index 1)
+    private final boolean[] hasSpecial = new boolean[2];
+    private final Object[] specialValues = new Object[2];
+
+    public IntObjOpenHashDictionary() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a dictionary for about the given number of entries without resizing.
+     * @param expectedSize expected number of entries.
+     */
+    public IntObjOpenHashDictionary(int expectedSize) {
+        int capacity = Math.max(DEFAULT_CAPACITY, (int) (expectedSize / LOAD_FACTOR) + 1);
+        createTable(PROBING.capacity(capacity));
+    }
+
+    private void createTable(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        used = 0;
+        deleted = 0;
+    }
+
+    private static boolean isSpecial(int key) {
+        return key == FREE_KEY || key == DELETED_KEY;
+    }
+
+    // Grows the table (or only removes the DELETED slots) and reinserts the keys
+    private void resize() {
+        int newCapacity = (double) used / keys.length > LOAD_FACTOR / 2 ? keys.length * 2 : keys.length;
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        createTable(PROBING.capacity(newCapacity));
+
+        int capacity = keys.length;
+        for (int j = 0; j < oldKeys.length; j++) {
+            int key = oldKeys[j];
+            if (isSpecial(key)) {
+                continue;
+            }
+            int home = PROBING.home(key, capacity);
+            int index = home;
+            for (int i = 1; keys[index] != FREE_KEY; i++) {
+                index = PROBING.next(home, index, i, capacity);
+            }
+            keys[index] = key;
+            values[index] = oldValues[j];
+            used++;
+        }
+    }
+
+    // Returns the slot of key (not special) or -1
+    private int find(int key) {
+        int capacity = keys.length;
+        int home = PROBING.home(key, capacity);
+        int index = home;
+        for (int i = 1; i <= capacity; i++) {
+            int k = keys[index];
+            if (k == key) {
+                return index;
+            }
+            if (k == FREE_KEY) {
+                return -1;
+            }
+            index = PROBING.next(home, index, i, capacity);
+        }
+        return -1;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V insertInt(int key, V value) {
+        if (isSpecial(key)) {
+            int s = key == FREE_KEY ? 0 : 1;
+            V oldValue = (V) specialValues[s];
+            hasSpecial[s] = true;
+            specialValues[s] = value;
+            return oldValue;
+        }
+        if ((double) (used + deleted + 1) / keys.length > LOAD_FACTOR) {
+            resize();
+        }
+        int capacity = keys.length;
+        int home = PROBING.home(key, capacity);
+        int index = home;
+        int firstDeleted = -1;
+
+        // the load factor guarantees a FREE slot within capacity probes
+        for (int i = 1; ; i++) {
+            int k = keys[index];
+            if (k == key) {
+                V oldValue = (V) values[index];
+                values[index] = value;
+                return oldValue;
+            }
+            if (k == FREE_KEY) {
+                break;
+            }
+            if (k == DELETED_KEY && firstDeleted == -1) {
+                firstDeleted = index;
+            }
+            index = PROBING.next(home, index, i, capacity);
+        }
+
+        // key not contained: use the first DELETED slot or else the FREE slot that ended the probe
+        if (firstDeleted != -1) {
+            index = firstDeleted;
+            deleted--;
+        }
+        keys[index] = key;
+        values[index] = value;
+        used++;
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V searchInt(int key) {
+        if (isSpecial(key)) {
+            return (V) specialValues[key == FREE_KEY ? 0 : 1];
+        }
+        int index = find(key);
+        return index >= 0 ? (V) values[index] : null;
+    }
+
+    public boolean containsKey(int key) {
+        if (isSpecial(key)) {
+            return hasSpecial[key == FREE_KEY ? 0 : 1];
+        }
+        return find(key) >= 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V removeInt(int key) {
+        if (isSpecial(key)) {
+            int s = key == FREE_KEY ? 0 : 1;
+            V oldValue = (V) specialValues[s];
+            hasSpecial[s] = false;
+            specialValues[s] = null;
+            return oldValue;
+        }
+        int index = find(key);
+        if (index < 0) {
+            return null;
+        }
+        V oldValue = (V) values[index];
+        keys[index] = DELETED_KEY;
+        values[index] = null;
+        used--;
+        deleted++;
+        return oldValue;
+    }
+
+    @Override
+    public V insert(Integer key, V value) {
+        return insertInt(key, value);
+    }
+
+    @Override
+    public V search(Integer key) {
+        return searchInt(key);
+    }
+
+    @Override
+    public V remove(Integer key) {
+        return removeInt(key);
+    }
+
+    @Override
+    public int size() {
+        return used + (hasSpecial[0] ? 1 : 0) + (hasSpecial[1] ? 1 : 0);
+    }
+
+    @Override
+    public Iterator<Entry<Integer, V>> iterator() {
+        return new Iterator<>() {
+            int index = 0; // slots, then the two special keys
+
+            @Override
+            public boolean hasNext() {
+                while (index < keys.length && isSpecial(keys[index])
+                        || index >= keys.length && index < keys.length + 2 && !hasSpecial[index - keys.length]) {
+                    index++;
+                }
+                return index < keys.length + 2;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public Entry<Integer, V> next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                Entry<Integer, V> entry = index < keys.length
+                        ? new Entry<>(keys[index], (V) values[index])
+                        : new Entry<>(index == keys.length ? FREE_KEY : DELETED_KEY, (V) specialValues[index - keys.length]);
+                index++;
+                return entry;
+            }
+        };
+    }
+
+    /**
+     * Returns a cursor over the slots, then the two special keys. intKey reads the key
+     * without boxing.
+     */
+    @Override
+    public IntObjCursor cursor() {
+        return new IntObjCursor();
+    }
+
+    /**
+     * Cursor with an unboxed key accessor.
+     */
+    public class IntObjCursor implements Cursor<Integer, V> {
+        private int index = -1;
+
+        @Override
+        public boolean advance() {
+            if (index < keys.length + 2) {
+                index++;
+            }
+            while (index < keys.length && isSpecial(keys[index])
+                    || index >= keys.length && index < keys.length + 2 && !hasSpecial[index - keys.length]) {
+                index++;
+            }
+            return index < keys.length + 2;
+        }
+
+        public int intKey() {
+            return index < keys.length ? keys[index] : (index == keys.length ? FREE_KEY : DELETED_KEY);
+        }
+
+        @Override
+        public Integer key() {
+            return intKey();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V value() {
+            return (V) (index < keys.length ? values[index] : specialValues[index - keys.length]);
+        }
+
+        @Override
+        public V setValue(V value) {
+            V oldValue = value();
+            if (index < keys.length) {
+                values[index] = value;
+            } else {
+                specialValues[index - keys.length] = value;
+            }
+            return oldValue;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super Integer, ? super V> action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (!isSpecial(keys[i])) {
+                action.accept(keys[i], (V) values[i]);
+            }
+        }
+        if (hasSpecial[0]) {
+            action.accept(FREE_KEY, (V) specialValues[0]);
+        }
+        if (hasSpecial[1]) {
+            action.accept(DELETED_KEY, (V) specialValues[1]);
+        }
+    }
+}
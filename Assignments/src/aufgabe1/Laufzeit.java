@@ -1,18 +1,25 @@
 package aufgabe1;
 
 import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.util.*;
 
+// Quick single-run comparison of the dictionaries.
+// For warmed-up measurements over several sizes and workloads use DictionaryBenchmark.
 public class Laufzeit {
 
     // File object representing the dictionary file
     static File file = null;
 
-    public static void main(String[] args) throws FileNotFoundException {
+    // Word pairs of the file, read only once and shared by all tests
+    static List<String> germanWords = new ArrayList<>();
+    static List<String> englishWords = new ArrayList<>();
+
+    public static void main(String[] args) throws IOException {
 
         // Specify the file path containing dictionary words
         file = new File("src/aufgabe1/dtengl.txt");
+        readFile();
 
         // Test the SortedArrayDictionary implementation
         System.out.println("Test SortedArrayDictionary:");
@@ -36,6 +43,25 @@ public class Laufzeit {
         System.out.println("Test BinaryTreeDictionary:");
         Dictionary<String, String> binaryTreeDictionary = new BinaryTreeDictionary<>();
         testDict(binaryTreeDictionary);
+
+        // The same with a Bloom filter in front, that rejects most english words (misses)
+        System.out.println("Test BloomFilterDictionary(OpenHashDictionary):");
+        BloomFilterDictionary<String, String> bloomOpenDictionary = new BloomFilterDictionary<>(new OpenHashDictionary<>());
+        testDict(bloomOpenDictionary);
+        System.out.println(bloomOpenDictionary);
+
+        System.out.println("Test BloomFilterDictionary(BinaryTreeDictionary):");
+        BloomFilterDictionary<String, String> bloomTreeDictionary = new BloomFilterDictionary<>(new BinaryTreeDictionary<String, String>());
+        testDict(bloomTreeDictionary);
+        System.out.println(bloomTreeDictionary);
+    }
+
+    // Reads each line and splits it into the German and the English word
+    private static void readFile() throws IOException {
+        WordPairLoader.forEach(file.toPath(), Integer.MAX_VALUE, (german, english) -> {
+            germanWords.add(german);
+            englishWords.add(english);
+        });
     }
 
     /**
@@ -45,23 +71,17 @@ public class Laufzeit {
      * 3. Searching for German words.
      * 4. Searching for English words.
      */
-    private static void testDict(Dictionary<String, String> dict) throws FileNotFoundException {
-        Scanner scanner = new Scanner(file); // Read file data
-
+    private static void testDict(Dictionary<String, String> dict) {
         // Insertion Performance Test
         System.out.println("Insert:");
         long startTime = System.currentTimeMillis();
-        int i = 0;
 
-        // Read each line, split into German and English words, then insert into the dictionary
-        while (scanner.hasNextLine()) {
-            String line = scanner.nextLine();
-            String[] parts = line.split(" ");
-            dict.insert(parts[0], parts[1]); // Insert word pair (German -> English)
-            i++;
+        // Insert the word pairs (German -> English)
+        for (int i = 0; i < germanWords.size(); i++) {
+            dict.insert(germanWords.get(i), englishWords.get(i));
 
             // Print time taken after inserting 8000 entries
-            if (i == 8000) {
+            if (i + 1 == 8000) {
                 long time8000 = System.currentTimeMillis() - startTime;
                 System.out.println("  8000: " + time8000 + " ms");
             }
@@ -69,51 +89,20 @@ public class Laufzeit {
         long endTime = System.currentTimeMillis() - startTime;
         System.out.println("~16000: " + endTime + " ms"); // Time for inserting all words
 
-        // Search Performance Test (German Words)
-        List<String> germanWords = new ArrayList<>();
-        scanner = new Scanner(file);
-
-        // Collect all German words from the file
-        while (scanner.hasNextLine()) {
-            String line = scanner.nextLine();
-            String[] parts = line.split(" ");
-            germanWords.add(parts[0]);
-        }
-
         // Measure search time for German words
         System.out.println("Search german:");
-        startTime = System.currentTimeMillis();
-        i = 0;
-        for (String word : germanWords) {
-            dict.search(word); // Search for each German word
-            i++;
-
-            // Print time taken after searching 8000 words
-            if (i == 8000) {
-                long time8000 = System.currentTimeMillis() - startTime;
-                System.out.println("  8000: " + time8000 + " ms");
-            }
-        }
-        endTime = System.currentTimeMillis() - startTime;
-        System.out.println("~16000: " + endTime + " ms"); // Time for searching all words
-
-        // Search Performance Test (English Words)
-        List<String> englishWords = new ArrayList<>();
-        scanner = new Scanner(file);
-
-        // Collect all English words from the file
-        while (scanner.hasNextLine()) {
-            String line = scanner.nextLine();
-            String[] parts = line.split(" ");
-            englishWords.add(parts[1]);
-        }
+        searchAll(dict, germanWords);
 
         // Measure search time for English words
         System.out.println("Search english:");
-        startTime = System.currentTimeMillis();
-        i = 0;
-        for (String word : englishWords) {
-            dict.search(word); // Search for each English word
+        searchAll(dict, englishWords);
+    }
+
+    private static void searchAll(Dictionary<String, String> dict, List<String> words) {
+        long startTime = System.currentTimeMillis();
+        int i = 0;
+        for (String word : words) {
+            dict.search(word); // Search for each word
             i++;
 
             // Print time taken after searching 8000 words
@@ -122,7 +111,7 @@ public class Laufzeit {
                 System.out.println("  8000: " + time8000 + " ms");
             }
         }
-        endTime = System.currentTimeMillis() - startTime;
+        long endTime = System.currentTimeMillis() - startTime;
         System.out.println("~16000: " + endTime + " ms"); // Time for searching all words
-        }
+    }
 }
@@ -1,6 +1,8 @@
 package aufgabe1;
 
 import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
 
 public class LinkedHashDictionary<K, V> implements Dictionary<K, V> {
 
@@ -21,11 +23,24 @@ public class LinkedHashDictionary<K, V> implements Dictionary<K, V> {
     }
 
     private static final int DEFAULT_CAPACITY = 11;
+    private static final int MIGRATION_STEP = 4; // buckets of the old table moved per insert or remove
+    private final boolean incremental;
     private int size;
     private Entry[] data;
+    private Entry[] oldData; // table that is being moved to data (incremental resize only)
+    private int migrated; // number of buckets of oldData already moved
 
     // Constructor with custom capacity, uses prime check
     public LinkedHashDictionary(int capacity) {
+        this(capacity, false);
+    }
+
+    // Constructor: with incrementalResize the old table is kept after doubling the capacity
+    // and every following insert or remove moves MIGRATION_STEP of its buckets into the new
+    // table, instead of rehashing all entries within one insert. search does not move any,
+    // so searching while iterating is allowed (migrate relinks the chains of the iterator).
+    public LinkedHashDictionary(int capacity, boolean incrementalResize) {
+        incremental = incrementalResize;
         size = 0;
         if (isPrime(capacity))
             data = new Entry[capacity];
@@ -52,6 +67,13 @@ public class LinkedHashDictionary<K, V> implements Dictionary<K, V> {
             newCapacity++;
         }
         Entry[] tmp = new Entry[newCapacity];
+        if (incremental) {
+            migrate(Integer.MAX_VALUE); // finish a previous resize (normally already done)
+            oldData = data;
+            migrated = 0;
+            data = tmp;
+            return;
+        }
         for (Entry entry : data) {
             while (entry != null) {
                 int hash = Math.floorMod(entry.key.hashCode(), tmp.length);
@@ -62,8 +84,48 @@ public class LinkedHashDictionary<K, V> implements Dictionary<K, V> {
         data = tmp;
     }
 
+    // Moves the chains of the next n buckets of oldData into data (reusing the entries)
+    private void migrate(int n) {
+        for (; n > 0 && oldData != null; n--) {
+            Entry entry = oldData[migrated];
+            oldData[migrated] = null;
+            while (entry != null) {
+                Entry next = entry.next;
+                int hash = Math.floorMod(entry.key.hashCode(), data.length);
+                entry.next = data[hash];
+                data[hash] = entry;
+                entry = next;
+            }
+            if (++migrated == oldData.length) {
+                oldData = null;
+            }
+        }
+    }
+
+    // Returns the entry with the key in the old table (not yet moved) or null
+    private Entry findOld(K key) {
+        if (oldData == null) {
+            return null;
+        }
+        for (Entry entry = oldData[Math.floorMod(key.hashCode(), oldData.length)]; entry != null; entry = entry.next) {
+            if (entry.key.equals(key)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
     @Override
     public V insert(K key, V value) {
+        if (oldData != null) {
+            migrate(MIGRATION_STEP);
+            Entry old = findOld(key);
+            if (old != null) {
+                V oldValue = (V) old.value;
+                old.value = value;
+                return oldValue;
+            }
+        }
         int hash = Math.floorMod(key.hashCode(), data.length);
         if (data[hash] == null) {
             data[hash] = new Entry<>(key, value);
@@ -92,31 +154,37 @@ public class LinkedHashDictionary<K, V> implements Dictionary<K, V> {
     @Override
     public V search(K key) {
         int hash = Math.floorMod(key.hashCode(), data.length);
-        if (data[hash] == null) {
-            return null;
-        } else {
-            while (data[hash] != null) {
-                if (data[hash].key.equals(key)) {
-                    return (V) data[hash].value;
-                }
-                data[hash] = data[hash].next;
+        // walk the chain with a local reference; the bucket head must not be modified
+        for (Entry entry = data[hash]; entry != null; entry = entry.next) {
+            if (entry.key.equals(key)) {
+                return (V) entry.value;
             }
         }
-        return null;
+        Entry old = findOld(key);
+        return (old != null) ? (V) old.value : null;
     }
 
     @Override
     public V remove(K key) {
-        int hash = Math.floorMod(key.hashCode(), data.length);
-        if (data[hash] == null) {
+        if (oldData != null) {
+            migrate(MIGRATION_STEP);
+            if (findOld(key) != null) {
+                return removeFromChain(oldData, Math.floorMod(key.hashCode(), oldData.length), key);
+            }
+        }
+        return removeFromChain(data, Math.floorMod(key.hashCode(), data.length), key);
+    }
+
+    private V removeFromChain(Entry[] table, int hash, K key) {
+        if (table[hash] == null) {
             return null;
         } else {
             Entry prev = null;
-            Entry entry = data[hash];
+            Entry entry = table[hash];
             while (entry != null) {
                 if (entry.key.equals(key)) {
                     if (prev == null) {
-                        data[hash] = entry.next;
+                        table[hash] = entry.next;
                     } else {
                         prev.next = entry.next;
                     }
@@ -137,46 +205,111 @@ public class LinkedHashDictionary<K, V> implements Dictionary<K, V> {
 
     @Override
     public Iterator<Dictionary.Entry<K, V>> iterator() {
+        // during an incremental resize the buckets of the old table are visited first
+        Entry[] first = (oldData != null) ? oldData : data;
         return new Iterator<>() {
 
-            private int i = 0;
-            Entry prev = null;
-            Entry entry = null;
+            private Entry[] table = first;
+            private int i = 0; // next bucket to look at
+            Entry entry = nextChain(); // next entry to return
 
-            @Override
-            public boolean hasNext() {
-                if (data[i] != null && data[i].next != null) {
-                    return true;
-                }
-                for (int j = i+1; j < data.length; j++) {
-                    if (data[j] != null ) {
-                        return true;
+            // returns the head of the next non-empty bucket
+            private Entry nextChain() {
+                while (true) {
+                    while (i < table.length) {
+                        if (table[i] != null) {
+                            return table[i++];
+                        }
+                        i++;
+                    }
+                    if (table == data) {
+                        return null;
                     }
+                    table = data;
+                    i = 0;
                 }
-                return false;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return entry != null;
             }
 
             @Override
             public Dictionary.Entry<K, V> next() {
-                while (data[i] == null) {
-                    i++;
+                if (entry == null) {
+                    throw new NoSuchElementException();
                 }
-                if (prev == null) {
-                    entry = data[i];
-                    prev = entry;
-                } else if (hasNext()) {
+                Entry current = entry;
+                entry = (entry.next != null) ? entry.next : nextChain();
+                return (Dictionary.Entry<K, V>) new Dictionary.Entry<>(current.key, current.value);
+            }
+        };
+    }
+
+    // Cursor along the chains (of the old table first during an incremental resize)
+    @Override
+    public Dictionary.Cursor<K, V> cursor() {
+        return new Dictionary.Cursor<>() {
+            Entry[] table = (oldData != null) ? oldData : data;
+            int i = 0; // next bucket to look at
+            Entry<K, V> entry; // current entry
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public boolean advance() {
+                if (entry != null && entry.next != null) {
                     entry = entry.next;
-                    if (entry == null) {
-                        do {
-                            i++;
-                        } while (i < data.length && data[i] == null);
-                        entry = data[i];
+                    return true;
+                }
+                while (true) {
+                    while (i < table.length) {
+                        entry = table[i++];
+                        if (entry != null) {
+                            return true;
+                        }
                     }
-                } else {
-                    throw new IndexOutOfBoundsException();
+                    if (table == data) {
+                        return false;
+                    }
+                    table = data;
+                    i = 0;
                 }
-                return (Dictionary.Entry<K, V>) new Dictionary.Entry<>(entry.key, entry.value);
+            }
+
+            @Override
+            public K key() {
+                return entry.key;
+            }
+
+            @Override
+            public V value() {
+                return entry.value;
+            }
+
+            @Override
+            public V setValue(V value) {
+                V oldValue = entry.value;
+                entry.value = value;
+                return oldValue;
             }
         };
     }
-}
\ No newline at end of file
+
+    @Override
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        if (oldData != null) {
+            forEach(oldData, action);
+        }
+        forEach(data, action);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> void forEach(Entry[] table, BiConsumer<? super K, ? super V> action) {
+        for (Entry<K, V> entry : table) {
+            for (; entry != null; entry = entry.next) {
+                action.accept(entry.key, entry.value);
+            }
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package aufgabe1;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Non-blocking hash table with open addressing (linear probing), in the style of
+ * Cliff Click's NonBlockingHashMap.
+ * <p>
+ * Key and value of a slot are stored next to each other in one AtomicReferenceArray.
+ * A key slot is claimed with a CAS from null and never changes afterwards; values are
+ * replaced with CAS. A removed key keeps its slot, the value becomes TOMBSTONE.
+ * No operation ever takes a lock.
+ * <p>
+ * Resize: a new table is attached to the full one (next). The slots of the old table
+ * are then copied in chunks by every thread that touches the old table: a copy first
+ * freezes the value of a slot (Frozen, no more updates in the old table), puts it into
+ * the new table and then replaces it by the forwarding marker MOVED. Empty slots are
+ * closed (CLOSED), so new keys go to the new table. A thread that hits a frozen or moved
+ * slot helps copying and continues in the new table. When all slots have been copied,
+ * the new table becomes the top table.
+ * <p>
+ * null is not allowed as key or value. The iterator is weakly consistent.
+ *
+ * @param <K> Key.
+ * @param <V> Value.
+ */
+public class LockFreeHashDictionary<K, V> implements Dictionary<K, V> {
+
+    // Markers in the key and value slots
+    private static final Object CLOSED = new Object(); // key: empty slot closed by a copy
+    private static final Object TOMBSTONE = new Object(); // value: key removed
+    private static final Object MOVED = new Object(); // value: copied to the next table
+
+    // Value of a slot that is being copied; the old table accepts no more updates
+    private static final class Frozen {
+        final Object value;
+
+        Frozen(Object value) {
+            this.value = value;
+        }
+    }
+
+    private static final Frozen FROZEN_EMPTY = new Frozen(null);
+
+    private static final double LOAD_FACTOR = 0.5;
+    private static final int MIN_CAPACITY = 16;
+    private static final int COPY_CHUNK = 1024; // slots copied by a thread at once
+
+    // Operation modes of put
+    private static final int PUT = 0;
+    private static final int REMOVE = 1;
+    private static final int COPY = 2; // only sets the value if the slot has none
+
+    private static final class Table {
+        final AtomicReferenceArray<Object> kvs; // key of slot i at 2i, value at 2i + 1
+        final int capacity; // power of two
+        final LongAdder claimed = new LongAdder(); // claimed key slots (including removed keys)
+        final AtomicReference<Table> next = new AtomicReference<>();
+        final AtomicInteger copyIndex = new AtomicInteger(); // start of the next chunk to copy
+        final AtomicInteger copyDone = new AtomicInteger(); // number of copied slots
+
+        Table(int capacity) {
+            this.capacity = capacity;
+            kvs = new AtomicReferenceArray<>(2 * capacity);
+        }
+    }
+
+    private final AtomicReference<Table> top = new AtomicReference<>(new Table(MIN_CAPACITY));
+    private final LongAdder size = new LongAdder();
+
+    private static int hash(Object key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V search(K key) {
+        int h = hash(key);
+        Table t = top.get();
+        while (t != null) {
+            int mask = t.capacity - 1;
+            int idx = h & mask;
+            boolean forward = false;
+            for (int probes = 0; probes < t.capacity && !forward; probes++) {
+                Object k = t.kvs.get(2 * idx);
+                if (k == null) {
+                    return null; // a key in a newer table has claimed or passed a slot in this one
+                }
+                if (k == CLOSED) {
+                    forward = true;
+                } else if (key.equals(k)) {
+                    Object v = t.kvs.get(2 * idx + 1);
+                    if (v == MOVED || v == FROZEN_EMPTY) {
+                        // the value (if any) is in a newer table; FROZEN_EMPTY may still receive
+                        // the copy of a value from an older table there
+                        helpCopy(t);
+                        break;
+                    }
+                    if (v instanceof Frozen) {
+                        // still the current value: the next table gets no update before MOVED
+                        v = ((Frozen) v).value;
+                    }
+                    return (v == null || v == TOMBSTONE) ? null : (V) v;
+                }
+                idx = (idx + 1) & mask;
+            }
+            t = t.next.get();
+        }
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V insert(K key, V value) {
+        if (value == null) {
+            throw new NullPointerException("null values are not supported");
+        }
+        Object old = put(top.get(), key, hash(key), value, PUT);
+        return (old == null || old == TOMBSTONE) ? null : (V) old;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(K key) {
+        Object old = put(top.get(), key, hash(key), TOMBSTONE, REMOVE);
+        return (old == null || old == TOMBSTONE) ? null : (V) old;
+    }
+
+    // Sets the value of key in table t or a newer table and returns the previous value
+    private Object put(Table t, Object key, int h, Object value, int mode) {
+        outer:
+        while (true) {
+            int mask = t.capacity - 1;
+            int idx = h & mask;
+            int slot = -1;
+            for (int probes = 0; probes < t.capacity; ) {
+                Object k = t.kvs.get(2 * idx);
+                if (k == null) {
+                    if (mode == REMOVE) {
+                        return null; // not contained
+                    }
+                    if (!t.kvs.compareAndSet(2 * idx, null, key)) {
+                        continue; // lost the race for this slot, look at it again
+                    }
+                    t.claimed.increment();
+                    if (probes > 2 && t.claimed.sum() > LOAD_FACTOR * t.capacity) {
+                        resize(t);
+                    }
+                    slot = idx;
+                    break;
+                }
+                if (k == CLOSED) {
+                    break;
+                }
+                if (key.equals(k)) {
+                    slot = idx;
+                    break;
+                }
+                probes++;
+                idx = (idx + 1) & mask;
+            }
+
+            if (slot < 0 || t.next.get() != null) {
+                // table closed or full: forward the key (if it has a slot here) and go on in the next table
+                Table next = resize(t);
+                if (slot >= 0) {
+                    copySlot(t, slot);
+                }
+                helpCopy(t);
+                t = next;
+                continue;
+            }
+
+            while (true) {
+                Object v = t.kvs.get(2 * slot + 1);
+                if (v instanceof Frozen || v == MOVED) {
+                    copySlot(t, slot);
+                    t = t.next.get();
+                    continue outer;
+                }
+                if (mode == COPY && v != null) {
+                    return v;
+                }
+                if (mode == REMOVE && (v == null || v == TOMBSTONE)) {
+                    return null;
+                }
+                if (t.kvs.compareAndSet(2 * slot + 1, v, value)) {
+                    if (mode == PUT && (v == null || v == TOMBSTONE)) {
+                        size.increment();
+                    } else if (mode == REMOVE) {
+                        size.decrement();
+                    }
+                    return v;
+                }
+            }
+        }
+    }
+
+    // Attaches a new table to t (unless another thread already did) and returns it
+    private Table resize(Table t) {
+        Table next = t.next.get();
+        if (next != null) {
+            return next;
+        }
+        long live = size.sum();
+        int capacity = t.capacity;
+        // grow if more than a quarter of the slots are live, otherwise only drop the removed keys
+        if (live * 4 > capacity && capacity < (1 << 29)) {
+            capacity *= 2;
+        }
+        Table fresh = new Table(capacity);
+        return t.next.compareAndSet(null, fresh) ? fresh : t.next.get();
+    }
+
+    // Copies the next chunk of slots of t into t.next (if a copy is in progress)
+    private void helpCopy(Table t) {
+        if (t.next.get() == null || t.copyIndex.get() >= t.capacity) {
+            return;
+        }
+        int start = t.copyIndex.getAndAdd(COPY_CHUNK);
+        if (start >= t.capacity) {
+            return;
+        }
+        int end = Math.min(start + COPY_CHUNK, t.capacity);
+        for (int i = start; i < end; i++) {
+            copySlot(t, i);
+        }
+        if (t.copyDone.addAndGet(end - start) == t.capacity) {
+            promote();
+        }
+    }
+
+    // Replaces the top table by its successor as long as that one is completely copied
+    private void promote() {
+        Table t = top.get();
+        while (t.next.get() != null && t.copyDone.get() == t.capacity) {
+            top.compareAndSet(t, t.next.get());
+            t = top.get();
+        }
+    }
+
+    // Copies slot idx of t into t.next. Can be called by any number of threads at any time.
+    private void copySlot(Table t, int idx) {
+        Object k = t.kvs.get(2 * idx);
+        while (k == null) {
+            if (t.kvs.compareAndSet(2 * idx, null, CLOSED)) {
+                return;
+            }
+            k = t.kvs.get(2 * idx);
+        }
+        if (k == CLOSED) {
+            return;
+        }
+
+        Object v = t.kvs.get(2 * idx + 1);
+        while (!(v instanceof Frozen)) {
+            if (v == MOVED) {
+                return;
+            }
+            Frozen f = (v == null || v == TOMBSTONE) ? FROZEN_EMPTY : new Frozen(v);
+            if (t.kvs.compareAndSet(2 * idx + 1, v, f)) {
+                v = f;
+            } else {
+                v = t.kvs.get(2 * idx + 1);
+            }
+        }
+        Object frozen = ((Frozen) v).value;
+        if (frozen != null) {
+            put(t.next.get(), k, hash(k), frozen, COPY);
+        }
+        t.kvs.compareAndSet(2 * idx + 1, v, MOVED);
+    }
+
+    @Override
+    public int size() {
+        return (int) Math.max(0, size.sum());
+    }
+
+    @Override
+    public Iterator<Entry<K, V>> iterator() {
+        // entries of a copy in progress are moved first, so only the newest table has to be visited
+        Table first = top.get();
+        while (first.next.get() != null) {
+            for (int i = 0; i < first.capacity; i++) {
+                copySlot(first, i);
+            }
+            first = first.next.get();
+        }
+        Table t = first;
+
+        return new Iterator<>() {
+            int index = 0;
+            Entry<K, V> next = advance();
+
+            @SuppressWarnings("unchecked")
+            private Entry<K, V> advance() {
+                while (index < t.capacity) {
+                    int i = index++;
+                    Object k = t.kvs.get(2 * i);
+                    if (k == null || k == CLOSED) {
+                        continue;
+                    }
+                    Object v = t.kvs.get(2 * i + 1);
+                    if (v == MOVED || v == FROZEN_EMPTY) {
+                        v = search((K) k); // moved by a later resize
+                    } else if (v instanceof Frozen) {
+                        v = ((Frozen) v).value;
+                    }
+                    if (v != null && v != TOMBSTONE) {
+                        return new Entry<>((K) k, (V) v);
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Entry<K, V> next() {
+                if (next == null) throw new NoSuchElementException();
+                Entry<K, V> entry = next;
+                next = advance();
+                return entry;
+            }
+        };
+    }
+}
@@ -0,0 +1,834 @@
+package aufgabe1;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Log-structured merge-tree: a Dictionary&lt;String, String&gt; whose entries are stored in
+ * files, so it can hold far more entries than fit into the heap.
+ * <p>
+ * Changes go into an in-memory memtable (an AVL tree, BinaryTreeDictionary); a remove
+ * inserts a tombstone. A full memtable becomes immutable and a background thread writes it
+ * as a sorted run file. A run is never changed: it consists of data blocks of about 4 KB,
+ * a sparse index (the first key of every block, kept in memory) and a Bloom filter (kept
+ * in memory). A search looks into the memtables and then into the runs from the newest to
+ * the oldest; a run whose filter rejects the key costs no I/O, any other one one block read.
+ * <p>
+ * Compaction (a second background thread) keeps the number of runs logarithmic: the newest
+ * runs are merged as long as the run in front of them is at most twice as large as all of
+ * them together. A merge that includes the oldest run drops the tombstones. Writers are
+ * only blocked if more than two memtables wait for their flush.
+ * <p>
+ * insert and remove return the previous value as required by Dictionary, so they look the
+ * key up first; for a new key this usually costs only the filter checks.
+ * <p>
+ * The file MANIFEST lists the live runs. close writes the memtable and the size; a later
+ * LsmTreeDictionary on the same directory continues with these entries. After a crash the
+ * entries of the memtables are lost (use DurableDictionary for a log of every change) and the
+ * size is counted when the directory is opened.
+ * <p>
+ * All methods are thread-safe. The iterator returns the entries in key order; it works on
+ * the state at its creation and keeps the files of its runs until it has been exhausted.
+ */
+public class LsmTreeDictionary implements Dictionary<String, String>, Closeable {
+
+    private static final long DEFAULT_MEMTABLE_BYTES = 16 << 20;
+    private static final int BLOCK_SIZE = 4096;
+    private static final int BITS_PER_KEY = 10;
+    private static final int MAX_IMMUTABLE = 2; // memtables waiting for their flush before writers block
+    private static final int MAGIC = 0x4C534D31; // "LSM1"
+    private static final int FOOTER = 28;
+    private static final int ENTRY_OVERHEAD = 100; // heap bytes of an AVL node and its strings without chars
+
+    // Record flags in a run file and special values in a memtable
+    private static final byte VALUE = 0;
+    private static final byte NULL = 1;
+    private static final byte DELETED = 2;
+    private static final Object NULL_VALUE = new Object();
+    private static final Object TOMBSTONE = new Object();
+
+    private final Path directory;
+    private final long memtableBytes;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Condition flushed = lock.writeLock().newCondition();
+    private final ExecutorService flusher = Executors.newSingleThreadExecutor(LsmTreeDictionary::daemon);
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(LsmTreeDictionary::daemon);
+    private final AtomicInteger nextRun = new AtomicInteger();
+
+    // Guarded by lock
+    private BinaryTreeDictionary<String, Object> memtable = new BinaryTreeDictionary<>();
+    private long memtableSize; // estimated heap bytes of memtable
+    private final List<BinaryTreeDictionary<String, Object>> immutable = new ArrayList<>(); // oldest first
+    private List<Run> runs = Collections.emptyList(); // oldest first, replaced as a whole
+    private int size;
+    private boolean compactionScheduled;
+    private boolean closed;
+    private volatile IOException failure; // of a background thread
+
+    /**
+     * Opens the dictionary in directory (created if necessary) with memtables of 16 MB.
+     * @param directory directory of the run files.
+     * @throws IOException if a file cannot be read.
+     */
+    public LsmTreeDictionary(Path directory) throws IOException {
+        this(directory, DEFAULT_MEMTABLE_BYTES);
+    }
+
+    /**
+     * @param directory directory of the run files.
+     * @param memtableBytes estimated heap bytes of a memtable before it is written to a run.
+     * @throws IOException if a file cannot be read.
+     */
+    public LsmTreeDictionary(Path directory, long memtableBytes) throws IOException {
+        this.directory = directory;
+        this.memtableBytes = memtableBytes;
+        Files.createDirectories(directory);
+        Path manifest = directory.resolve("MANIFEST");
+        List<String> names = Files.exists(manifest) ? Files.readAllLines(manifest) : List.of("size 0");
+        List<Run> opened = new ArrayList<>();
+        for (String name : names.subList(1, names.size())) {
+            opened.add(new Run(directory.resolve(name)));
+            nextRun.set(Math.max(nextRun.get(), Integer.parseInt(name.substring(4, name.length() - 4)) + 1));
+        }
+        runs = Collections.unmodifiableList(opened);
+        // files of runs that were written or merged but not yet listed when the process ended
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "{run-*.lsm,*.tmp}")) {
+            for (Path file : files) {
+                if (!names.contains(file.getFileName().toString())) {
+                    Files.delete(file);
+                }
+            }
+        }
+        size = Integer.parseInt(names.get(0).substring(5));
+        if (size < 0) {
+            for (Iterator<Entry<String, String>> it = iterator(); it.hasNext(); it.next()) {
+                size++;
+            }
+            size++; // from -1
+        }
+        writeManifest(-1);
+    }
+
+    private static Thread daemon(Runnable r) {
+        Thread thread = new Thread(r, "lsm-background");
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    @Override
+    public String insert(String key, String value) {
+        lock.writeLock().lock();
+        try {
+            checkOpen();
+            Object old = memtable.insert(key, value == null ? NULL_VALUE : value);
+            if (old == null) {
+                old = lookupOlder(key);
+            }
+            memtableSize += ENTRY_OVERHEAD + 2L * (key.length() + (value == null ? 0 : value.length()));
+            if (old == null || old == TOMBSTONE) {
+                size++;
+            }
+            afterWrite();
+            return decode(old);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public String remove(String key) {
+        lock.writeLock().lock();
+        try {
+            checkOpen();
+            Object old = lookup(key);
+            if (old == null || old == TOMBSTONE) {
+                return null; // nothing to delete, no tombstone needed
+            }
+            memtable.insert(key, TOMBSTONE);
+            memtableSize += ENTRY_OVERHEAD + 2L * key.length();
+            size--;
+            afterWrite();
+            return decode(old);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public String search(String key) {
+        lock.readLock().lock();
+        try {
+            checkOpen();
+            return decode(lookup(key));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Dictionary is closed");
+        }
+        if (failure != null) {
+            throw new UncheckedIOException("Background write failed", failure);
+        }
+    }
+
+    private static String decode(Object value) {
+        return (value == null || value == NULL_VALUE || value == TOMBSTONE) ? null : (String) value;
+    }
+
+    // Returns the newest entry of key: a String, NULL_VALUE, TOMBSTONE or null if there is none.
+    // Called under the read or write lock.
+    private Object lookup(String key) {
+        Object value = memtable.search(key);
+        return (value != null) ? value : lookupOlder(key);
+    }
+
+    // Like lookup, but without the active memtable
+    private Object lookupOlder(String key) {
+        Object value = null;
+        for (int i = immutable.size() - 1; value == null && i >= 0; i--) {
+            value = immutable.get(i).search(key);
+        }
+        if (value != null) {
+            return value;
+        }
+        byte[] bytes = null;
+        for (int i = runs.size() - 1; i >= 0; i--) {
+            Run run = runs.get(i);
+            if (run.filter.mightContain(key)) {
+                if (bytes == null) {
+                    bytes = key.getBytes(StandardCharsets.UTF_8);
+                }
+                value = run.search(key, bytes);
+                if (value != null) {
+                    return value;
+                }
+            }
+        }
+        return null;
+    }
+
+    // Hands a full memtable to the flusher; blocks while too many memtables wait for it
+    private void afterWrite() {
+        if (memtableSize < memtableBytes) {
+            return;
+        }
+        BinaryTreeDictionary<String, Object> full = memtable;
+        immutable.add(full);
+        memtable = new BinaryTreeDictionary<>();
+        memtableSize = 0;
+        flusher.execute(() -> flush(full));
+        while (immutable.size() > MAX_IMMUTABLE && failure == null) {
+            flushed.awaitUninterruptibly();
+        }
+    }
+
+    // Writes the oldest immutable memtable to a new run (runs on the flusher thread)
+    private void flush(BinaryTreeDictionary<String, Object> table) {
+        try {
+            // without older runs the tombstones have nothing left to delete
+            boolean dropTombstones;
+            lock.readLock().lock();
+            try {
+                dropTombstones = runs.isEmpty();
+            } finally {
+                lock.readLock().unlock();
+            }
+            Run run = writeRun(new TreeCursor(table.iterator(), 0), table.size(), dropTombstones);
+            lock.writeLock().lock();
+            try {
+                if (run != null) {
+                    List<Run> list = new ArrayList<>(runs);
+                    list.add(run);
+                    runs = Collections.unmodifiableList(list);
+                }
+                immutable.remove(0);
+                flushed.signalAll();
+                if (!compactionScheduled) {
+                    compactionScheduled = true;
+                    compactor.execute(this::compact);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            writeManifest(-1);
+        } catch (IOException | RuntimeException e) {
+            fail(e);
+        }
+    }
+
+    // Merges the newest runs while the run in front of them is at most twice as large (runs on the compactor thread)
+    private void compact() {
+        try {
+            while (true) {
+                List<Run> current;
+                boolean oldest;
+                lock.writeLock().lock();
+                try {
+                    current = runs;
+                    int from = current.size() - 1;
+                    long newer = from < 0 ? 0 : current.get(from).bytes;
+                    while (from > 0 && current.get(from - 1).bytes <= 2 * newer) {
+                        newer += current.get(--from).bytes;
+                    }
+                    if (from >= current.size() - 1) {
+                        compactionScheduled = false;
+                        return;
+                    }
+                    oldest = (from == 0);
+                    current = current.subList(from, current.size());
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                merge(current, oldest);
+            }
+        } catch (IOException | RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                compactionScheduled = false;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            fail(e);
+        }
+    }
+
+    // Replaces the adjacent runs inputs (oldest first) by one merged run; with oldest (inputs
+    // start with the oldest run) the tombstones are dropped
+    private void merge(List<Run> inputs, boolean oldest) throws IOException {
+        long entries = 0;
+        List<Cursor> cursors = new ArrayList<>();
+        for (int i = 0; i < inputs.size(); i++) {
+            entries += inputs.get(i).entries;
+            inputs.get(i).acquire(); // released by the cursor at its end
+            cursors.add(new RunCursor(inputs.get(i), inputs.size() - i)); // newest has age 1
+        }
+        Run merged = writeRun(new MergeCursor(cursors), entries, oldest);
+        lock.writeLock().lock();
+        try {
+            List<Run> list = new ArrayList<>(runs);
+            int at = list.indexOf(inputs.get(0));
+            list.subList(at, at + inputs.size()).clear();
+            if (merged != null) {
+                list.add(at, merged);
+            }
+            runs = Collections.unmodifiableList(list);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        writeManifest(-1);
+        // no search can reach the inputs any more, only iterators that hold a reference
+        for (Run run : inputs) {
+            run.obsolete = true;
+            run.release();
+        }
+    }
+
+    private void fail(Exception e) {
+        failure = (e instanceof IOException) ? (IOException) e : new IOException(e);
+        lock.writeLock().lock();
+        try {
+            flushed.signalAll();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Lists the live runs (and the size, -1 if unknown) atomically in MANIFEST
+    private synchronized void writeManifest(int count) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("size " + count);
+        lock.readLock().lock();
+        try {
+            for (Run run : runs) {
+                lines.add(run.file.getFileName().toString());
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        Path temp = directory.resolve("MANIFEST.tmp");
+        Files.write(temp, lines);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temp, directory.resolve("MANIFEST"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Writes the memtable, waits for the background threads and records the size.
+     * @throws IOException if a run or the manifest cannot be written.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (memtable.size() > 0) {
+                BinaryTreeDictionary<String, Object> last = memtable;
+                immutable.add(last);
+                memtable = new BinaryTreeDictionary<>();
+                flusher.execute(() -> flush(last));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        flusher.shutdown();
+        awaitTermination(flusher);
+        compactor.shutdown(); // runs the compactions that the flushes have scheduled
+        awaitTermination(compactor);
+        if (failure != null) {
+            throw failure;
+        }
+        writeManifest(size);
+        // an open iterator may still read a run: its channel is closed when the iterator is done
+        for (Run run : runs) {
+            run.release();
+        }
+    }
+
+    private static void awaitTermination(ExecutorService executor) throws IOException {
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while closing", e);
+        }
+    }
+
+    @Override
+    public Iterator<Entry<String, String>> iterator() {
+        List<Cursor> cursors = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            // the active memtable changes, so its entries are copied
+            List<Entry<String, Object>> copy = new ArrayList<>(memtable.size());
+            for (Entry<String, Object> e : memtable) {
+                copy.add(new Entry<>(e.getKey(), e.getValue()));
+            }
+            int age = 0;
+            cursors.add(new TreeCursor(copy.iterator(), age++));
+            for (int i = immutable.size() - 1; i >= 0; i--) {
+                cursors.add(new TreeCursor(immutable.get(i).iterator(), age++));
+            }
+            for (int i = runs.size() - 1; i >= 0; i--) {
+                runs.get(i).acquire(); // released by the cursor at its end
+                cursors.add(new RunCursor(runs.get(i), age++));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        MergeCursor merge = new MergeCursor(cursors);
+        return new Iterator<>() {
+            boolean ready;
+            boolean hasNext;
+
+            @Override
+            public boolean hasNext() {
+                if (!ready) {
+                    try {
+                        hasNext = merge.next();
+                        while (hasNext && merge.value == TOMBSTONE) {
+                            hasNext = merge.next();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    ready = true;
+                }
+                return hasNext;
+            }
+
+            @Override
+            public Entry<String, String> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                ready = false;
+                return new Entry<>(merge.key, decode(merge.value));
+            }
+        };
+    }
+
+    // Writes the entries of cursor (ascending keys) to a new run file; returns null if there were none.
+    // expected is an upper bound of the number of entries (for the filter size).
+    private Run writeRun(Cursor cursor, long expected, boolean dropTombstones) throws IOException {
+        Path file = directory.resolve(String.format("run-%d.lsm", nextRun.getAndIncrement()));
+        BloomFilter filter = new BloomFilter(expected, BITS_PER_KEY);
+        List<byte[]> firstKeys = new ArrayList<>();
+        long[] offsets = new long[16];
+        long entries = 0;
+        long position = 0;
+        long blockStart = -BLOCK_SIZE;
+        try (FileOutputStream stream = new FileOutputStream(file.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16))) {
+            while (cursor.next()) {
+                if (dropTombstones && cursor.value == TOMBSTONE) {
+                    continue;
+                }
+                byte[] key = cursor.key.getBytes(StandardCharsets.UTF_8);
+                if (position - blockStart >= BLOCK_SIZE) {
+                    if (firstKeys.size() == offsets.length) {
+                        offsets = Arrays.copyOf(offsets, 2 * offsets.length);
+                    }
+                    offsets[firstKeys.size()] = position;
+                    firstKeys.add(key);
+                    blockStart = position;
+                }
+                filter.add(cursor.key);
+                position += writeVarint(out, key.length);
+                out.write(key);
+                position += key.length + 1;
+                if (cursor.value == TOMBSTONE) {
+                    out.writeByte(DELETED);
+                } else if (cursor.value == NULL_VALUE) {
+                    out.writeByte(NULL);
+                } else {
+                    out.writeByte(VALUE);
+                    byte[] value = ((String) cursor.value).getBytes(StandardCharsets.UTF_8);
+                    position += writeVarint(out, value.length);
+                    out.write(value);
+                    position += value.length;
+                }
+                entries++;
+            }
+            if (entries > 0) {
+                long indexOffset = position;
+                out.writeInt(firstKeys.size());
+                position += 4;
+                for (int i = 0; i < firstKeys.size(); i++) {
+                    position += writeVarint(out, firstKeys.get(i).length) + firstKeys.get(i).length + 8;
+                    out.write(firstKeys.get(i));
+                    out.writeLong(offsets[i]);
+                }
+                long bloomOffset = position;
+                long[] bits = filter.bits();
+                out.writeInt(filter.hashes());
+                out.writeInt(bits.length);
+                for (long word : bits) {
+                    out.writeLong(word);
+                }
+                out.writeLong(entries);
+                out.writeLong(indexOffset);
+                out.writeLong(bloomOffset);
+                out.writeInt(MAGIC);
+                out.flush();
+                stream.getChannel().force(true);
+            }
+        }
+        if (entries == 0) {
+            Files.delete(file); // closed by now
+            return null;
+        }
+        return new Run(file);
+    }
+
+    private static int writeVarint(DataOutputStream out, int v) throws IOException {
+        int n = 1;
+        while ((v & ~0x7F) != 0) {
+            out.writeByte((v & 0x7F) | 0x80);
+            v >>>= 7;
+            n++;
+        }
+        out.writeByte(v);
+        return n;
+    }
+
+    // An immutable sorted run file with its sparse index and filter in memory
+    private static final class Run {
+        final Path file;
+        final FileChannel channel;
+        final long entries;
+        final long bytes; // of the data blocks
+        final String[] firstKeys;
+        final long[] offsets; // of the blocks, plus the end of the data
+        final BloomFilter filter;
+        final AtomicInteger refs = new AtomicInteger(1); // the list of runs and open iterators
+        volatile boolean obsolete; // merged into another run: the file is deleted after its last use
+
+        Run(Path file) throws IOException {
+            this.file = file;
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            try {
+                ByteBuffer footer = read(channel.size() - FOOTER, FOOTER);
+                entries = footer.getLong();
+                bytes = footer.getLong();
+                long bloomOffset = footer.getLong();
+                if (footer.getInt() != MAGIC) {
+                    throw new IOException("Not a run file: " + file);
+                }
+                ByteBuffer index = read(bytes, (int) (bloomOffset - bytes));
+                int blocks = index.getInt();
+                firstKeys = new String[blocks];
+                offsets = new long[blocks + 1];
+                for (int i = 0; i < blocks; i++) {
+                    int length = getVarint(index);
+                    firstKeys[i] = new String(index.array(), index.position(), length, StandardCharsets.UTF_8);
+                    index.position(index.position() + length);
+                    offsets[i] = index.getLong();
+                }
+                offsets[blocks] = bytes;
+                ByteBuffer bloom = read(bloomOffset, (int) (channel.size() - FOOTER - bloomOffset));
+                int hashes = bloom.getInt();
+                long[] bits = new long[bloom.getInt()];
+                bloom.asLongBuffer().get(bits);
+                filter = new BloomFilter(bits, hashes);
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        ByteBuffer read(long position, int length) throws IOException {
+            ByteBuffer buf = ByteBuffer.allocate(length);
+            while (buf.hasRemaining()) {
+                if (channel.read(buf, position + buf.position()) < 0) {
+                    throw new IOException("Truncated run file: " + file);
+                }
+            }
+            return buf.flip();
+        }
+
+        // Searches the block that can contain key; returns the entry (see lookup) or null
+        Object search(String key, byte[] keyBytes) {
+            int lo = 0;
+            int hi = firstKeys.length - 1;
+            while (lo <= hi) { // last block whose first key is <= key
+                int mid = (lo + hi) >>> 1;
+                if (firstKeys[mid].compareTo(key) <= 0) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            if (hi < 0) {
+                return null;
+            }
+            try {
+                ByteBuffer block = read(offsets[hi], (int) (offsets[hi + 1] - offsets[hi]));
+                byte[] b = block.array();
+                while (block.hasRemaining()) {
+                    int length = getVarint(block);
+                    int start = block.position();
+                    boolean found = Arrays.equals(b, start, start + length, keyBytes, 0, keyBytes.length);
+                    block.position(start + length);
+                    byte flag = block.get();
+                    if (flag == VALUE) {
+                        int valueLength = getVarint(block);
+                        if (found) {
+                            return new String(b, block.position(), valueLength, StandardCharsets.UTF_8);
+                        }
+                        block.position(block.position() + valueLength);
+                    } else if (found) {
+                        return flag == NULL ? NULL_VALUE : TOMBSTONE;
+                    }
+                }
+                return null;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void acquire() {
+            refs.incrementAndGet();
+        }
+
+        // Closes the file when neither the list of runs nor an iterator uses it any more,
+        // and deletes it if it is obsolete
+        void release() throws IOException {
+            if (refs.decrementAndGet() == 0) {
+                channel.close();
+                if (obsolete) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private static int getVarint(ByteBuffer buf) {
+        int v = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = buf.get();
+            v |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return v;
+            }
+        }
+    }
+
+    // Sorted sequence of entries: next() moves to the next entry and sets key and value
+    private abstract static class Cursor {
+        final int age; // 0 = newest source
+        String key;
+        Object value;
+
+        Cursor(int age) {
+            this.age = age;
+        }
+
+        abstract boolean next() throws IOException;
+    }
+
+    private static final class TreeCursor extends Cursor {
+        final Iterator<Entry<String, Object>> entries;
+
+        TreeCursor(Iterator<Entry<String, Object>> entries, int age) {
+            super(age);
+            this.entries = entries;
+        }
+
+        @Override
+        boolean next() {
+            if (!entries.hasNext()) {
+                return false;
+            }
+            Entry<String, Object> e = entries.next();
+            key = e.getKey();
+            value = e.getValue();
+            return true;
+        }
+    }
+
+    // Reads the data blocks of a run sequentially (own buffer and position, so several cursors can share the run)
+    private static final class RunCursor extends Cursor {
+        final Run run;
+        ByteBuffer buf = ByteBuffer.allocate(1 << 16);
+        long filePosition;
+        boolean released;
+
+        RunCursor(Run run, int age) {
+            super(age);
+            this.run = run;
+            buf.limit(0);
+        }
+
+        @Override
+        boolean next() throws IOException {
+            if (filePosition == run.bytes && !buf.hasRemaining()) {
+                if (!released) {
+                    released = true;
+                    run.release();
+                }
+                return false;
+            }
+            ensure(5);
+            int length = getVarint(buf);
+            ensure(length + 6);
+            key = new String(buf.array(), buf.position(), length, StandardCharsets.UTF_8);
+            buf.position(buf.position() + length);
+            byte flag = buf.get();
+            if (flag == VALUE) {
+                int valueLength = getVarint(buf);
+                ensure(valueLength);
+                value = new String(buf.array(), buf.position(), valueLength, StandardCharsets.UTF_8);
+                buf.position(buf.position() + valueLength);
+            } else {
+                value = (flag == NULL) ? NULL_VALUE : TOMBSTONE;
+            }
+            return true;
+        }
+
+        // Makes at least n bytes available (fewer at the end of the data)
+        void ensure(int n) throws IOException {
+            if (buf.remaining() >= n || filePosition == run.bytes) {
+                return;
+            }
+            if (buf.capacity() < n) {
+                buf = ByteBuffer.allocate(n).put(buf);
+            } else {
+                buf.compact();
+            }
+            while (buf.position() < n && filePosition < run.bytes) {
+                buf.limit((int) Math.min(buf.capacity(), buf.position() + run.bytes - filePosition));
+                int read = run.channel.read(buf, filePosition);
+                if (read < 0) {
+                    throw new IOException("Truncated run file: " + run.file);
+                }
+                filePosition += read;
+            }
+            buf.flip();
+        }
+    }
+
+    // Merges cursors: every key once, with the value of the newest cursor that contains it
+    private static final class MergeCursor extends Cursor {
+        final PriorityQueue<Cursor> queue = new PriorityQueue<>((a, b) -> {
+            int c = a.key.compareTo(b.key);
+            return c != 0 ? c : Integer.compare(a.age, b.age);
+        });
+        List<Cursor> pending; // cursors that have not been started
+
+        MergeCursor(List<Cursor> cursors) {
+            super(0);
+            pending = cursors;
+        }
+
+        @Override
+        boolean next() throws IOException {
+            if (pending != null) {
+                for (Cursor cursor : pending) {
+                    if (cursor.next()) {
+                        queue.add(cursor);
+                    }
+                }
+                pending = null;
+            }
+            Cursor newest = queue.poll();
+            if (newest == null) {
+                return false;
+            }
+            key = newest.key;
+            value = newest.value;
+            if (newest.next()) {
+                queue.add(newest);
+            }
+            // skip the older entries of the same key
+            while (!queue.isEmpty() && queue.peek().key.equals(key)) {
+                Cursor older = queue.poll();
+                if (older.next()) {
+                    queue.add(older);
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -2,11 +2,13 @@ package aufgabe1;
 
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
 
 public class OpenHashDictionary<K, V> implements Dictionary<K, V> {
 
-    // The state of a table entry: FREE = empty, FULL = contains a value, DELETED = was used but now removed
-    private enum State { FREE, FULL, DELETED }
+    // The state of a table entry: FULL = contains a value, DELETED = was used but now removed
+    // A FREE (empty) slot is null, so creating a table allocates no entries
+    private enum State { FULL, DELETED }
 
     // Internal class representing a single entry in the hash table
     private static class Entry<K, V> {
@@ -14,11 +16,6 @@ public class OpenHashDictionary<K, V> implements Dictionary<K, V> {
         V value;
         State state;
 
-        // Constructor for an empty slot
-        Entry() {
-            this.state = State.FREE;
-        }
-
         // Constructor for a full slot
         Entry(K key, V value) {
             this.key = key;
@@ -27,87 +24,161 @@ public class OpenHashDictionary<K, V> implements Dictionary<K, V> {
         }
     }
 
+    // Marks the slots of the old table whose entries have been moved by an incremental resize
+    private static final Entry<?, ?> MOVED = new Entry<>(null, null);
+
+    static {
+        MOVED.state = State.DELETED;
+    }
+
     // Constants for load factor and default table size
     private static final double LOAD_FACTOR = 0.66;
     private static final int DEFAULT_CAPACITY = 7; // 7 = 4*1 + 3 → required prime form
+    private static final int MIGRATION_STEP = 8; // slots of the old table moved per insert or remove
 
+    private final ProbingStrategy probing; // Probe sequence and valid table sizes
+    private final boolean incremental; // Resize incrementally instead of rehashing at once
     private Entry<K, V>[] data; // Hash table
-    private int size; // Number of FULL entries in the table
+    private Entry<K, V>[] oldData; // Table that is being moved to data (incremental resize only)
+    private int migrated; // Number of slots of oldData already moved
+    private int size; // Number of FULL entries in both tables
+    private int deleted; // Number of DELETED entries in data
 
-    // Constructor: initializes the table with default capacity
+    // Constructor: initializes the table with default capacity and quadratic probing
     public OpenHashDictionary() {
-        data = createTable(DEFAULT_CAPACITY);
+        this(ProbingStrategy.QUADRATIC);
+    }
+
+    // Constructor: initializes the table with default capacity and the given probe sequence
+    public OpenHashDictionary(ProbingStrategy probing) {
+        this(probing, false);
+    }
+
+    // Constructor: with incrementalResize the old table is kept after a resize and every
+    // following insert or remove moves MIGRATION_STEP of its slots, instead of rehashing all
+    // entries within the insert that exceeds the load factor. search does not move any, so
+    // searching while iterating is allowed (an iterator would meet moved entries again).
+    public OpenHashDictionary(ProbingStrategy probing, boolean incrementalResize) {
+        this.probing = probing;
+        this.incremental = incrementalResize;
+        data = createTable(probing.capacity(DEFAULT_CAPACITY));
         size = 0;
     }
 
-    // Creates a table with the given capacity, initializing each slot as FREE
+    // Creates a table with the given capacity, all slots FREE
     @SuppressWarnings("unchecked")
     private Entry<K, V>[] createTable(int capacity) {
-        Entry<K, V>[] table = new Entry[capacity];
-        for (int i = 0; i < capacity; i++) {
-            table[i] = new Entry<>();
-        }
-        return table;
-    }
-
-    // Hash function using positive modulo
-    private int hash(Object key) {
-        return Math.floorMod(key.hashCode(), data.length);
+        return new Entry[capacity];
     }
 
     // Resize the table when load factor is exceeded
+    // If most of the used slots are DELETED, the table is only rehashed with the same capacity
     private void resize() {
-        int newCapacity = data.length * 2;
-        // Find next valid prime of the form 4i + 3
-        while (!isValidPrime(newCapacity)) {
-            newCapacity++;
+        int newCapacity = (double) size / data.length > LOAD_FACTOR / 2 ? data.length * 2 : data.length;
+        // Next valid capacity of the probe sequence (prime of the form 4i + 3 or power of two)
+        newCapacity = probing.capacity(newCapacity);
+
+        if (incremental) {
+            // Finish a previous resize (normally already done) and start moving the entries
+            migrate(Integer.MAX_VALUE);
+            oldData = data;
+            migrated = 0;
+            data = createTable(newCapacity);
+            deleted = 0;
+            return;
         }
 
         Entry<K, V>[] oldData = data;
         data = createTable(newCapacity);
         size = 0;
+        deleted = 0;
 
         // Re-insert all active entries into the new table
         for (Entry<K, V> entry : oldData) {
-            if (entry.state == State.FULL) {
+            if (entry != null && entry.state == State.FULL) {
                 insert(entry.key, entry.value);
             }
         }
     }
 
-    // Checks if a number is a prime of the form 4i + 3
-    private boolean isValidPrime(int n) {
-        if (n % 4 != 3) return false;
-        if (n <= 1) return false;
-        if (n <= 3) return true;
-        if (n % 2 == 0 || n % 3 == 0) return false;
-        for (int i = 5; i * i <= n; i += 6) {
-            if (n % i == 0 || n % (i + 2) == 0) return false;
+    // Moves the entries of the next n slots of oldData into data.
+    // A moved slot becomes MOVED (not FREE), so the probe sequences in oldData stay intact.
+    @SuppressWarnings("unchecked")
+    private void migrate(int n) {
+        for (; n > 0 && oldData != null; n--) {
+            Entry<K, V> entry = oldData[migrated];
+            if (entry != null && entry.state == State.FULL) {
+                // the key is not in data: take the first FREE or DELETED slot
+                int hash = probing.home(entry.key.hashCode(), data.length);
+                int index = hash;
+                for (int i = 1; data[index] != null && data[index].state == State.FULL; i++) {
+                    index = probing.next(hash, index, i, data.length);
+                }
+                if (data[index] != null) {
+                    deleted--;
+                }
+                data[index] = entry;
+            }
+            oldData[migrated] = (Entry<K, V>) MOVED;
+            if (++migrated == oldData.length) {
+                oldData = null;
+            }
         }
-        return true;
+    }
+
+    // Returns the index of the FULL entry with the key in table or -1
+    private int find(Entry<K, V>[] table, Object key) {
+        int hash = probing.home(key.hashCode(), table.length);
+        int index = hash;
+
+        for (int i = 1; i <= table.length; i++) {
+            Entry<K, V> entry = table[index];
+
+            if (entry == null) return -1; // Stop if we hit an empty slot
+            if (entry.state == State.FULL && entry.key.equals(key)) return index;
+
+            index = probing.next(hash, index, i, table.length);
+        }
+        return -1;
     }
 
     // Inserts a new key-value pair or updates existing key
     @Override
     public V insert(K key, V value) {
         // Check if we need to resize based on current load
-        if ((double) size / data.length > LOAD_FACTOR) {
+        // DELETED entries count as well: a search only stops at a FREE entry
+        if ((double) (size + deleted) / data.length > LOAD_FACTOR) {
             resize();
         }
 
-        int hash = hash(key);
-        int i = 0;
-        int index;
+        if (oldData != null) {
+            migrate(MIGRATION_STEP);
+            // A key that has not been moved yet is updated in the old table
+            if (oldData != null) {
+                int index = find(oldData, key);
+                if (index >= 0) {
+                    V oldValue = oldData[index].value;
+                    oldData[index].value = value;
+                    return oldValue;
+                }
+            }
+        }
+
+        int hash = probing.home(key.hashCode(), data.length);
+        int index = hash;
         int firstDeleted = -1;
 
-        // Quadratic probing with alternating signs: +1, -1, +4, -4, +9, -9, ...
-        while (true) {
-            index = Math.floorMod(hash + (int) Math.pow(-1, i) * i * i, data.length);
+        // Probe sequence, e.g. quadratic with alternating signs: +1, -1, +4, -4, +9, -9, ...
+        // The load factor guarantees a FREE entry within data.length probes
+        for (int i = 1; ; i++) {
             Entry<K, V> entry = data[index];
 
             // Found a free spot
-            if (entry.state == State.FREE) {
-                if (firstDeleted != -1) index = firstDeleted; // reuse first deleted if found
+            if (entry == null) {
+                if (firstDeleted != -1) { // reuse first deleted if found
+                    index = firstDeleted;
+                    deleted--;
+                }
                 data[index] = new Entry<>(key, value);
                 size++;
                 return null;
@@ -125,45 +196,95 @@ public class OpenHashDictionary<K, V> implements Dictionary<K, V> {
                 return oldValue;
             }
 
-            i++;
+            index = probing.next(hash, index, i, data.length);
         }
     }
 
     // Searches for a key and returns its associated value
     @Override
     public V search(K key) {
-        int hash = hash(key);
-        int i = 0;
-
-        while (true) {
-            int index = Math.floorMod(hash + (int) Math.pow(-1, i) * i * i, data.length);
-            Entry<K, V> entry = data[index];
-
-            if (entry.state == State.FREE) return null; // Stop if we hit an empty slot
-            if (entry.state == State.FULL && entry.key.equals(key)) return entry.value;
-
-            i++;
+        int index = find(data, key);
+        if (index >= 0) {
+            return data[index].value;
         }
+        if (oldData != null) {
+            index = find(oldData, key);
+            if (index >= 0) {
+                return oldData[index].value;
+            }
+        }
+        return null;
     }
 
     // Removes an entry by marking it as DELETED
     @Override
     public V remove(K key) {
-        int hash = hash(key);
-        int i = 0;
-
-        while (true) {
-            int index = Math.floorMod(hash + (int) Math.pow(-1, i) * i * i, data.length);
+        if (oldData != null) {
+            migrate(MIGRATION_STEP);
+        }
+        int index = find(data, key);
+        if (index >= 0) {
             Entry<K, V> entry = data[index];
-
-            if (entry.state == State.FREE) return null; // Key not found
-            if (entry.state == State.FULL && entry.key.equals(key)) {
-                entry.state = State.DELETED; // Mark as deleted
+            entry.state = State.DELETED; // Mark as deleted
+            size--;
+            deleted++;
+            return entry.value;
+        }
+        if (oldData != null) {
+            index = find(oldData, key);
+            if (index >= 0) {
+                Entry<K, V> entry = oldData[index];
+                entry.state = State.DELETED; // Mark as deleted, the old table is dropped anyway
                 size--;
                 return entry.value;
             }
+        }
+        return null;
+    }
 
-            i++;
+    // Snapshot support (DictionarySnapshot): the table is written with the slot of every entry
+    // and restored without hashing or probing.
+
+    ProbingStrategy probing() {
+        return probing;
+    }
+
+    // Finishes an incremental resize and returns the capacity of the table
+    int tableCapacity() {
+        migrate(Integer.MAX_VALUE);
+        return data.length;
+    }
+
+    // Key of the FULL entry in slot i, or null
+    K keyAt(int i) {
+        return (data[i] != null && data[i].state == State.FULL) ? data[i].key : null;
+    }
+
+    V valueAt(int i) {
+        return data[i].value;
+    }
+
+    // A DELETED slot must be restored as well, probe sequences run across it
+    boolean deletedAt(int i) {
+        return data[i] != null && data[i].state == State.DELETED;
+    }
+
+    // Replaces the contents by n slots of a table with the given capacity, as written from a
+    // dictionary with the same probing strategy. A null key marks a DELETED slot.
+    @SuppressWarnings("unchecked")
+    void restore(int capacity, int[] slots, K[] keys, V[] values, int n) {
+        data = createTable(capacity);
+        oldData = null;
+        size = 0;
+        deleted = 0;
+        for (int i = 0; i < n; i++) {
+            if (keys[i] != null) {
+                data[slots[i]] = new Entry<>(keys[i], values[i]);
+                size++;
+            } else {
+                data[slots[i]] = (Entry<K, V>) MOVED; // never modified, insert replaces DELETED slots
+                deleted++;
+            }
         }
     }
 
@@ -173,26 +294,97 @@ public class OpenHashDictionary<K, V> implements Dictionary<K, V> {
         return size;
     }
 
-    // Returns an iterator over all FULL entries
+    // Returns an iterator over all FULL entries (of the old table first during an incremental resize)
     @Override
+    @SuppressWarnings("unchecked")
     public Iterator<Dictionary.Entry<K, V>> iterator() {
+        Entry<K, V>[][] tables = (oldData != null) ? new Entry[][] {oldData, data} : new Entry[][] {data};
         return new Iterator<>() {
+            int t = 0;
             int index = 0;
 
             @Override
             public boolean hasNext() {
-                while (index < data.length && data[index].state != State.FULL) {
-                    index++;
+                while (t < tables.length) {
+                    Entry<K, V>[] table = tables[t];
+                    while (index < table.length && (table[index] == null || table[index].state != State.FULL)) {
+                        index++;
+                    }
+                    if (index < table.length) {
+                        return true;
+                    }
+                    t++;
+                    index = 0;
                 }
-                return index < data.length;
+                return false;
             }
 
             @Override
             public Dictionary.Entry<K, V> next() {
                 if (!hasNext()) throw new NoSuchElementException();
-                Entry<K, V> entry = data[index++];
+                Entry<K, V> entry = tables[t][index++];
                 return new Dictionary.Entry<>(entry.key, entry.value);
             }
         };
     }
+
+    // Cursor over the FULL entries (of the old table first during an incremental resize)
+    @Override
+    public Dictionary.Cursor<K, V> cursor() {
+        return new Dictionary.Cursor<>() {
+            Entry<K, V>[] table = (oldData != null) ? oldData : data;
+            int index = -1;
+
+            @Override
+            public boolean advance() {
+                while (true) {
+                    while (++index < table.length) {
+                        Entry<K, V> entry = table[index];
+                        if (entry != null && entry.state == State.FULL) {
+                            return true;
+                        }
+                    }
+                    if (table == data) {
+                        return false;
+                    }
+                    table = data;
+                    index = -1;
+                }
+            }
+
+            @Override
+            public K key() {
+                return table[index].key;
+            }
+
+            @Override
+            public V value() {
+                return table[index].value;
+            }
+
+            @Override
+            public V setValue(V value) {
+                Entry<K, V> entry = table[index];
+                V oldValue = entry.value;
+                entry.value = value;
+                return oldValue;
+            }
+        };
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        if (oldData != null) {
+            forEach(oldData, action);
+        }
+        forEach(data, action);
+    }
+
+    private static <K, V> void forEach(Entry<K, V>[] table, BiConsumer<? super K, ? super V> action) {
+        for (Entry<K, V> entry : table) {
+            if (entry != null && entry.state == State.FULL) {
+                action.accept(entry.key, entry.value);
+            }
+        }
+    }
 }
@@ -0,0 +1,516 @@
+package aufgabe1;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+
+/**
+ * Static dictionary over a minimal perfect hash function: the n keys are mapped to the
+ * slots 0 .. n-1 without collisions, so keys and values are stored in two arrays of
+ * exactly n entries, without empty slots, chains or tombstones.
+ * <p>
+ * The hash function is built like CHD / PTHash ("hash and displace"). The hashCode of every
+ * key (cached by String) is mixed to 64 bits. The upper bits select a partition of about
+ * 8192 keys, the lower bits a bucket of about 4 keys in the partition. For every bucket the
+ * build searches a pilot:
+ * the first number p for which all keys of the bucket land in free positions
+ * (mix(hash ^ p) mapped to a table of n / 0.99 positions of the partition). The buckets
+ * are placed largest first, while the table is still empty. The positions beyond the keys
+ * of a partition are remapped to its free positions below (about 1% of the keys), which
+ * makes the function minimal. The pilots are bit-packed with the width of the largest one.
+ * The partitions are independent and are built in parallel.
+ * <p>
+ * A search mixes the hashCode of the key, reads one pilot and compares the key with the one
+ * key in its slot. An 8-bit fingerprint of the hash per slot rejects all but 1/256 of the
+ * keys that are not contained before the key array is read. No pilot can separate keys with
+ * the same hashCode (about a hundred pairs among a million Strings): only the first of them
+ * gets a slot, the others go into a small overflow dictionary, which is only searched if the
+ * key in the slot has the same hashCode as the searched key.
+ * <p>
+ * The dictionary cannot be changed after the build: insert and remove throw
+ * UnsupportedOperationException. The iterator returns the entries in slot order, then the
+ * overflow entries.
+ *
+ * @param <K> Key.
+ * @param <V> Value.
+ */
+public class PerfectHashDictionary<K, V> implements Dictionary<K, V> {
+
+    private static final int PARTITION_SIZE = 8192; // average keys per partition
+    private static final double KEYS_PER_BUCKET = 4;
+    private static final double TABLE_LOAD = 0.99; // keys / positions before the remap
+
+    private final int size;
+    private final Object[] keys; // slot order; one more null key for searches in an empty last partition
+    private final Object[] values;
+    private final byte[] fingerprints; // lowest 8 bits of the hash of the key in the slot
+    private final int partitions;
+    // per partition p: offsets[3p] first slot, offsets[3p + 1] first bucket, offsets[3p + 2]
+    // first remap entry; the next partition's offsets end the ranges
+    private final int[] offsets;
+    private final long[] pilots; // bit-packed, one more word to read two words at once
+    private final int pilotBits;
+    private final int[] remap; // position - keys of the partition -> free position
+    private final Dictionary<K, V> overflow; // keys with the hashCode of a key in a slot, or null
+
+    /**
+     * Builds the dictionary from the entries of source with one thread per processor.
+     * @param source dictionary to copy; later changes of source are not reflected.
+     */
+    public PerfectHashDictionary(Dictionary<K, ? extends V> source) {
+        this(source, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Builds the dictionary from the entries of source.
+     * @param source dictionary to copy; later changes of source are not reflected.
+     * @param threads number of threads that build the partitions.
+     */
+    @SuppressWarnings("unchecked")
+    public PerfectHashDictionary(Dictionary<K, ? extends V> source, int threads) {
+        int n = source.size();
+        Object[] srcKeys = new Object[n];
+        Object[] srcValues = new Object[n];
+        long[] hashes = new long[n];
+        int i = 0;
+        for (Entry<K, ? extends V> e : source) {
+            srcKeys[i] = e.getKey();
+            srcValues[i] = e.getValue();
+            hashes[i] = hash(e.getKey().hashCode());
+            i++;
+        }
+        size = n;
+        partitions = Math.max(1, n / PARTITION_SIZE);
+
+        // counting sort of the key indices by partition
+        int[] start = new int[partitions + 1];
+        for (long h : hashes) {
+            start[partition(h) + 1]++;
+        }
+        for (int p = 0; p < partitions; p++) {
+            start[p + 1] += start[p];
+        }
+        int[] order = new int[n];
+        int[] next = start.clone();
+        for (i = 0; i < n; i++) {
+            order[next[partition(hashes[i])]++] = i;
+        }
+
+        Partition[] built = new Partition[partitions];
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, partitions)));
+        try {
+            List<Future<Partition>> futures = new ArrayList<>(partitions);
+            for (int p = 0; p < partitions; p++) {
+                int from = start[p];
+                int to = start[p + 1];
+                futures.add(pool.submit(() -> build(order, from, to, hashes)));
+            }
+            for (int p = 0; p < partitions; p++) {
+                built[p] = futures.get(p).get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while building the perfect hash function", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // concatenate the partitions
+        Dictionary<K, V> extra = null;
+        offsets = new int[3 * partitions + 3];
+        int maxPilot = 0;
+        for (int p = 0; p < partitions; p++) {
+            Partition part = built[p];
+            offsets[3 * p + 3] = offsets[3 * p] + part.size;
+            offsets[3 * p + 4] = offsets[3 * p + 1] + part.pilots.length;
+            offsets[3 * p + 5] = offsets[3 * p + 2] + part.remap.length;
+            for (int pilot : part.pilots) {
+                maxPilot = Math.max(maxPilot, pilot);
+            }
+            for (int k : part.overflow) {
+                if (extra == null) {
+                    extra = new OpenHashDictionary<>();
+                }
+                extra.insert((K) srcKeys[k], (V) srcValues[k]);
+            }
+        }
+        overflow = extra;
+        int slots = offsets[3 * partitions];
+        keys = new Object[slots + 1];
+        values = new Object[slots + 1];
+        fingerprints = new byte[slots + 1];
+        pilotBits = Math.max(1, 32 - Integer.numberOfLeadingZeros(maxPilot));
+        int buckets = offsets[3 * partitions + 1];
+        pilots = new long[(int) (((long) buckets * pilotBits + 63) / 64) + 1];
+        remap = new int[offsets[3 * partitions + 2]];
+        for (int p = 0; p < partitions; p++) {
+            Partition part = built[p];
+            for (int b = 0; b < part.pilots.length; b++) {
+                setPilot(offsets[3 * p + 1] + b, part.pilots[b]);
+            }
+            System.arraycopy(part.remap, 0, remap, offsets[3 * p + 2], part.remap.length);
+            for (int j = 0; j < part.size; j++) {
+                keys[offsets[3 * p] + j] = srcKeys[part.slots[j]];
+                values[offsets[3 * p] + j] = srcValues[part.slots[j]];
+                fingerprints[offsets[3 * p] + j] = (byte) hashes[part.slots[j]];
+            }
+        }
+    }
+
+    /**
+     * Reads a word pair file (see WordPairLoader) into a perfect hash dictionary; a later
+     * line overwrites an earlier one with the same key.
+     * @param file word pair file.
+     * @param threads number of threads that parse the file and build the partitions.
+     * @return the dictionary.
+     * @throws IOException if the file cannot be read.
+     */
+    public static PerfectHashDictionary<String, String> read(Path file, int threads) throws IOException {
+        Dictionary<String, String> pairs = new OpenHashDictionary<>();
+        WordPairLoader.load(file, pairs, threads);
+        return new PerfectHashDictionary<>(pairs, threads);
+    }
+
+    // Result of building one partition
+    private static final class Partition {
+        final int size;
+        final int[] pilots; // per bucket
+        final int[] remap; // per position from size on: free position below size (or 0)
+        final int[] slots; // position -> index of the key in the source arrays
+        final int[] overflow; // indices of the keys without a slot
+
+        Partition(int size, int[] pilots, int[] remap, int[] slots, int[] overflow) {
+            this.size = size;
+            this.pilots = pilots;
+            this.remap = remap;
+            this.slots = slots;
+            this.overflow = overflow;
+        }
+    }
+
+    // Builds the function for the keys order[from .. to-1]
+    private static Partition build(int[] order, int from, int to, long[] hashes) {
+        int buckets = bucketCount(to - from);
+
+        // counting sort of the keys by bucket, then of the buckets by size (descending)
+        int[] bucketStart = new int[buckets + 1];
+        for (int i = from; i < to; i++) {
+            bucketStart[bucket(hashes[order[i]], buckets) + 1]++;
+        }
+        int maxBucket = 0;
+        for (int b = 0; b < buckets; b++) {
+            maxBucket = Math.max(maxBucket, bucketStart[b + 1]);
+            bucketStart[b + 1] += bucketStart[b];
+        }
+        int[] members = new int[to - from];
+        int[] next = bucketStart.clone();
+        for (int i = from; i < to; i++) {
+            int k = order[i];
+            members[next[bucket(hashes[k], buckets)]++] = k;
+        }
+        int[] overflow = removeDuplicates(members, bucketStart, hashes);
+        int n = to - from - overflow.length;
+        int m = tableSize(n);
+        int[] bySize = new int[maxBucket + 2];
+        for (int b = 0; b < buckets; b++) {
+            bySize[maxBucket - (bucketStart[b + 1] - bucketStart[b]) + 1]++;
+        }
+        for (int s = 0; s <= maxBucket; s++) {
+            bySize[s + 1] += bySize[s];
+        }
+        int[] sorted = new int[buckets];
+        for (int b = 0; b < buckets; b++) {
+            sorted[bySize[maxBucket - (bucketStart[b + 1] - bucketStart[b])]++] = b;
+        }
+
+        int[] pilots = new int[buckets];
+        int[] slots = new int[m];
+        boolean[] taken = new boolean[m];
+        int[] positions = new int[maxBucket];
+        for (int b : sorted) {
+            int first = bucketStart[b];
+            int count = bucketStart[b + 1] - first;
+            if (count == 0) {
+                break; // only empty buckets follow
+            }
+            for (int pilot = 0; ; pilot++) {
+                int placed = 0;
+                while (placed < count) {
+                    int pos = position(hashes[members[first + placed]], pilot, m);
+                    if (taken[pos]) {
+                        break;
+                    }
+                    taken[pos] = true; // also detects two keys of the bucket in one position
+                    positions[placed++] = pos;
+                }
+                if (placed == count) {
+                    pilots[b] = pilot;
+                    for (int j = 0; j < count; j++) {
+                        slots[positions[j]] = members[first + j];
+                    }
+                    break;
+                }
+                for (int j = 0; j < placed; j++) {
+                    taken[positions[j]] = false;
+                }
+            }
+        }
+
+        // the keys in the positions n .. m-1 move to the free positions below n
+        int[] remap = new int[m - n];
+        int free = 0;
+        for (int pos = n; pos < m; pos++) {
+            if (taken[pos]) {
+                while (taken[free]) {
+                    free++;
+                }
+                taken[free] = true;
+                slots[free] = slots[pos];
+                remap[pos - n] = free;
+            }
+        }
+        return new Partition(n, pilots, remap, slots, overflow);
+    }
+
+    // Keys with the same hash are in the same bucket and can never be separated by a pilot:
+    // removes all but the first of them from their bucket (members and bucketStart are
+    // compacted) and returns them
+    private static int[] removeDuplicates(int[] members, int[] bucketStart, long[] hashes) {
+        int[] removed = new int[0];
+        int to = 0;
+        for (int b = 0; b + 1 < bucketStart.length; b++) {
+            int from = to;
+            for (int i = bucketStart[b]; i < bucketStart[b + 1]; i++) {
+                int k = members[i];
+                boolean duplicate = false;
+                for (int j = from; j < to && !duplicate; j++) {
+                    duplicate = hashes[members[j]] == hashes[k];
+                }
+                if (duplicate) {
+                    removed = Arrays.copyOf(removed, removed.length + 1);
+                    removed[removed.length - 1] = k;
+                } else {
+                    members[to++] = k;
+                }
+            }
+            bucketStart[b] = from;
+        }
+        bucketStart[bucketStart.length - 1] = to;
+        return removed;
+    }
+
+    // 64-bit hash of a hashCode (a bijection, so only equal hash codes collide)
+    private static long hash(int hashCode) {
+        return mix(hashCode * 0x9E3779B97F4A7C15L);
+    }
+
+    // murmur3 finalizer
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    // The upper 32 bits of h select the partition (multiply-shift instead of a modulo)
+    private int partition(long h) {
+        return (int) (((h >>> 32) * partitions) >>> 32);
+    }
+
+    // The lower 32 bits of h select the bucket in the partition
+    private static int bucket(long h, int buckets) {
+        return (int) (((h & 0xFFFFFFFFL) * buckets) >>> 32);
+    }
+
+    private static int position(long h, int pilot, int tableSize) {
+        return (int) (((mix(h ^ (pilot * 0xC2B2AE3D27D4EB4FL)) >>> 32) * tableSize) >>> 32);
+    }
+
+    private static int tableSize(int n) {
+        return Math.max(1, (int) Math.ceil(n / TABLE_LOAD));
+    }
+
+    private static int bucketCount(int n) {
+        return Math.max(1, (int) Math.ceil(n / KEYS_PER_BUCKET));
+    }
+
+    private void setPilot(int index, int pilot) {
+        long bit = (long) index * pilotBits;
+        int word = (int) (bit >>> 6);
+        int shift = (int) bit & 63;
+        pilots[word] |= (long) pilot << shift;
+        if (shift + pilotBits > 64) {
+            pilots[word + 1] |= (long) pilot >>> (64 - shift);
+        }
+    }
+
+    private int pilot(int index) {
+        long bit = (long) index * pilotBits;
+        int word = (int) (bit >>> 6);
+        int shift = (int) bit & 63;
+        // the second word supplies the bits above 64 - shift (none for shift 0)
+        long value = (pilots[word] >>> shift) | (pilots[word + 1] << 1 << (63 - shift));
+        return (int) (value & ((1L << pilotBits) - 1));
+    }
+
+    // Returns the slot where a key with the hash h must be, if it is contained
+    private int slot(long h) {
+        int p = 3 * partition(h);
+        int first = offsets[p];
+        int n = offsets[p + 3] - first;
+        int m = n + offsets[p + 5] - offsets[p + 2];
+        int bucket = bucket(h, offsets[p + 4] - offsets[p + 1]);
+        int pos = position(h, pilot(offsets[p + 1] + bucket), m);
+        if (pos >= n) {
+            pos = remap[offsets[p + 2] + pos - n];
+        }
+        return first + pos;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V search(K key) {
+        int h = key.hashCode();
+        long x = hash(h);
+        int slot = slot(x);
+        if (fingerprints[slot] != (byte) x) {
+            return null; // a key with the same hashCode in the overflow would have the same fingerprint
+        }
+        Object k = keys[slot];
+        if (key.equals(k)) {
+            return (V) values[slot];
+        }
+        return (overflow != null && k != null && k.hashCode() == h) ? overflow.search(key) : null;
+    }
+
+    @Override
+    public V insert(K key, V value) {
+        throw new UnsupportedOperationException("PerfectHashDictionary is read-only");
+    }
+
+    @Override
+    public V remove(K key) {
+        throw new UnsupportedOperationException("PerfectHashDictionary is read-only");
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return number of keys in the overflow dictionary (keys with the hashCode of another key).
+     */
+    public int overflowSize() {
+        return overflow == null ? 0 : overflow.size();
+    }
+
+    /**
+     * @return bits per key of the hash function (pilots, remap and partition offsets),
+     *      without the fingerprints (8 bits per key) and the key and value arrays.
+     */
+    public double bitsPerKey() {
+        long bits = 64L * pilots.length + 32L * remap.length + 32L * offsets.length;
+        return size == 0 ? 0 : (double) bits / size;
+    }
+
+    @Override
+    public Iterator<Entry<K, V>> iterator() {
+        int slots = keys.length - 1;
+        return new Iterator<>() {
+            int slot = 0;
+            Iterator<Entry<K, V>> rest = (overflow != null) ? overflow.iterator() : null;
+
+            @Override
+            public boolean hasNext() {
+                return slot < slots || (rest != null && rest.hasNext());
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public Entry<K, V> next() {
+                if (slot == slots) {
+                    if (rest == null) throw new NoSuchElementException();
+                    return rest.next();
+                }
+                Entry<K, V> entry = new Entry<>((K) keys[slot], (V) values[slot]);
+                slot++;
+                return entry;
+            }
+        };
+    }
+
+    // Cursor over the slots, then the overflow entries
+    @Override
+    public Cursor<K, V> cursor() {
+        int slots = keys.length - 1;
+        return new Cursor<>() {
+            int slot = -1;
+            Cursor<K, V> rest; // of the overflow dictionary, after the slots
+
+            @Override
+            public boolean advance() {
+                if (slot < slots && ++slot < slots) {
+                    return true;
+                }
+                if (rest == null) {
+                    if (overflow == null) {
+                        return false;
+                    }
+                    rest = overflow.cursor();
+                }
+                return rest.advance();
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public K key() {
+                return slot < slots ? (K) keys[slot] : rest.key();
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public V value() {
+                return slot < slots ? (V) values[slot] : rest.value();
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public V setValue(V value) {
+                if (slot < slots) {
+                    V oldValue = (V) values[slot];
+                    values[slot] = value;
+                    return oldValue;
+                }
+                return rest.setValue(value);
+            }
+        };
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        for (int slot = 0; slot < keys.length - 1; slot++) {
+            action.accept((K) keys[slot], (V) values[slot]);
+        }
+        if (overflow != null) {
+            overflow.forEach(action);
+        }
+    }
+}
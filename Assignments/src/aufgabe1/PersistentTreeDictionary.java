@@ -0,0 +1,225 @@
+package aufgabe1;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Persistent AVL tree: the nodes are immutable and have no parent reference.
+ * <p>
+ * insert and remove copy only the nodes on the path from the root to the changed node
+ * (O(log n) new nodes) and share all other subtrees with the previous version. The new
+ * root is published with a compareAndSet on an AtomicReference; a writer that loses the
+ * race against another writer simply repeats its operation on the newer root.
+ * <p>
+ * Readers never block and never see a partial update: search reads the root once and
+ * then works on an immutable tree. snapshot() returns an independent dictionary in O(1)
+ * that keeps the current version (later changes of either dictionary are not visible in
+ * the other one), and an iterator always iterates over the version at its creation.
+ *
+ * @param <K> Key.
+ * @param <V> Value.
+ */
+public class PersistentTreeDictionary<K extends Comparable<? super K>, V> implements Dictionary<K, V> {
+
+    private static final class Node<K, V> {
+        final K key;
+        final V value;
+        final Node<K, V> left;
+        final Node<K, V> right;
+        final int height; // 1 for a leaf
+        final int count; // number of nodes in the subtree
+
+        Node(Node<K, V> left, K key, V value, Node<K, V> right) {
+            this.key = key;
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            height = Math.max(height(left), height(right)) + 1;
+            count = count(left) + count(right) + 1;
+        }
+    }
+
+    private final AtomicReference<Node<K, V>> root;
+
+    public PersistentTreeDictionary() {
+        this(null);
+    }
+
+    private PersistentTreeDictionary(Node<K, V> root) {
+        this.root = new AtomicReference<>(root);
+    }
+
+    /**
+     * Returns a dictionary with the current entries in O(1). It shares all nodes with this
+     * dictionary; changes of one of them are not visible in the other.
+     * @return snapshot of the current version.
+     */
+    public PersistentTreeDictionary<K, V> snapshot() {
+        return new PersistentTreeDictionary<>(root.get());
+    }
+
+    private static int height(Node<?, ?> p) {
+        return (p == null) ? 0 : p.height;
+    }
+
+    private static int count(Node<?, ?> p) {
+        return (p == null) ? 0 : p.count;
+    }
+
+    // Returns a new node with the subtrees l and r, rotated if their heights differ by 2
+    private static <K, V> Node<K, V> balance(Node<K, V> l, K key, V value, Node<K, V> r) {
+        int hl = height(l);
+        int hr = height(r);
+        if (hl > hr + 1) {
+            if (height(l.left) >= height(l.right)) {
+                // right rotation
+                return new Node<>(l.left, l.key, l.value, new Node<>(l.right, key, value, r));
+            }
+            // left-right rotation
+            Node<K, V> lr = l.right;
+            return new Node<>(new Node<>(l.left, l.key, l.value, lr.left), lr.key, lr.value,
+                    new Node<>(lr.right, key, value, r));
+        }
+        if (hr > hl + 1) {
+            if (height(r.right) >= height(r.left)) {
+                // left rotation
+                return new Node<>(new Node<>(l, key, value, r.left), r.key, r.value, r.right);
+            }
+            // right-left rotation
+            Node<K, V> rl = r.left;
+            return new Node<>(new Node<>(l, key, value, rl.left), rl.key, rl.value,
+                    new Node<>(rl.right, r.key, r.value, r.right));
+        }
+        return new Node<>(l, key, value, r);
+    }
+
+    private Node<K, V> find(Node<K, V> p, K key) {
+        while (p != null) {
+            int cmp = key.compareTo(p.key);
+            if (cmp == 0) {
+                return p;
+            }
+            p = (cmp < 0) ? p.left : p.right;
+        }
+        return null;
+    }
+
+    @Override
+    public V search(K key) {
+        Node<K, V> p = find(root.get(), key);
+        return (p != null) ? p.value : null;
+    }
+
+    @Override
+    public V insert(K key, V value) {
+        while (true) {
+            Node<K, V> r = root.get();
+            Node<K, V> p = find(r, key);
+            if (p != null && p.value == value) {
+                return value; // nothing changes
+            }
+            if (root.compareAndSet(r, insert(r, key, value))) {
+                return (p != null) ? p.value : null;
+            }
+        }
+    }
+
+    // Returns the root of a new version of subtree p that contains the entry
+    private Node<K, V> insert(Node<K, V> p, K key, V value) {
+        if (p == null) {
+            return new Node<>(null, key, value, null);
+        }
+        int cmp = key.compareTo(p.key);
+        if (cmp < 0) {
+            return balance(insert(p.left, key, value), p.key, p.value, p.right);
+        } else if (cmp > 0) {
+            return balance(p.left, p.key, p.value, insert(p.right, key, value));
+        } else {
+            return new Node<>(p.left, key, value, p.right);
+        }
+    }
+
+    @Override
+    public V remove(K key) {
+        while (true) {
+            Node<K, V> r = root.get();
+            Node<K, V> p = find(r, key);
+            if (p == null) {
+                return null;
+            }
+            if (root.compareAndSet(r, remove(r, key))) {
+                return p.value;
+            }
+        }
+    }
+
+    // Returns the root of a new version of subtree p without key (key is contained in p)
+    private Node<K, V> remove(Node<K, V> p, K key) {
+        int cmp = key.compareTo(p.key);
+        if (cmp < 0) {
+            return balance(remove(p.left, key), p.key, p.value, p.right);
+        } else if (cmp > 0) {
+            return balance(p.left, p.key, p.value, remove(p.right, key));
+        }
+        if (p.left == null) {
+            return p.right;
+        }
+        if (p.right == null) {
+            return p.left;
+        }
+        // replace the entry by its successor
+        Node<K, V> min = p.right;
+        while (min.left != null) {
+            min = min.left;
+        }
+        return balance(p.left, min.key, min.value, removeMin(p.right));
+    }
+
+    private Node<K, V> removeMin(Node<K, V> p) {
+        if (p.left == null) {
+            return p.right;
+        }
+        return balance(removeMin(p.left), p.key, p.value, p.right);
+    }
+
+    @Override
+    public int size() {
+        return count(root.get());
+    }
+
+    /**
+     * Returns the entries of the current version in ascending key order.
+     * Changes after the creation of the iterator are not visible.
+     */
+    @Override
+    public Iterator<Entry<K, V>> iterator() {
+        Node<K, V> r = root.get();
+        return new Iterator<>() {
+            // path to the next node (without parent references the iterator keeps its own stack)
+            @SuppressWarnings("unchecked")
+            final Node<K, V>[] stack = new Node[height(r)];
+            int top = pushLeft(r, 0);
+
+            private int pushLeft(Node<K, V> p, int top) {
+                for (; p != null; p = p.left) {
+                    stack[top++] = p;
+                }
+                return top;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return top > 0;
+            }
+
+            @Override
+            public Entry<K, V> next() {
+                if (top == 0) throw new NoSuchElementException();
+                Node<K, V> p = stack[--top];
+                top = pushLeft(p.right, top);
+                return new Entry<>(p.key, p.value);
+            }
+        };
+    }
+}
@@ -0,0 +1,493 @@
+package aufgabe1;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Benchmark of the primitive dictionaries (IntIntOpenHashDictionary, IntObjOpenHashDictionary,
+ * LongObjOpenHashDictionary) against the generic open hash dictionaries with boxed keys.
+ * <p>
+ * The keys are distinct random ints (for the long-keyed dictionaries spread to longs), the
+ * values are ints >= 128, so that autoboxing allocates (Integer.valueOf only caches -128 ..
+ * 127). The generic dictionaries get key and value boxed on every call, like code that passes
+ * ints to a Dictionary&lt;Integer, Integer&gt;; IntObj and LongObj only box the value.
+ * The workloads and the measurement are those of {@link DictionaryBenchmark}; the additional
+ * column "heap B/e" is the heap retained per entry after the load (table and boxes).
+ * <p>
+ * Options (all optional):
+ * <pre>
+ *   -impl      comma separated implementation names (default: all)
+ *   -workload  comma separated workloads: insert, read, lookup, remove (default: all)
+ *   -sizes     comma separated number of preloaded entries (default: 1000,100000,1000000)
+ *   -hit       fraction of searches for a contained key (default: 0.5)
+ *   -ops       operations per measured iteration (default: 1000000)
+ *   -warmup    number of warm-up iterations (default: 3)
+ *   -iter      number of measured iterations (default: 5)
+ * </pre>
+ */
+public class PrimitiveDictionaryBenchmark {
+
+    // A dictionary under test with its own loops over the operations, so that every
+    // implementation is called from a monomorphic call site
+    private interface Target {
+        void load(int[] keys, int[] values);
+
+        long run(byte[] ops, int[] keys, int[] values); // returns the number of found keys
+
+        int size();
+    }
+
+    private static final Map<String, Supplier<Target>> IMPLEMENTATIONS = new LinkedHashMap<>();
+
+    static {
+        IMPLEMENTATIONS.put("OpenHash", () -> new BoxedTarget(new OpenHashDictionary<>()));
+        IMPLEMENTATIONS.put("FlatOpenHash", () -> new BoxedTarget(new FlatOpenHashDictionary<>()));
+        IMPLEMENTATIONS.put("IntInt", IntIntTarget::new);
+        IMPLEMENTATIONS.put("IntObj", IntObjTarget::new);
+        IMPLEMENTATIONS.put("OpenHash-long", () -> new BoxedLongTarget(new OpenHashDictionary<>()));
+        IMPLEMENTATIONS.put("FlatOpenHash-long", () -> new BoxedLongTarget(new FlatOpenHashDictionary<>()));
+        IMPLEMENTATIONS.put("LongObj", LongObjTarget::new);
+    }
+
+    // Operation codes of a generated workload
+    private static final byte INSERT = 0;
+    private static final byte SEARCH = 1;
+    private static final byte REMOVE = 2;
+
+    private enum Workload {
+        INSERT_HEAVY("insert", 80, 15),
+        READ_HEAVY("read", 5, 90),
+        LOOKUP("lookup", 0, 100),
+        REMOVE_HEAVY("remove", 45, 10);
+
+        final String name;
+        final int insertPercent;
+        final int searchPercent; // the rest are removes
+
+        Workload(String name, int insertPercent, int searchPercent) {
+            this.name = name;
+            this.insertPercent = insertPercent;
+            this.searchPercent = searchPercent;
+        }
+
+        static Workload byName(String name) {
+            for (Workload w : values()) {
+                if (w.name.equals(name)) {
+                    return w;
+                }
+            }
+            throw new IllegalArgumentException("Unknown workload: " + name);
+        }
+    }
+
+    // Pre-generated input: the entries loaded before the measurement and the measured operations
+    private static class Input {
+        final int[] loadKeys;
+        final int[] loadValues;
+        final byte[] ops;
+        final int[] opKeys;
+        final int[] opValues;
+
+        Input(int[] loadKeys, int[] loadValues, byte[] ops, int[] opKeys, int[] opValues) {
+            this.loadKeys = loadKeys;
+            this.loadValues = loadValues;
+            this.ops = ops;
+            this.opKeys = opKeys;
+            this.opValues = opValues;
+        }
+    }
+
+    private static String[] implNames = IMPLEMENTATIONS.keySet().toArray(new String[0]);
+    private static Workload[] workloads = Workload.values();
+    private static int[] sizes = {1_000, 100_000, 1_000_000};
+    private static double hitRatio = 0.5;
+    private static int opCount = 1_000_000;
+    private static int warmup = 3;
+    private static int iterations = 5;
+
+    // Consumes search results so that the JIT cannot eliminate the operations
+    private static long sink;
+
+    public static void main(String[] args) {
+        parseArgs(args);
+        System.out.printf("warmup=%d iterations=%d ops=%d hit=%.2f%n", warmup, iterations, opCount, hitRatio);
+        System.out.printf("%-18s %-8s %10s %10s %10s %10s %8s %10s %6s%n",
+                "impl", "workload", "size", "load ms", "ns/op", "+/- ns", "B/op", "heap B/e", "gc");
+        for (Workload w : workloads) {
+            for (int size : sizes) {
+                Input input = generate(w, size, opCount, hitRatio, 42);
+                for (String name : implNames) {
+                    run(name, w, size, input);
+                }
+            }
+        }
+        System.out.println("sink: " + sink);
+    }
+
+    private static void parseArgs(String[] args) {
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "-impl":
+                    implNames = value.split(",");
+                    for (String name : implNames) {
+                        if (!IMPLEMENTATIONS.containsKey(name)) {
+                            throw new IllegalArgumentException("Unknown implementation: " + name
+                                    + " (known: " + IMPLEMENTATIONS.keySet() + ")");
+                        }
+                    }
+                    break;
+                case "-workload":
+                    workloads = Arrays.stream(value.split(",")).map(Workload::byName).toArray(Workload[]::new);
+                    break;
+                case "-sizes":
+                    sizes = Arrays.stream(value.split(",")).mapToInt(Integer::parseInt).toArray();
+                    break;
+                case "-hit":
+                    hitRatio = Double.parseDouble(value);
+                    break;
+                case "-ops":
+                    opCount = Integer.parseInt(value);
+                    break;
+                case "-warmup":
+                    warmup = Integer.parseInt(value);
+                    break;
+                case "-iter":
+                    iterations = Integer.parseInt(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+    }
+
+    // Generates size distinct random keys to preload and opCount operations following the
+    // percentages of the workload (like DictionaryBenchmark.generate). The keys are never
+    // 0 or Integer.MIN_VALUE, which the primitive dictionaries store outside the table.
+    private static Input generate(Workload w, int size, int opCount, double hitRatio, long seed) {
+        Random rnd = new Random(seed);
+        IntIntOpenHashDictionary used = new IntIntOpenHashDictionary(size + opCount);
+        int[] live = new int[size + opCount];
+        int liveCount = 0;
+        int[] loadKeys = new int[size];
+        int[] loadValues = new int[size];
+        for (int i = 0; i < size; i++) {
+            loadKeys[i] = newKey(rnd, used);
+            loadValues[i] = value(rnd);
+            live[liveCount++] = loadKeys[i];
+        }
+
+        byte[] ops = new byte[opCount];
+        int[] opKeys = new int[opCount];
+        int[] opValues = new int[opCount];
+        for (int i = 0; i < opCount; i++) {
+            int r = rnd.nextInt(100);
+            if (r < w.insertPercent) {
+                ops[i] = INSERT;
+                opKeys[i] = newKey(rnd, used);
+                opValues[i] = value(rnd);
+                live[liveCount++] = opKeys[i];
+            } else if (r < w.insertPercent + w.searchPercent) {
+                ops[i] = SEARCH;
+                boolean hit = liveCount > 0 && rnd.nextDouble() < hitRatio;
+                opKeys[i] = hit ? live[rnd.nextInt(liveCount)] : newKey(rnd, used);
+            } else {
+                ops[i] = REMOVE;
+                if (liveCount > 0) {
+                    int j = rnd.nextInt(liveCount);
+                    opKeys[i] = live[j];
+                    live[j] = live[--liveCount];
+                } else {
+                    opKeys[i] = newKey(rnd, used);
+                }
+            }
+        }
+        return new Input(loadKeys, loadValues, ops, opKeys, opValues);
+    }
+
+    // A random key that has not been used before
+    private static int newKey(Random rnd, IntIntOpenHashDictionary used) {
+        int key;
+        do {
+            key = rnd.nextInt();
+        } while (key == 0 || key == Integer.MIN_VALUE || used.insertInt(key, 1) != 0);
+        return key;
+    }
+
+    private static int value(Random rnd) {
+        return 128 + rnd.nextInt(1 << 20);
+    }
+
+    private static void run(String name, Workload w, int size, Input input) {
+        for (int i = 0; i < warmup; i++) {
+            runIteration(name, input, null, i);
+        }
+        double[] loadNanos = new double[iterations];
+        double[] opNanos = new double[iterations];
+        long[] counters = new long[3]; // allocated bytes, gc count, retained bytes
+        for (int i = 0; i < iterations; i++) {
+            long[] r = runIteration(name, input, counters, i);
+            loadNanos[i] = r[0];
+            opNanos[i] = r[1];
+        }
+        double[] nsPerOp = new double[iterations];
+        for (int i = 0; i < iterations; i++) {
+            nsPerOp[i] = opNanos[i] / input.ops.length;
+        }
+        double mean = DictionaryBenchmark.mean(nsPerOp);
+        System.out.printf("%-18s %-8s %10d %10.2f %10.1f %10.1f %8.1f %10.1f %6d%n",
+                name, w.name, size,
+                DictionaryBenchmark.mean(loadNanos) / 1e6,
+                mean,
+                DictionaryBenchmark.stdDev(nsPerOp, mean),
+                DictionaryBenchmark.allocatedBytesSupported()
+                        ? (double) counters[0] / ((long) input.ops.length * iterations) : Double.NaN,
+                size == 0 ? 0 : (double) counters[2] / ((long) size * iterations),
+                counters[1]);
+    }
+
+    // Returns load and operation nanos; adds the counters of a measured iteration
+    private static long[] runIteration(String name, Input input, long[] counters, int iteration) {
+        System.gc();
+        long heapBefore = usedHeap();
+        Target target = IMPLEMENTATIONS.get(name).get();
+        long start = System.nanoTime();
+        target.load(input.loadKeys, input.loadValues);
+        long loadNanos = System.nanoTime() - start;
+        long retained = 0;
+        if (counters != null) {
+            System.gc();
+            retained = usedHeap() - heapBefore;
+        }
+
+        long gcCountBefore = DictionaryBenchmark.gcCount();
+        long allocatedBefore = DictionaryBenchmark.allocatedBytes();
+        start = System.nanoTime();
+        long found = target.run(input.ops, input.opKeys, input.opValues);
+        long opNanos = System.nanoTime() - start;
+        long allocated = DictionaryBenchmark.allocatedBytes() - allocatedBefore;
+        sink += found + target.size();
+        if (counters != null) {
+            counters[0] += allocated;
+            counters[1] += DictionaryBenchmark.gcCount() - gcCountBefore;
+            counters[2] += retained;
+        }
+        return new long[] {loadNanos, opNanos};
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    // Spreads an int key over 64 bits for the long-keyed dictionaries (distinct for distinct ints)
+    private static long longKey(int key) {
+        return key * 0x9E3779B97F4A7C15L;
+    }
+
+    private static class BoxedTarget implements Target {
+        final Dictionary<Integer, Integer> dict;
+
+        BoxedTarget(Dictionary<Integer, Integer> dict) {
+            this.dict = dict;
+        }
+
+        @Override
+        public void load(int[] keys, int[] values) {
+            for (int i = 0; i < keys.length; i++) {
+                dict.insert(keys[i], values[i]);
+            }
+        }
+
+        @Override
+        public long run(byte[] ops, int[] keys, int[] values) {
+            long found = 0;
+            for (int i = 0; i < ops.length; i++) {
+                Integer v;
+                switch (ops[i]) {
+                    case INSERT:
+                        v = dict.insert(keys[i], values[i]);
+                        break;
+                    case SEARCH:
+                        v = dict.search(keys[i]);
+                        break;
+                    default:
+                        v = dict.remove(keys[i]);
+                        break;
+                }
+                if (v != null) {
+                    found++;
+                }
+            }
+            return found;
+        }
+
+        @Override
+        public int size() {
+            return dict.size();
+        }
+    }
+
+    private static class BoxedLongTarget implements Target {
+        final Dictionary<Long, Integer> dict;
+
+        BoxedLongTarget(Dictionary<Long, Integer> dict) {
+            this.dict = dict;
+        }
+
+        @Override
+        public void load(int[] keys, int[] values) {
+            for (int i = 0; i < keys.length; i++) {
+                dict.insert(longKey(keys[i]), values[i]);
+            }
+        }
+
+        @Override
+        public long run(byte[] ops, int[] keys, int[] values) {
+            long found = 0;
+            for (int i = 0; i < ops.length; i++) {
+                Integer v;
+                switch (ops[i]) {
+                    case INSERT:
+                        v = dict.insert(longKey(keys[i]), values[i]);
+                        break;
+                    case SEARCH:
+                        v = dict.search(longKey(keys[i]));
+                        break;
+                    default:
+                        v = dict.remove(longKey(keys[i]));
+                        break;
+                }
+                if (v != null) {
+                    found++;
+                }
+            }
+            return found;
+        }
+
+        @Override
+        public int size() {
+            return dict.size();
+        }
+    }
+
+    private static class IntIntTarget implements Target {
+        final IntIntOpenHashDictionary dict = new IntIntOpenHashDictionary(0, -1);
+
+        @Override
+        public void load(int[] keys, int[] values) {
+            for (int i = 0; i < keys.length; i++) {
+                dict.insertInt(keys[i], values[i]);
+            }
+        }
+
+        @Override
+        public long run(byte[] ops, int[] keys, int[] values) {
+            long found = 0;
+            for (int i = 0; i < ops.length; i++) {
+                int v;
+                switch (ops[i]) {
+                    case INSERT:
+                        v = dict.insertInt(keys[i], values[i]);
+                        break;
+                    case SEARCH:
+                        v = dict.searchInt(keys[i]);
+                        break;
+                    default:
+                        v = dict.removeInt(keys[i]);
+                        break;
+                }
+                if (v != -1) {
+                    found++;
+                }
+            }
+            return found;
+        }
+
+        @Override
+        public int size() {
+            return dict.size();
+        }
+    }
+
+    private static class IntObjTarget implements Target {
+        final IntObjOpenHashDictionary<Integer> dict = new IntObjOpenHashDictionary<>();
+
+        @Override
+        public void load(int[] keys, int[] values) {
+            for (int i = 0; i < keys.length; i++) {
+                dict.insertInt(keys[i], Integer.valueOf(values[i]));
+            }
+        }
+
+        @Override
+        public long run(byte[] ops, int[] keys, int[] values) {
+            long found = 0;
+            for (int i = 0; i < ops.length; i++) {
+                Integer v;
+                switch (ops[i]) {
+                    case INSERT:
+                        v = dict.insertInt(keys[i], Integer.valueOf(values[i]));
+                        break;
+                    case SEARCH:
+                        v = dict.searchInt(keys[i]);
+                        break;
+                    default:
+                        v = dict.removeInt(keys[i]);
+                        break;
+                }
+                if (v != null) {
+                    found++;
+                }
+            }
+            return found;
+        }
+
+        @Override
+        public int size() {
+            return dict.size();
+        }
+    }
+
+    private static class LongObjTarget implements Target {
+        final LongObjOpenHashDictionary<Integer> dict = new LongObjOpenHashDictionary<>();
+
+        @Override
+        public void load(int[] keys, int[] values) {
+            for (int i = 0; i < keys.length; i++) {
+                dict.insertLong(longKey(keys[i]), Integer.valueOf(values[i]));
+            }
+        }
+
+        @Override
+        public long run(byte[] ops, int[] keys, int[] values) {
+            long found = 0;
+            for (int i = 0; i < ops.length; i++) {
+                Integer v;
+                switch (ops[i]) {
+                    case INSERT:
+                        v = dict.insertLong(longKey(keys[i]), Integer.valueOf(values[i]));
+                        break;
+                    case SEARCH:
+                        v = dict.searchLong(longKey(keys[i]));
+                        break;
+                    default:
+                        v = dict.removeLong(longKey(keys[i]));
+                        break;
+                }
+                if (v != null) {
+                    found++;
+                }
+            }
+            return found;
+        }
+
+        @Override
+        public int size() {
+            return dict.size();
+        }
+    }
+}
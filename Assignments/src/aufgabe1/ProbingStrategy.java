@@ -0,0 +1,161 @@
+package aufgabe1;
+
+/**
+ * Probe sequence for the open addressing hash dictionaries.
+ * <p>
+ * A strategy determines the valid table capacities, the home slot of a hash code and
+ * how the next slot is computed from the previous one. The next slot is computed
+ * incrementally with integer additions only; within capacity probes every slot
+ * of the table is visited.
+ * <p>
+ * Available strategies:
+ * <ul>
+ *     <li>{@link #QUADRATIC}: h, h+1, h-1, h+4, h-4, ... over primes of the form 4k + 3</li>
+ *     <li>{@link #LINEAR}: h, h+1, h+2, ... over powers of two</li>
+ *     <li>{@link #TRIANGULAR}: h, h+1, h+3, h+6, ... over powers of two</li>
+ * </ul>
+ */
+public interface ProbingStrategy {
+
+    /**
+     * Returns the smallest capacity that is valid for this strategy and not less than n.
+     * @param n minimal capacity.
+     * @return valid capacity >= n.
+     */
+    int capacity(int n);
+
+    /**
+     * Returns the first slot of the probe sequence.
+     * @param hashCode hash code of the key.
+     * @param capacity table capacity (a valid capacity of this strategy).
+     * @return home slot in 0 .. capacity-1.
+     */
+    int home(int hashCode, int capacity);
+
+    /**
+     * Returns the i-th slot of the probe sequence.
+     * @param home home slot (0-th slot).
+     * @param previous the (i-1)-th slot.
+     * @param i number of the probe, i >= 1.
+     * @param capacity table capacity.
+     * @return i-th slot in 0 .. capacity-1.
+     */
+    int next(int home, int previous, int i, int capacity);
+
+    /**
+     * Alternating quadratic probing over primes of the form 4k + 3.
+     * The offsets +j*j and -j*j are derived from the previous slot:
+     * s(2j-1) = 2h - s(2j-2) + 2j-1 and s(2j) = 2h - s(2j-1).
+     */
+    ProbingStrategy QUADRATIC = new ProbingStrategy() {
+        @Override
+        public int capacity(int n) {
+            while (!isValidPrime(n)) {
+                n++;
+            }
+            return n;
+        }
+
+        private boolean isValidPrime(int n) {
+            if (n % 4 != 3) return false;
+            if (n <= 3) return n == 3;
+            if (n % 2 == 0 || n % 3 == 0) return false;
+            for (int i = 5; i * i <= n; i += 6) {
+                if (n % i == 0 || n % (i + 2) == 0) return false;
+            }
+            return true;
+        }
+
+        @Override
+        public int home(int hashCode, int capacity) {
+            return Math.floorMod(hashCode, capacity);
+        }
+
+        @Override
+        public int next(int home, int previous, int i, int capacity) {
+            long s = 2L * home - previous + ((i & 1) == 1 ? i : 0);
+            while (s >= capacity) {
+                s -= capacity;
+            }
+            while (s < 0) {
+                s += capacity;
+            }
+            return (int) s;
+        }
+
+        @Override
+        public String toString() {
+            return "quadratic";
+        }
+    };
+
+    /**
+     * Linear probing over powers of two; the modulo is a mask.
+     */
+    ProbingStrategy LINEAR = new ProbingStrategy() {
+        @Override
+        public int capacity(int n) {
+            return powerOfTwo(n);
+        }
+
+        @Override
+        public int home(int hashCode, int capacity) {
+            return spread(hashCode) & (capacity - 1);
+        }
+
+        @Override
+        public int next(int home, int previous, int i, int capacity) {
+            return (previous + 1) & (capacity - 1);
+        }
+
+        @Override
+        public String toString() {
+            return "linear";
+        }
+    };
+
+    /**
+     * Probing with triangular numbers i*(i+1)/2 over powers of two;
+     * the i-th slot is the previous slot plus i.
+     */
+    ProbingStrategy TRIANGULAR = new ProbingStrategy() {
+        @Override
+        public int capacity(int n) {
+            return powerOfTwo(n);
+        }
+
+        @Override
+        public int home(int hashCode, int capacity) {
+            return spread(hashCode) & (capacity - 1);
+        }
+
+        @Override
+        public int next(int home, int previous, int i, int capacity) {
+            return (previous + i) & (capacity - 1);
+        }
+
+        @Override
+        public String toString() {
+            return "triangular";
+        }
+    };
+
+    /**
+     * Smallest power of two >= n.
+     * @param n positive number.
+     * @return power of two.
+     */
+    static int powerOfTwo(int n) {
+        return n <= 1 ? 1 : Integer.highestOneBit(n - 1) << 1;
+    }
+
+    /**
+     * Mixes the high bits of the hash code into the low bits,
+     * which alone select the slot of a power of two table.
+     * @param h hash code.
+     * @return mixed hash code.
+     */
+    static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,746 @@
+package aufgabe1;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * Dictionary for String keys as compressed trie (radix tree).
+ * <p>
+ * Every edge is labeled with a non-empty string, the children of a node start with
+ * different characters, and a node without an entry has at least two children (chains
+ * are merged into one edge). A search compares every character of the key once and visits
+ * one node per edge; it never hashes or compares the full key.
+ * <p>
+ * The keys themselves are not stored. All edge labels are ranges (offset, length) of one
+ * character array of the dictionary, so a new key only adds the characters behind its
+ * longest prefix that is already in the trie, and splitting an edge copies no characters.
+ * The keys are reconstructed from the path while iterating. Characters of removed labels
+ * are reclaimed by compacting the array once they make up half of it.
+ * <p>
+ * As in an adaptive radix tree, the node type depends on the number of children: a leaf
+ * has no child arrays, a sparse node keeps its children sorted by their first character
+ * (binary search), and a node with more than 16 children below character 256 becomes a
+ * dense node, which finds them with one array access.
+ * <p>
+ * Additionally to the Dictionary operations there are prefix queries (prefixIterator,
+ * longestPrefixMatch, autocomplete) and fuzzySearch for misspelled keys. The iterators return the entries in ascending key
+ * order (String.compareTo). null values are not allowed.
+ *
+ * @param <V> Value.
+ */
+public class RadixTreeDictionary<V> implements Dictionary<String, V> {
+
+    private static final int DENSE_THRESHOLD = 16; // more children below DENSE_SIZE: dense node
+    private static final int DENSE_SIZE = 256; // characters that the table of a dense node covers
+    private static final int MIN_COMPACT = 1 << 12; // no compaction below this number of label characters
+
+    // Leaf: label = labels[offset, offset + length), value null = no entry
+    private static class Node<V> {
+        int offset;
+        int length;
+        V value;
+
+        Node(int offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+
+        Node<V> child(char c) {
+            return null;
+        }
+
+        int childCount() {
+            return 0;
+        }
+
+        // Appends the children in ascending order of their first character
+        void children(List<Node<V>> list) {
+        }
+
+        // Adds the child with first character c or replaces the child with c.
+        // Returns the node that replaces this one if it had to change its type, otherwise this.
+        Node<V> put(char c, Node<V> child) {
+            Node<V> node = new SparseNode<>(offset, length);
+            node.value = value;
+            return node.put(c, child);
+        }
+
+        void removeChild(char c) {
+            throw new IllegalStateException();
+        }
+    }
+
+    // Node with a sorted array of children
+    private static class SparseNode<V> extends Node<V> {
+        char[] chars; // first characters of the children, sorted
+        Node<V>[] children;
+        int count;
+
+        SparseNode(int offset, int length) {
+            super(offset, length);
+        }
+
+        @Override
+        Node<V> child(char c) {
+            int i = (count == 0) ? -1 : Arrays.binarySearch(chars, 0, count, c);
+            return (i >= 0) ? children[i] : null;
+        }
+
+        @Override
+        int childCount() {
+            return count;
+        }
+
+        @Override
+        void children(List<Node<V>> list) {
+            for (int i = 0; i < count; i++) {
+                list.add(children[i]);
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        Node<V> put(char c, Node<V> child) {
+            int i = (count == 0) ? -1 : Arrays.binarySearch(chars, 0, count, c);
+            if (i >= 0) {
+                children[i] = child;
+                return this;
+            }
+            i = -(i + 1);
+            if (children == null) {
+                chars = new char[2];
+                children = new Node[2];
+            } else if (count == children.length) {
+                chars = Arrays.copyOf(chars, 2 * count);
+                children = Arrays.copyOf(children, 2 * count);
+            }
+            System.arraycopy(chars, i, chars, i + 1, count - i);
+            System.arraycopy(children, i, children, i + 1, count - i);
+            chars[i] = c;
+            children[i] = child;
+            count++;
+            return (count > DENSE_THRESHOLD && c < DENSE_SIZE) ? toDense() : this;
+        }
+
+        // Dense node with the same children, if more than DENSE_THRESHOLD of them are below DENSE_SIZE
+        Node<V> toDense() {
+            int small = -(Arrays.binarySearch(chars, 0, count, (char) DENSE_SIZE) + 1);
+            if (small <= DENSE_THRESHOLD) {
+                return this;
+            }
+            DenseNode<V> node = new DenseNode<>(offset, length);
+            node.value = value;
+            for (int i = 0; i < count; i++) {
+                node.put(chars[i], children[i]);
+            }
+            return node;
+        }
+
+        @Override
+        void removeChild(char c) {
+            int i = Arrays.binarySearch(chars, 0, count, c);
+            System.arraycopy(chars, i + 1, chars, i, count - i - 1);
+            System.arraycopy(children, i + 1, children, i, count - i - 1);
+            children[--count] = null;
+        }
+    }
+
+    // Node with a table of the children below DENSE_SIZE; the others are sparse
+    private static final class DenseNode<V> extends SparseNode<V> {
+        @SuppressWarnings("unchecked")
+        final Node<V>[] table = new Node[DENSE_SIZE];
+        int tableCount;
+
+        DenseNode(int offset, int length) {
+            super(offset, length);
+        }
+
+        @Override
+        Node<V> child(char c) {
+            return (c < DENSE_SIZE) ? table[c] : super.child(c);
+        }
+
+        @Override
+        int childCount() {
+            return tableCount + count;
+        }
+
+        @Override
+        void children(List<Node<V>> list) {
+            for (Node<V> child : table) {
+                if (child != null) {
+                    list.add(child);
+                }
+            }
+            super.children(list);
+        }
+
+        @Override
+        Node<V> put(char c, Node<V> child) {
+            if (c >= DENSE_SIZE) {
+                return super.put(c, child);
+            }
+            if (table[c] == null) {
+                tableCount++;
+            }
+            table[c] = child;
+            return this;
+        }
+
+        @Override
+        Node<V> toDense() {
+            return this;
+        }
+
+        @Override
+        void removeChild(char c) {
+            if (c >= DENSE_SIZE) {
+                super.removeChild(c);
+            } else {
+                table[c] = null;
+                tableCount--;
+            }
+        }
+    }
+
+    private Node<V> root = new SparseNode<>(0, 0);
+    private int size;
+    private char[] labels = new char[64];
+    private int used; // characters in labels
+    private int garbage; // characters in labels that belong to no node any more
+
+    public RadixTreeDictionary() {
+    }
+
+    /**
+     * Builds the dictionary from the entries of source, e.g. to run prefix or fuzzy
+     * queries over any other dictionary.
+     * @param source dictionary to copy; later changes of source are not reflected.
+     */
+    public RadixTreeDictionary(Dictionary<String, ? extends V> source) {
+        for (Entry<String, ? extends V> e : source) {
+            insert(e.getKey(), e.getValue());
+        }
+    }
+
+    // Appends s[from, to) to labels and returns its offset
+    private int append(CharSequence s, int from, int to) {
+        int n = to - from;
+        if (used + n > labels.length) {
+            labels = Arrays.copyOf(labels, Math.max(2 * labels.length, used + n));
+        }
+        for (int i = 0; i < n; i++) {
+            labels[used + i] = s.charAt(from + i);
+        }
+        used += n;
+        return used - n;
+    }
+
+    // Replaces the child of parent (or the root) by node, whose first character is unchanged
+    private void replace(Node<V> parent, Node<V> node) {
+        if (parent == null) {
+            root = node;
+        } else {
+            parent.put(labels[node.offset], node);
+        }
+    }
+
+    @Override
+    public V search(String key) {
+        Node<V> node = root;
+        char[] a = labels;
+        int pos = 0;
+        int n = key.length();
+        while (pos < n) {
+            Node<V> child = node.child(key.charAt(pos));
+            if (child == null) {
+                return null;
+            }
+            int len = child.length;
+            if (len > n - pos) {
+                return null;
+            }
+            int off = child.offset;
+            for (int i = 1; i < len; i++) { // the first character matches
+                if (a[off + i] != key.charAt(pos + i)) {
+                    return null;
+                }
+            }
+            pos += len;
+            node = child;
+        }
+        return node.value;
+    }
+
+    @Override
+    public V insert(String key, V value) {
+        if (value == null) {
+            throw new NullPointerException("null values are not supported");
+        }
+        Node<V> parent = null;
+        Node<V> node = root;
+        int pos = 0;
+        int n = key.length();
+        while (pos < n) {
+            char c = key.charAt(pos);
+            Node<V> child = node.child(c);
+            if (child == null) {
+                Node<V> leaf = new Node<>(append(key, pos, n), n - pos);
+                leaf.value = value;
+                Node<V> changed = node.put(c, leaf);
+                if (changed != node) {
+                    replace(parent, changed);
+                }
+                size++;
+                return null;
+            }
+            int len = child.length;
+            int max = Math.min(len, n - pos);
+            int i = 1;
+            while (i < max && labels[child.offset + i] == key.charAt(pos + i)) {
+                i++;
+            }
+            if (i < len) {
+                // key leaves the edge after i characters: split it
+                Node<V> mid = new SparseNode<>(child.offset, i);
+                child.offset += i;
+                child.length -= i;
+                mid.put(labels[child.offset], child);
+                node.put(c, mid);
+                child = mid;
+            }
+            parent = node;
+            node = child;
+            pos += i;
+        }
+
+        V oldValue = node.value;
+        if (oldValue == null) {
+            size++;
+        }
+        node.value = value;
+        return oldValue;
+    }
+
+    @Override
+    public V remove(String key) {
+        Node<V> grandParent = null;
+        Node<V> parent = null;
+        Node<V> node = root;
+        int pos = 0;
+        int n = key.length();
+        while (pos < n) {
+            Node<V> child = node.child(key.charAt(pos));
+            if (child == null) {
+                return null;
+            }
+            int len = child.length;
+            if (len > n - pos) {
+                return null;
+            }
+            for (int i = 1; i < len; i++) {
+                if (labels[child.offset + i] != key.charAt(pos + i)) {
+                    return null;
+                }
+            }
+            pos += len;
+            grandParent = parent;
+            parent = node;
+            node = child;
+        }
+        V oldValue = node.value;
+        if (oldValue == null) {
+            return null;
+        }
+        node.value = null;
+        size--;
+
+        // keep the tree compressed: no leaves without entry, no chains
+        if (node != root) {
+            if (node.childCount() == 0) {
+                parent.removeChild(labels[node.offset]);
+                garbage += node.length;
+                if (parent != root) {
+                    if (parent.value == null && parent.childCount() == 1) {
+                        merge(grandParent, parent);
+                    } else if (parent.childCount() == 0) {
+                        // no children any more: replace by a leaf
+                        Node<V> leaf = new Node<>(parent.offset, parent.length);
+                        leaf.value = parent.value;
+                        replace(grandParent, leaf);
+                    }
+                }
+            } else if (node.childCount() == 1) {
+                merge(parent, node);
+            }
+        }
+        if (garbage > used / 2 && used > MIN_COMPACT) {
+            compact();
+        }
+        return oldValue;
+    }
+
+    // Replaces node (no entry, one child) in parent by its child with the concatenated label
+    private void merge(Node<V> parent, Node<V> node) {
+        List<Node<V>> list = new ArrayList<>(1);
+        node.children(list);
+        Node<V> child = list.get(0);
+        if (node.offset + node.length == child.offset) {
+            // the labels are adjacent in the array (a split edge)
+            child.offset = node.offset;
+        } else {
+            String label = new String(labels, node.offset, node.length)
+                    + new String(labels, child.offset, child.length);
+            garbage += label.length();
+            child.offset = append(label, 0, label.length());
+        }
+        child.length += node.length;
+        replace(parent, child);
+    }
+
+    // Copies the labels of all nodes into a new array without the garbage
+    private void compact() {
+        char[] old = labels;
+        labels = new char[Math.max(64, 2 * (used - garbage))];
+        used = 0;
+        garbage = 0;
+        List<Node<V>> stack = new ArrayList<>();
+        stack.add(root);
+        while (!stack.isEmpty()) {
+            Node<V> node = stack.remove(stack.size() - 1);
+            System.arraycopy(old, node.offset, labels, used, node.length);
+            node.offset = used;
+            used += node.length;
+            node.children(stack);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the entry with the longest key that is a prefix of text,
+     * e.g. for tokenizing or routing tables.
+     * @param text the text.
+     * @return the entry or null if no key is a prefix of text.
+     */
+    public Entry<String, V> longestPrefixMatch(String text) {
+        Node<V> node = root;
+        Node<V> match = (root.value != null) ? root : null;
+        int matchLength = 0;
+        int pos = 0;
+        int n = text.length();
+        outer:
+        while (pos < n) {
+            Node<V> child = node.child(text.charAt(pos));
+            if (child == null || child.length > n - pos) {
+                break;
+            }
+            for (int i = 1; i < child.length; i++) {
+                if (labels[child.offset + i] != text.charAt(pos + i)) {
+                    break outer;
+                }
+            }
+            pos += child.length;
+            node = child;
+            if (node.value != null) {
+                match = node;
+                matchLength = pos;
+            }
+        }
+        return (match != null) ? new Entry<>(text.substring(0, matchLength), match.value) : null;
+    }
+
+    // Walks along prefix to the first node whose path starts with prefix (prefix may end
+    // within its label). Stores the node in result[0] and returns its path, or null.
+    private String prefixPath(String prefix, Node<V>[] result) {
+        Node<V> node = root;
+        int pos = 0;
+        int n = prefix.length();
+        while (pos < n) {
+            Node<V> child = node.child(prefix.charAt(pos));
+            if (child == null) {
+                return null;
+            }
+            int len = Math.min(child.length, n - pos);
+            for (int i = 1; i < len; i++) {
+                if (labels[child.offset + i] != prefix.charAt(pos + i)) {
+                    return null;
+                }
+            }
+            if (len < child.length) {
+                result[0] = child;
+                return prefix.substring(0, pos) + new String(labels, child.offset, child.length);
+            }
+            pos += len;
+            node = child;
+        }
+        result[0] = node;
+        return prefix;
+    }
+
+    /**
+     * Returns an iterator over all entries whose key starts with prefix in ascending key order.
+     * Costs O(length of prefix) plus the size of the visited subtree.
+     * @param prefix the prefix.
+     * @return an iterator over the entries with the prefix.
+     */
+    @SuppressWarnings("unchecked")
+    public Iterator<Entry<String, V>> prefixIterator(String prefix) {
+        Node<V>[] start = new Node[1];
+        String path = prefixPath(prefix, start);
+        return new Iterator<>() {
+            // pre-order traversal: the entry of a node comes before the entries of its children.
+            // A node on the stack comes with the path length of its parent (depth); key always
+            // holds the path of the last visited node, which starts with the parent's path.
+            Node<V>[] stack = new Node[16];
+            int[] depths = new int[16];
+            int top;
+            final List<Node<V>> children = new ArrayList<>();
+            char[] key = (path == null) ? new char[0] : path.toCharArray();
+            Node<V> next;
+            int length; // of the key of next
+
+            {
+                if (path != null) {
+                    next = start[0];
+                    length = key.length;
+                    pushChildren(next, length);
+                    if (next.value == null) {
+                        advance();
+                    }
+                }
+            }
+
+            private void pushChildren(Node<V> node, int depth) {
+                children.clear();
+                node.children(children);
+                for (int i = children.size() - 1; i >= 0; i--) {
+                    if (top == stack.length) {
+                        stack = Arrays.copyOf(stack, 2 * top);
+                        depths = Arrays.copyOf(depths, 2 * top);
+                    }
+                    stack[top] = children.get(i);
+                    depths[top++] = depth;
+                }
+            }
+
+            private void advance() {
+                next = null;
+                while (next == null && top > 0) {
+                    Node<V> node = stack[--top];
+                    int depth = depths[top];
+                    stack[top] = null;
+                    length = depth + node.length;
+                    if (length > key.length) {
+                        key = Arrays.copyOf(key, Math.max(2 * key.length, length));
+                    }
+                    System.arraycopy(labels, node.offset, key, depth, node.length);
+                    pushChildren(node, length);
+                    if (node.value != null) {
+                        next = node;
+                    }
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Entry<String, V> next() {
+                if (next == null) throw new NoSuchElementException();
+                Entry<String, V> entry = new Entry<>(new String(key, 0, length), next.value);
+                advance();
+                return entry;
+            }
+        };
+    }
+
+    // Node in the search of autocomplete with its path
+    private static final class Candidate<V> implements Comparable<Candidate<V>> {
+        final Node<V> node;
+        final String path;
+
+        Candidate(Node<V> node, String path) {
+            this.node = node;
+            this.path = path;
+        }
+
+        @Override
+        public int compareTo(Candidate<V> other) {
+            int cmp = Integer.compare(path.length(), other.path.length());
+            return (cmp != 0) ? cmp : path.compareTo(other.path);
+        }
+    }
+
+    /**
+     * Returns up to k entries whose key starts with prefix, the shortest keys first
+     * (the most likely completions of a word that is being typed); keys of the same length
+     * in ascending order. The subtree is searched best first by path length, so only the
+     * nodes up to the length of the k-th result are visited.
+     * @param prefix the prefix.
+     * @param k maximal number of results.
+     * @return the completions.
+     */
+    @SuppressWarnings("unchecked")
+    public List<Entry<String, V>> autocomplete(String prefix, int k) {
+        Node<V>[] start = new Node[1];
+        String path = prefixPath(prefix, start);
+        if (path == null || k <= 0) {
+            return Collections.emptyList();
+        }
+        // the path of a node is longer than the paths of its ancestors, so the nodes with
+        // an entry leave the queue in the order of the result
+        PriorityQueue<Candidate<V>> queue = new PriorityQueue<>();
+        queue.add(new Candidate<>(start[0], path));
+        List<Entry<String, V>> result = new ArrayList<>(k);
+        List<Node<V>> children = new ArrayList<>();
+        while (!queue.isEmpty() && result.size() < k) {
+            Candidate<V> candidate = queue.poll();
+            Node<V> node = candidate.node;
+            if (node.value != null) {
+                result.add(new Entry<>(candidate.path, node.value));
+            }
+            children.clear();
+            node.children(children);
+            for (Node<V> child : children) {
+                queue.add(new Candidate<>(child, candidate.path + new String(labels, child.offset, child.length)));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns all entries whose key has at most maxDistance edits (insertion, deletion or
+     * replacement of a character) to query, ordered by distance, then by key.
+     * <p>
+     * The trie is searched depth first with one row of the Levenshtein table per character
+     * on the path, so the rows of a common prefix are computed only once for all keys that
+     * share it. Only the 2 * maxDistance + 1 cells around the diagonal can be within
+     * maxDistance, and a subtree is skipped as soon as no cell of the row is.
+     * @param query the (misspelled) word.
+     * @param maxDistance maximal edit distance.
+     * @return the matching entries.
+     */
+    public List<Entry<String, V>> fuzzySearch(String query, int maxDistance) {
+        Fuzzy fuzzy = new Fuzzy(query, maxDistance);
+        if (maxDistance >= 0) {
+            fuzzy.search(root, 0);
+        }
+        fuzzy.result.sort((a, b) -> (a.distance != b.distance)
+                ? Integer.compare(a.distance, b.distance) : a.key.compareTo(b.key));
+        List<Entry<String, V>> result = new ArrayList<>(fuzzy.result.size());
+        for (Match<V> m : fuzzy.result) {
+            result.add(new Entry<>(m.key, m.value));
+        }
+        return result;
+    }
+
+    private static final class Match<V> {
+        final String key;
+        final V value;
+        final int distance;
+
+        Match(String key, V value, int distance) {
+            this.key = key;
+            this.value = value;
+            this.distance = distance;
+        }
+    }
+
+    // State of a fuzzy search: rows[d] = Levenshtein row after the d-th character of the path
+    private final class Fuzzy {
+        final char[] query;
+        final int m;
+        final int k;
+        final int limit; // every value > k is stored as k + 1
+        int[][] rows = new int[16][];
+        char[] path = new char[16];
+        final List<Match<V>> result = new ArrayList<>();
+
+        Fuzzy(String query, int k) {
+            this.query = query.toCharArray();
+            this.m = query.length();
+            this.k = k;
+            limit = k + 1;
+            rows[0] = new int[m + 1];
+            for (int j = 0; j <= m; j++) {
+                rows[0][j] = Math.min(j, limit);
+            }
+        }
+
+        // Visits node, whose parent's path has length depth (row depth is computed)
+        void search(Node<V> node, int depth) {
+            int end = depth + node.length;
+            if (end >= rows.length) {
+                rows = Arrays.copyOf(rows, Math.max(2 * rows.length, end + 1));
+                path = Arrays.copyOf(path, rows.length);
+            }
+            for (int d = depth + 1; d <= end; d++) {
+                char c = labels[node.offset + d - depth - 1];
+                path[d - 1] = c;
+                if (!row(d, c)) {
+                    return; // no key below this node can be within k
+                }
+            }
+            if (node.value != null && end - k <= m && m <= end + k && rows[end][m] <= k) {
+                result.add(new Match<>(new String(path, 0, end), node.value, rows[end][m]));
+            }
+            if (node instanceof DenseNode) {
+                for (Node<V> child : ((DenseNode<V>) node).table) {
+                    if (child != null) {
+                        search(child, end);
+                    }
+                }
+            }
+            if (node instanceof SparseNode) {
+                SparseNode<V> sparse = (SparseNode<V>) node;
+                for (int i = 0; i < sparse.count; i++) {
+                    search(sparse.children[i], end);
+                }
+            }
+        }
+
+        // Computes rows[d] from rows[d - 1] for the path character c within the band
+        // |j - d| <= k; returns false if no cell is <= k
+        boolean row(int d, char c) {
+            int lo = Math.max(1, d - k);
+            int hi = Math.min(m, d + k);
+            if (d - k > m) {
+                return false; // the path is longer than query + k
+            }
+            int[] prev = rows[d - 1];
+            int[] cur = rows[d];
+            if (cur == null) {
+                cur = rows[d] = new int[m + 1];
+            }
+            cur[lo - 1] = (lo == 1) ? Math.min(d, limit) : limit;
+            int best = cur[lo - 1];
+            for (int j = lo; j <= hi; j++) {
+                int v = prev[j - 1] + (query[j - 1] == c ? 0 : 1);
+                v = Math.min(v, Math.min(prev[j], cur[j - 1]) + 1);
+                v = Math.min(v, limit);
+                cur[j] = v;
+                best = Math.min(best, v);
+            }
+            if (hi < m) {
+                cur[hi + 1] = limit; // read by the next row
+            }
+            return best <= k;
+        }
+    }
+
+    @Override
+    public Iterator<Entry<String, V>> iterator() {
+        return prefixIterator("");
+    }
+}
@@ -0,0 +1,276 @@
+package aufgabe1;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
+
+/**
+ * Open addressing hash table with Robin Hood hashing and backward-shift deletion.
+ * <p>
+ * Linear probing over a power of two table. Every slot stores the probe distance of its
+ * entry (distance from the home slot). On insert an entry takes the slot of a resident
+ * that is closer to its own home slot ("rich") and the resident moves on, so the probe
+ * distances stay small and even. Hence a search can stop as soon as the resident's
+ * distance is smaller than the current probe distance; a miss costs about as much as a hit.
+ * <p>
+ * remove shifts the following entries one slot back instead of leaving a tombstone,
+ * so removals never degrade later searches. This allows load factors up to about 0.9.
+ *
+ * @param <K> Key.
+ * @param <V> Value.
+ */
+public class RobinHoodHashDictionary<K, V> implements Dictionary<K, V> {
+
+    private static final double DEFAULT_LOAD_FACTOR = 0.9;
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private final double loadFactor;
+    private Object[] keys;
+    private Object[] values;
+    private int[] hashes; // cached hashCode of the key
+    private int[] dist; // probe distance + 1; 0 = free slot
+    private int mask; // capacity - 1
+    private int shift; // 32 - log2(capacity)
+    private int size;
+
+    public RobinHoodHashDictionary() {
+        this(DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * @param loadFactor maximal ratio of entries to slots (0 < loadFactor < 1).
+     */
+    public RobinHoodHashDictionary(double loadFactor) {
+        if (loadFactor <= 0 || loadFactor >= 1) {
+            throw new IllegalArgumentException("Load factor must be in (0, 1): " + loadFactor);
+        }
+        this.loadFactor = loadFactor;
+        createTable(DEFAULT_CAPACITY);
+    }
+
+    private void createTable(int capacity) {
+        keys = new Object[capacity];
+        values = new Object[capacity];
+        hashes = new int[capacity];
+        dist = new int[capacity];
+        mask = capacity - 1;
+        shift = 32 - Integer.numberOfTrailingZeros(capacity);
+        size = 0;
+    }
+
+    // Fibonacci hashing: the high bits of h * 2^32/phi select the home slot
+    private int home(int h) {
+        return (h * 0x9E3779B9) >>> shift;
+    }
+
+    private void resize() {
+        Object[] oldKeys = keys;
+        Object[] oldValues = values;
+        int[] oldHashes = hashes;
+        int[] oldDist = dist;
+        createTable(keys.length * 2);
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldDist[j] != 0) {
+                place(oldKeys[j], oldValues[j], oldHashes[j], home(oldHashes[j]), 0);
+                size++;
+            }
+        }
+    }
+
+    // Puts an entry that is not contained into the table, starting at slot index with
+    // probe distance d. Residents with a smaller distance are displaced to later slots.
+    private void place(Object key, Object value, int h, int index, int d) {
+        while (true) {
+            if (dist[index] == 0) {
+                keys[index] = key;
+                values[index] = value;
+                hashes[index] = h;
+                dist[index] = d + 1;
+                return;
+            }
+            int residentDist = dist[index] - 1;
+            if (residentDist < d) {
+                Object k = keys[index];
+                Object v = values[index];
+                int rh = hashes[index];
+                keys[index] = key;
+                values[index] = value;
+                hashes[index] = h;
+                dist[index] = d + 1;
+                key = k;
+                value = v;
+                h = rh;
+                d = residentDist;
+            }
+            index = (index + 1) & mask;
+            d++;
+        }
+    }
+
+    // Returns the slot of key or -1
+    private int find(Object key) {
+        int h = key.hashCode();
+        int index = home(h);
+        for (int d = 0; ; d++) {
+            // a free slot or a resident closer to its home than we are to ours ends the search
+            if (dist[index] <= d) {
+                return -1;
+            }
+            if (hashes[index] == h && key.equals(keys[index])) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V insert(K key, V value) {
+        int h = key.hashCode();
+        int index = home(h);
+        int d = 0;
+        while (dist[index] > d) {
+            if (hashes[index] == h && key.equals(keys[index])) {
+                V oldValue = (V) values[index];
+                values[index] = value;
+                return oldValue;
+            }
+            index = (index + 1) & mask;
+            d++;
+        }
+
+        // not contained
+        if (size + 1 > loadFactor * keys.length) {
+            resize();
+            index = home(h);
+            d = 0;
+        }
+        place(key, value, h, index, d);
+        size++;
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V search(K key) {
+        int index = find(key);
+        return index >= 0 ? (V) values[index] : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(K key) {
+        int index = find(key);
+        if (index < 0) {
+            return null;
+        }
+        V oldValue = (V) values[index];
+
+        // backward shift: move the following entries one slot closer to their home
+        // until a free slot or an entry in its home slot is reached
+        int next = (index + 1) & mask;
+        while (dist[next] > 1) {
+            keys[index] = keys[next];
+            values[index] = values[next];
+            hashes[index] = hashes[next];
+            dist[index] = dist[next] - 1;
+            index = next;
+            next = (next + 1) & mask;
+        }
+        keys[index] = null;
+        values[index] = null;
+        dist[index] = 0;
+        size--;
+        return oldValue;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the largest probe distance of all entries,
+     * i.e. the number of extra slots a search looks at in the worst case.
+     * @return maximal probe distance.
+     */
+    public int maxProbeDistance() {
+        int max = 0;
+        for (int d : dist) {
+            max = Math.max(max, d - 1);
+        }
+        return max;
+    }
+
+    @Override
+    public Iterator<Entry<K, V>> iterator() {
+        return new Iterator<>() {
+            int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                while (index < dist.length && dist[index] == 0) {
+                    index++;
+                }
+                return index < dist.length;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public Entry<K, V> next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                Entry<K, V> entry = new Entry<>((K) keys[index], (V) values[index]);
+                index++;
+                return entry;
+            }
+        };
+    }
+
+    // Cursor over the used slots
+    @Override
+    public Cursor<K, V> cursor() {
+        return new Cursor<>() {
+            int index = -1;
+
+            @Override
+            public boolean advance() {
+                while (++index < keys.length) {
+                    if (dist[index] != 0) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public K key() {
+                return (K) keys[index];
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public V value() {
+                return (V) values[index];
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public V setValue(V value) {
+                V oldValue = (V) values[index];
+                values[index] = value;
+                return oldValue;
+            }
+        };
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (dist[i] != 0) {
+                action.accept((K) keys[i], (V) values[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,372 @@
+package aufgabe1;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free sorted dictionary as skip list (Herlihy/Shavit, "The Art of Multiprocessor
+ * Programming", ch. 14).
+ * <p>
+ * Every node is linked into the levels 0 .. topLevel, where topLevel is chosen at random
+ * (level i with probability 2^-i). Level 0 is the sorted list of all nodes, the upper
+ * levels are shortcuts, so all operations take O(log n) steps on average. No operation
+ * ever takes a lock, and there is no global rebalancing as in a search tree: an insert
+ * or remove only changes the links next to its own node.
+ * <p>
+ * A node is removed by first setting its value to null with CAS (the point where the
+ * remove takes effect, so it cannot race with a concurrent value update), then marking its
+ * links from the top level down. A marked link is a Marked object wrapping the successor,
+ * so unmarked links point directly to the next node (one dereference per step, unlike an
+ * AtomicMarkableReference). A marked node is unlinked by any thread that passes it in find.
+ * <p>
+ * The iterator returns the entries in ascending key order. It is weakly consistent: it
+ * never throws ConcurrentModificationException and may or may not reflect changes made
+ * after its creation.
+ *
+ * @param <K> Key.
+ * @param <V> Value.
+ */
+public class SkipListDictionary<K extends Comparable<? super K>, V> implements Dictionary<K, V> {
+
+    private static final int MAX_LEVEL = 30;
+
+    private static final class Node<K, V> {
+        final K key; // null for head and tail
+        volatile Object value; // null = removed
+        final Object[] next; // successor on each level, or Marked(successor) once the node is removed
+
+        Node(K key, V value, int topLevel) {
+            this.key = key;
+            this.value = value;
+            next = new Object[topLevel + 1];
+        }
+    }
+
+    // Marked link of a removed node
+    private static final class Marked {
+        final Node<?, ?> node;
+
+        Marked(Node<?, ?> node) {
+            this.node = node;
+        }
+    }
+
+    private static final VarHandle NEXT = MethodHandles.arrayElementVarHandle(Object[].class);
+    private static final VarHandle VALUE;
+
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(Node.class, "value", Object.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static Object link(Node<?, ?> node, int level) {
+        return NEXT.getAcquire(node.next, level);
+    }
+
+    private static boolean casLink(Node<?, ?> node, int level, Object expected, Object link) {
+        return NEXT.compareAndSet(node.next, level, expected, link);
+    }
+
+    // Successor in a marked or unmarked link
+    @SuppressWarnings("unchecked")
+    private static <K, V> Node<K, V> successor(Object link) {
+        return (Node<K, V>) ((link instanceof Marked) ? ((Marked) link).node : link);
+    }
+
+    private final Node<K, V> head = new Node<>(null, null, MAX_LEVEL);
+    private final Node<K, V> tail = new Node<>(null, null, MAX_LEVEL);
+    private final AtomicInteger maxLevel = new AtomicInteger(); // highest level that may contain a node
+    private final LongAdder size = new LongAdder();
+
+    public SkipListDictionary() {
+        for (int i = 0; i <= MAX_LEVEL; i++) {
+            head.next[i] = tail;
+        }
+    }
+
+    // true if the key of node is less than key (tail is greater than every key)
+    private boolean less(Node<K, V> node, K key) {
+        return node != tail && node.key.compareTo(key) < 0;
+    }
+
+    private static int randomLevel() {
+        return Integer.numberOfTrailingZeros(ThreadLocalRandom.current().nextInt() | (1 << MAX_LEVEL));
+    }
+
+    // Fills preds/succs with the last node < key and the first node >= key on every level
+    // (up to maxLevel) and unlinks the marked nodes on the way.
+    // Returns true if succs[0] has the key.
+    private boolean find(K key, Node<K, V>[] preds, Node<K, V>[] succs) {
+        retry:
+        while (true) {
+            Node<K, V> pred = head;
+            for (int level = maxLevel.get(); level >= 0; level--) {
+                Node<K, V> curr = successor(link(pred, level));
+                while (true) {
+                    Object next = link(curr, level);
+                    while (next instanceof Marked) {
+                        Node<K, V> succ = successor(next);
+                        if (!casLink(pred, level, curr, succ)) {
+                            continue retry; // pred has changed or is removed itself
+                        }
+                        curr = succ;
+                        next = link(curr, level);
+                    }
+                    if (less(curr, key)) {
+                        pred = curr;
+                        curr = successor(next);
+                    } else {
+                        break;
+                    }
+                }
+                preds[level] = pred;
+                succs[level] = curr;
+            }
+            return succs[0] != tail && succs[0].key.compareTo(key) == 0;
+        }
+    }
+
+    // Marks all links of node (top level first); level 0 last, it makes the node unreachable for find
+    private static void mark(Node<?, ?> node) {
+        for (int level = node.next.length - 1; level >= 0; level--) {
+            Object next = link(node, level);
+            while (!(next instanceof Marked) && !casLink(node, level, next, new Marked((Node<?, ?>) next))) {
+                next = link(node, level);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Node<K, V>[] newPath() {
+        return new Node[MAX_LEVEL + 1];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V insert(K key, V value) {
+        if (value == null) {
+            throw new NullPointerException("null values are not supported");
+        }
+        int topLevel = randomLevel();
+        if (topLevel > maxLevel.get()) {
+            maxLevel.accumulateAndGet(topLevel, Math::max); // before linking, so that find sees every level
+        }
+        Node<K, V>[] preds = newPath();
+        Node<K, V>[] succs = newPath();
+        while (true) {
+            if (find(key, preds, succs)) {
+                Node<K, V> node = succs[0];
+                Object old;
+                while ((old = node.value) != null) {
+                    if (VALUE.compareAndSet(node, old, value)) {
+                        return (V) old;
+                    }
+                }
+                mark(node); // removed concurrently: help to unlink it and try again
+                continue;
+            }
+
+            Node<K, V> node = new Node<>(key, value, topLevel);
+            for (int level = 0; level <= topLevel; level++) {
+                node.next[level] = succs[level]; // published by the CAS below
+            }
+            // linking level 0 inserts the entry, the upper levels are only shortcuts
+            if (!casLink(preds[0], 0, succs[0], node)) {
+                continue;
+            }
+            size.increment();
+            for (int level = 1; level <= topLevel; level++) {
+                while (true) {
+                    Node<K, V> succ = succs[level];
+                    Object next = link(node, level);
+                    if (next instanceof Marked) {
+                        return null; // node is already removed again: its links must stay marked
+                    }
+                    if (next != succ && !casLink(node, level, next, succ)) {
+                        return null; // marked meanwhile
+                    }
+                    if (casLink(preds[level], level, succ, node)) {
+                        break;
+                    }
+                    find(key, preds, succs);
+                    if (succs[0] != node) {
+                        return null; // removed again
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(K key) {
+        Node<K, V>[] preds = newPath();
+        Node<K, V>[] succs = newPath();
+        if (!find(key, preds, succs)) {
+            return null;
+        }
+        Node<K, V> node = succs[0];
+        Object old;
+        while ((old = node.value) != null) {
+            if (VALUE.compareAndSet(node, old, null)) {
+                size.decrement();
+                mark(node);
+                find(key, preds, succs); // unlinks the node
+                return (V) old;
+            }
+        }
+        return null; // removed by another thread
+    }
+
+    // Returns the first node at level 0 with a key >= key (inclusive) or > key, or tail.
+    // Marked nodes are skipped, not unlinked.
+    private Node<K, V> first(K key, boolean inclusive) {
+        Node<K, V> pred = head;
+        Node<K, V> curr = null;
+        for (int level = maxLevel.get(); level >= 0; level--) {
+            curr = successor(link(pred, level));
+            while (true) {
+                Object next = link(curr, level);
+                while (next instanceof Marked) {
+                    curr = successor(next);
+                    next = link(curr, level);
+                }
+                if (curr != tail && (inclusive ? curr.key.compareTo(key) < 0 : curr.key.compareTo(key) <= 0)) {
+                    pred = curr;
+                    curr = successor(next);
+                } else {
+                    break;
+                }
+            }
+        }
+        return curr;
+    }
+
+    // Returns the last node at level 0 with a key < key, or head (marked nodes are skipped)
+    private Node<K, V> last(K key) {
+        Node<K, V> pred = head;
+        for (int level = maxLevel.get(); level >= 0; level--) {
+            Node<K, V> curr = successor(link(pred, level));
+            while (true) {
+                Object next = link(curr, level);
+                while (next instanceof Marked) {
+                    curr = successor(next);
+                    next = link(curr, level);
+                }
+                if (less(curr, key)) {
+                    pred = curr;
+                    curr = successor(next);
+                } else {
+                    break;
+                }
+            }
+        }
+        return pred;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V search(K key) {
+        Node<K, V> node = first(key, true);
+        return (node != tail && node.key.compareTo(key) == 0) ? (V) node.value : null;
+    }
+
+    /**
+     * Returns the entry with the smallest key greater than or equal to key.
+     * @param key the key.
+     * @return the entry or null if there is no such key.
+     */
+    public Entry<K, V> ceiling(K key) {
+        boolean inclusive = true;
+        while (true) {
+            Node<K, V> node = first(key, inclusive);
+            if (node == tail) {
+                return null;
+            }
+            @SuppressWarnings("unchecked")
+            V value = (V) node.value;
+            if (value != null) {
+                return new Entry<>(node.key, value);
+            }
+            key = node.key; // removed meanwhile: continue behind it
+            inclusive = false;
+        }
+    }
+
+    /**
+     * Returns the entry with the greatest key less than or equal to key.
+     * @param key the key.
+     * @return the entry or null if there is no such key.
+     */
+    public Entry<K, V> floor(K key) {
+        Node<K, V> node = first(key, true);
+        if (node != tail && node.key.compareTo(key) == 0) {
+            @SuppressWarnings("unchecked")
+            V value = (V) node.value;
+            if (value != null) {
+                return new Entry<>(node.key, value);
+            }
+        }
+        while (true) {
+            node = last(key);
+            if (node == head) {
+                return null;
+            }
+            @SuppressWarnings("unchecked")
+            V value = (V) node.value;
+            if (value != null) {
+                return new Entry<>(node.key, value);
+            }
+            key = node.key; // removed meanwhile: continue in front of it
+        }
+    }
+
+    @Override
+    public int size() {
+        return (int) Math.max(0, size.sum());
+    }
+
+    @Override
+    public Iterator<Entry<K, V>> iterator() {
+        return new Iterator<>() {
+            Node<K, V> node = head;
+            Entry<K, V> next = advance();
+
+            private Entry<K, V> advance() {
+                while (true) {
+                    node = successor(link(node, 0));
+                    if (node == tail) {
+                        return null;
+                    }
+                    @SuppressWarnings("unchecked")
+                    V value = (V) node.value;
+                    if (value != null) {
+                        return new Entry<>(node.key, value);
+                    }
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Entry<K, V> next() {
+                if (next == null) throw new NoSuchElementException();
+                Entry<K, V> entry = next;
+                next = advance();
+                return entry;
+            }
+        };
+    }
+}
@@ -1,6 +1,11 @@
 package aufgabe1;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
+import java.util.function.BiConsumer;
 
 // SortedArrayDictionary: Implements a dictionary using a sorted array
 // K must be comparable so that elements remain sorted
@@ -9,6 +14,7 @@ public class SortedArrayDictionary<K extends Comparable<? super K>, V> implement
     private Entry<K, V>[] dic;  // Array to store key-value pairs
     private int size;  // Current number of elements
     private static final int DEF_CAPACITY = 32;  // Default array size
+    private static final int PARALLEL_SORT_THRESHOLD = 1 << 13;  // Batches from this size are sorted in parallel
 
     // Constructor: Initializes an empty dictionary with default capacity
     public SortedArrayDictionary() {
@@ -74,6 +80,129 @@ public class SortedArrayDictionary<K extends Comparable<? super K>, V> implement
         return null;  // New entry added, return null
     }
 
+    /**
+     * Inserts all entries at once. The batch is sorted by key (in parallel for large batches)
+     * and merged with the array in one linear pass, instead of shifting the array for every
+     * single entry: O(n + m log m) instead of O(n * m) for m entries.
+     * Existing keys get the new value; if a key occurs several times, the last entry wins
+     * (as with insert in iteration order).
+     * @param entries entries to insert.
+     * @return number of keys that were not contained before.
+     */
+    @SuppressWarnings("unchecked")
+    public int insertAll(Iterable<? extends Entry<K, V>> entries) {
+        // Buffer copies of the entries, the caller may still use its own
+        Entry<K, V>[] batch = new Entry[DEF_CAPACITY];
+        int m = 0;
+        for (Entry<K, V> e : entries) {
+            if (m == batch.length) {
+                batch = Arrays.copyOf(batch, 2 * m);
+            }
+            batch[m++] = new Entry<>(e.getKey(), e.getValue());
+        }
+
+        // Stable sort, so equal keys keep their order and the last one can be kept
+        Comparator<Entry<K, V>> byKey = (a, b) -> a.getKey().compareTo(b.getKey());
+        if (m >= PARALLEL_SORT_THRESHOLD) {
+            Arrays.parallelSort(batch, 0, m, byKey);
+        } else {
+            Arrays.sort(batch, 0, m, byKey);
+        }
+        int u = 0;
+        for (int j = 0; j < m; j++) {
+            if (u > 0 && byKey.compare(batch[u - 1], batch[j]) == 0) {
+                batch[u - 1] = batch[j];
+            } else {
+                batch[u++] = batch[j];
+            }
+        }
+        m = u;
+
+        // First pass: update the keys that already exist and count the new ones
+        int added = 0;
+        int i = 0;
+        for (int j = 0; j < m; j++) {
+            K key = batch[j].getKey();
+            while (i < size && dic[i].getKey().compareTo(key) < 0) {
+                i++;
+            }
+            if (i < size && dic[i].getKey().compareTo(key) == 0) {
+                dic[i].setValue(batch[j].getValue());
+                batch[j] = null;  // done
+            } else {
+                added++;
+            }
+        }
+        if (added == 0) {
+            return 0;
+        }
+
+        // Second pass: merge from the back, so every entry is moved at most once and in place
+        int newSize = size + added;
+        if (dic.length < newSize) {
+            ensureCapacity(Math.max(newSize, 2 * size));
+        }
+        int r = size - 1;
+        int w = newSize - 1;
+        for (int j = m - 1; j >= 0; j--) {
+            Entry<K, V> e = batch[j];
+            if (e == null) {
+                continue;
+            }
+            while (r >= 0 && dic[r].getKey().compareTo(e.getKey()) > 0) {
+                dic[w--] = dic[r--];
+            }
+            dic[w--] = e;
+        }
+        size = newSize;
+        return added;
+    }
+
+    /**
+     * Removes all given keys in one linear pass over the array (after sorting the keys)
+     * instead of shifting the array once per key.
+     * @param keys keys to remove; keys that are not contained are ignored.
+     * @return number of removed entries.
+     */
+    @SuppressWarnings("unchecked")
+    public int removeAll(Iterable<? extends K> keys) {
+        List<K> list = new ArrayList<>();
+        for (K key : keys) {
+            list.add(key);
+        }
+        K[] sorted = list.toArray((K[]) new Comparable[0]);
+        if (sorted.length >= PARALLEL_SORT_THRESHOLD) {
+            Arrays.parallelSort(sorted);
+        } else {
+            Arrays.sort(sorted);
+        }
+
+        // Keep every entry whose key is not in sorted, compacting the array
+        int w = 0;
+        int j = 0;
+        for (int r = 0; r < size; r++) {
+            K key = dic[r].getKey();
+            while (j < sorted.length && sorted[j].compareTo(key) < 0) {
+                j++;
+            }
+            if (j < sorted.length && sorted[j].compareTo(key) == 0) {
+                continue;  // removed
+            }
+            dic[w++] = dic[r];
+        }
+        int removed = size - w;
+        Arrays.fill(dic, w, size, null);  // Clear the tail to prevent memory leaks
+        size = w;
+        return removed;
+    }
+
+    // Replaces the contents by the first n entries of sorted, which must be in strictly ascending
+    // key order (used by DictionarySnapshot to restore without sorting or shifting)
+    void restoreSorted(Entry<K, V>[] sorted, int n) {
+        dic = (sorted.length >= DEF_CAPACITY) ? sorted : Arrays.copyOf(sorted, DEF_CAPACITY);
+        size = n;
+    }
+
     // Searches for a key and returns the associated value
     @Override
     public V search(K key) {
@@ -123,4 +252,42 @@ public class SortedArrayDictionary<K extends Comparable<? super K>, V> implement
             }
         };
     }
-}
\ No newline at end of file
+
+    // Cursor over the sorted entries (the stored entries themselves)
+    @Override
+    public Dictionary.Cursor<K, V> cursor() {
+        return new Dictionary.Cursor<>() {
+            int index = -1;
+
+            @Override
+            public boolean advance() {
+                if (index < size) {
+                    index++;
+                }
+                return index < size;
+            }
+
+            @Override
+            public K key() {
+                return dic[index].getKey();
+            }
+
+            @Override
+            public V value() {
+                return dic[index].getValue();
+            }
+
+            @Override
+            public V setValue(V value) {
+                return dic[index].setValue(value);
+            }
+        };
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(dic[i].getKey(), dic[i].getValue());
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package aufgabe1;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Thread-safe hash table with separate chaining and lock striping.
+ * <p>
+ * The buckets are partitioned into stripes (bucket index modulo number of stripes),
+ * each guarded by its own lock. Only insert and remove take a lock; search never blocks
+ * and never writes: the bucket heads are read with volatile semantics, the chain links
+ * are final and values are volatile. remove therefore copies the entries in front of the
+ * removed one instead of unlinking it.
+ * <p>
+ * The table capacity is a power of two and a multiple of the number of stripes, so
+ * doubling the capacity keeps every entry in its stripe. A resize takes all stripe locks
+ * in ascending order, builds the new table from copies and publishes it at once;
+ * readers still working on the old table see a consistent state.
+ * <p>
+ * The iterator is weakly consistent: it never throws ConcurrentModificationException
+ * and reflects the table at the time it was created or later.
+ *
+ * @param <K> Key.
+ * @param <V> Value.
+ */
+public class StripedHashDictionary<K, V> implements Dictionary<K, V> {
+
+    private static final class Node<K, V> {
+        final int hash;
+        final K key;
+        volatile V value;
+        final Node<K, V> next;
+
+        Node(int hash, K key, V value, Node<K, V> next) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+            this.next = next;
+        }
+    }
+
+    private static final double LOAD_FACTOR = 0.75;
+    private static final int DEFAULT_STRIPES = 64;
+    private static final int PADDING = 16; // ints per stripe counter (one cache line), avoids false sharing
+
+    private volatile AtomicReferenceArray<Node<K, V>> table;
+    private final ReentrantLock[] locks;
+    private final AtomicIntegerArray counts; // number of entries per stripe, written under the stripe lock
+    private final int stripeMask;
+
+    public StripedHashDictionary() {
+        this(DEFAULT_STRIPES);
+    }
+
+    /**
+     * @param stripes number of locks (rounded up to a power of two);
+     *                about the number of threads that are expected to write concurrently.
+     */
+    public StripedHashDictionary(int stripes) {
+        stripes = ProbingStrategy.powerOfTwo(Math.max(1, stripes));
+        locks = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        counts = new AtomicIntegerArray(stripes * PADDING);
+        stripeMask = stripes - 1;
+        table = new AtomicReferenceArray<>(Math.max(16, stripes));
+    }
+
+    private static int hash(Object key) {
+        return ProbingStrategy.spread(key.hashCode());
+    }
+
+    @Override
+    public V search(K key) {
+        int h = hash(key);
+        AtomicReferenceArray<Node<K, V>> t = table;
+        for (Node<K, V> node = t.get(h & (t.length() - 1)); node != null; node = node.next) {
+            if (node.hash == h && key.equals(node.key)) {
+                return node.value;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public V insert(K key, V value) {
+        int h = hash(key);
+        int stripe = h & stripeMask;
+        boolean grow;
+        ReentrantLock lock = locks[stripe];
+        lock.lock();
+        try {
+            AtomicReferenceArray<Node<K, V>> t = table; // current table: a resize needs this lock
+            int index = h & (t.length() - 1);
+            Node<K, V> head = t.get(index);
+            for (Node<K, V> node = head; node != null; node = node.next) {
+                if (node.hash == h && key.equals(node.key)) {
+                    V oldValue = node.value;
+                    node.value = value;
+                    return oldValue;
+                }
+            }
+            t.set(index, new Node<>(h, key, value, head));
+            int count = counts.get(stripe * PADDING) + 1;
+            counts.set(stripe * PADDING, count);
+            // every stripe holds about 1/stripes of the entries: only then is the sum worth reading
+            grow = (double) count * locks.length > LOAD_FACTOR * t.length();
+        } finally {
+            lock.unlock();
+        }
+        // with skewed keys the hot stripe exceeds its share long before the table is full;
+        // the sum of the counters (no lock) avoids taking all locks for nothing
+        if (grow && size() > LOAD_FACTOR * table.length()) {
+            resize();
+        }
+        return null;
+    }
+
+    @Override
+    public V remove(K key) {
+        int h = hash(key);
+        int stripe = h & stripeMask;
+        ReentrantLock lock = locks[stripe];
+        lock.lock();
+        try {
+            AtomicReferenceArray<Node<K, V>> t = table;
+            int index = h & (t.length() - 1);
+            Node<K, V> head = t.get(index);
+            Node<K, V> node = head;
+            while (node != null && !(node.hash == h && key.equals(node.key))) {
+                node = node.next;
+            }
+            if (node == null) {
+                return null;
+            }
+            // copy the entries in front of node, readers may still walk the old chain
+            Node<K, V> newHead = node.next;
+            for (Node<K, V> p = head; p != node; p = p.next) {
+                newHead = new Node<>(p.hash, p.key, p.value, newHead);
+            }
+            t.set(index, newHead);
+            counts.set(stripe * PADDING, counts.get(stripe * PADDING) - 1);
+            return node.value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Doubles the capacity while holding all stripe locks (always taken in ascending order)
+    private void resize() {
+        for (ReentrantLock lock : locks) {
+            lock.lock();
+        }
+        try {
+            AtomicReferenceArray<Node<K, V>> t = table;
+            if (size() <= LOAD_FACTOR * t.length()) {
+                return; // another thread has already resized
+            }
+            int capacity = t.length() * 2;
+            AtomicReferenceArray<Node<K, V>> newTable = new AtomicReferenceArray<>(capacity);
+            for (int i = 0; i < t.length(); i++) {
+                for (Node<K, V> node = t.get(i); node != null; node = node.next) {
+                    int index = node.hash & (capacity - 1);
+                    newTable.set(index, new Node<>(node.hash, node.key, node.value, newTable.get(index)));
+                }
+            }
+            table = newTable;
+        } finally {
+            for (ReentrantLock lock : locks) {
+                lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (int i = 0; i < locks.length; i++) {
+            size += counts.get(i * PADDING);
+        }
+        return size;
+    }
+
+    @Override
+    public Iterator<Entry<K, V>> iterator() {
+        AtomicReferenceArray<Node<K, V>> t = table;
+        return new Iterator<>() {
+            int index = 0; // next bucket
+            Node<K, V> node = nextChain();
+
+            private Node<K, V> nextChain() {
+                while (index < t.length()) {
+                    Node<K, V> head = t.get(index++);
+                    if (head != null) {
+                        return head;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return node != null;
+            }
+
+            @Override
+            public Entry<K, V> next() {
+                if (node == null) throw new NoSuchElementException();
+                Entry<K, V> entry = new Entry<>(node.key, node.value);
+                node = (node.next != null) ? node.next : nextChain();
+                return entry;
+            }
+        };
+    }
+}
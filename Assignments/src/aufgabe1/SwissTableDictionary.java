@@ -0,0 +1,302 @@
+package aufgabe1;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
+
+/**
+ * Open addressing hash table in the style of the Swiss table: besides the key and value
+ * arrays there is one control byte per slot, EMPTY, DELETED or FULL with 7 bits of the hash
+ * (h2) of its key.
+ * <p>
+ * The slots form groups of 8, whose control bytes are one long. A probe compares all 8
+ * control bytes of a group with h2 at once (SWAR: XOR with h2 in every byte and a zero byte
+ * test), so equals is only called for the slots whose 7 hash bits match, i.e. for about 1 in
+ * 128 foreign keys. A search stops at the first group that contains an EMPTY slot. The
+ * groups are probed with triangular steps (+1, +2, +3, ...), which visit every group of a
+ * table with a power of two groups.
+ * <p>
+ * A removed slot becomes EMPTY again if its group still has an EMPTY slot (no search has ever
+ * gone past this group), otherwise DELETED. The table grows when FULL and DELETED slots
+ * exceed the load factor (default 0.875), or is only cleaned if most of them are DELETED.
+ *
+ * @param <K> Key.
+ * @param <V> Value.
+ */
+public class SwissTableDictionary<K, V> implements Dictionary<K, V> {
+
+    private static final int GROUP = 8; // slots per group = control bytes per long
+    private static final long LSB = 0x0101010101010101L;
+    private static final long MSB = 0x8080808080808080L;
+    private static final int EMPTY = 0x80;
+    private static final int DELETED = 0xFE;
+    private static final double DEFAULT_LOAD_FACTOR = 0.875;
+
+    private final double loadFactor;
+    private long[] ctrl; // control bytes, byte j of ctrl[g] belongs to slot g * 8 + j
+    private Object[] keys;
+    private Object[] values;
+    private int mask; // number of groups - 1
+    private int size;
+    private int deleted;
+    private int growthLimit; // FULL + DELETED slots before a resize
+
+    public SwissTableDictionary() {
+        this(0, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * @param expectedSize expected number of entries (no resize up to this size).
+     * @param loadFactor maximal fraction of used (FULL or DELETED) slots, at most 0.875.
+     */
+    public SwissTableDictionary(int expectedSize, double loadFactor) {
+        if (loadFactor <= 0 || loadFactor > DEFAULT_LOAD_FACTOR) {
+            throw new IllegalArgumentException("Load factor must be in (0, 0.875]: " + loadFactor);
+        }
+        this.loadFactor = loadFactor;
+        int groups = 1;
+        while (groups * GROUP * loadFactor < expectedSize) {
+            groups *= 2;
+        }
+        createTable(groups);
+    }
+
+    private void createTable(int groups) {
+        ctrl = new long[groups];
+        Arrays.fill(ctrl, EMPTY * LSB);
+        keys = new Object[groups * GROUP];
+        values = new Object[groups * GROUP];
+        mask = groups - 1;
+        size = 0;
+        deleted = 0;
+        // at least one EMPTY slot must remain, so that every probe sequence ends
+        growthLimit = Math.min((int) (groups * GROUP * loadFactor), groups * GROUP - 1);
+    }
+
+    // 64-bit mix of hashCode: bits 25..31 are h2, the upper half selects the groups
+    // (bit k of the product depends on the bits 0..k of hashCode, so both use all of them)
+    private static long hash(Object key) {
+        return key.hashCode() * 0x9E3779B97F4A7C15L;
+    }
+
+    private static int h2(long h) {
+        return (int) (h >>> 25) & 0x7F;
+    }
+
+    private int group(long h) {
+        return (int) (h >>> 32) & mask;
+    }
+
+    // Bit 7 of every byte of word that equals b (may also flag a byte 0x01 above a match,
+    // which the caller filters with equals; EMPTY and DELETED bytes are never flagged)
+    private static long match(long word, int b) {
+        long x = word ^ (b * LSB);
+        return (x - LSB) & ~x & MSB;
+    }
+
+    // Bit 7 of every EMPTY byte: EMPTY is the only control byte with bit 7 set and bit 1 clear
+    private static long matchEmpty(long word) {
+        return word & ~(word << 6) & MSB;
+    }
+
+    // Bit 7 of every EMPTY or DELETED byte
+    private static long matchFree(long word) {
+        return word & MSB;
+    }
+
+    private void setCtrl(int slot, int b) {
+        int shift = (slot & (GROUP - 1)) * 8;
+        int g = slot / GROUP;
+        ctrl[g] = (ctrl[g] & ~(0xFFL << shift)) | ((long) b << shift);
+    }
+
+    // Returns the slot of key or -1
+    private int find(Object key, long h) {
+        int g = group(h);
+        int b = h2(h);
+        for (int step = 1; ; step++) {
+            long word = ctrl[g];
+            for (long bits = match(word, b); bits != 0; bits &= bits - 1) {
+                int slot = g * GROUP + (Long.numberOfTrailingZeros(bits) >>> 3);
+                if (key.equals(keys[slot])) {
+                    return slot;
+                }
+            }
+            if (matchEmpty(word) != 0) {
+                return -1;
+            }
+            g = (g + step) & mask;
+        }
+    }
+
+    // Returns the first EMPTY or DELETED slot of the probe sequence of h
+    private int findFree(long h) {
+        int g = group(h);
+        for (int step = 1; ; step++) {
+            long bits = matchFree(ctrl[g]);
+            if (bits != 0) {
+                return g * GROUP + (Long.numberOfTrailingZeros(bits) >>> 3);
+            }
+            g = (g + step) & mask;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V insert(K key, V value) {
+        long h = hash(key);
+        int slot = find(key, h);
+        if (slot >= 0) {
+            V oldValue = (V) values[slot];
+            values[slot] = value;
+            return oldValue;
+        }
+        slot = findFree(h);
+        boolean wasEmpty = (ctrl[slot / GROUP] >>> ((slot & (GROUP - 1)) * 8) & 0xFF) == EMPTY;
+        if (wasEmpty && size + deleted >= growthLimit) {
+            // grow, or only clean up if at least half of the used slots are DELETED
+            resize(size + 1 > growthLimit / 2 ? 2 * (mask + 1) : mask + 1);
+            slot = findFree(h);
+            wasEmpty = true;
+        }
+        if (!wasEmpty) {
+            deleted--;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        setCtrl(slot, h2(h));
+        size++;
+        return null;
+    }
+
+    private void resize(int groups) {
+        long[] oldCtrl = ctrl;
+        Object[] oldKeys = keys;
+        Object[] oldValues = values;
+        createTable(groups);
+        for (int g = 0; g < oldCtrl.length; g++) {
+            long word = oldCtrl[g];
+            for (long full = ~word & MSB; full != 0; full &= full - 1) {
+                int old = g * GROUP + (Long.numberOfTrailingZeros(full) >>> 3);
+                long h = hash(oldKeys[old]);
+                int slot = findFree(h);
+                keys[slot] = oldKeys[old];
+                values[slot] = oldValues[old];
+                setCtrl(slot, h2(h));
+                size++;
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V search(K key) {
+        int slot = find(key, hash(key));
+        return slot >= 0 ? (V) values[slot] : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(K key) {
+        int slot = find(key, hash(key));
+        if (slot < 0) {
+            return null;
+        }
+        V oldValue = (V) values[slot];
+        keys[slot] = null;
+        values[slot] = null;
+        if (matchEmpty(ctrl[slot / GROUP]) != 0) {
+            setCtrl(slot, EMPTY);
+        } else {
+            setCtrl(slot, DELETED);
+            deleted++;
+        }
+        size--;
+        return oldValue;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<Entry<K, V>> iterator() {
+        return new Iterator<>() {
+            int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                while (index < keys.length && keys[index] == null) {
+                    index++;
+                }
+                return index < keys.length;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public Entry<K, V> next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                Entry<K, V> entry = new Entry<>((K) keys[index], (V) values[index]);
+                index++;
+                return entry;
+            }
+        };
+    }
+
+    // Cursor over the FULL slots, found with the control bytes of a group at a time
+    @Override
+    public Cursor<K, V> cursor() {
+        return new Cursor<>() {
+            int group = -1;
+            long full; // FULL slots of group not visited yet (bit 7 of their control bytes)
+            int index;
+
+            @Override
+            public boolean advance() {
+                while (full == 0) {
+                    if (++group >= ctrl.length) {
+                        group = ctrl.length; // stays at the end
+                        return false;
+                    }
+                    full = ~ctrl[group] & MSB;
+                }
+                index = group * GROUP + (Long.numberOfTrailingZeros(full) >>> 3);
+                full &= full - 1;
+                return true;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public K key() {
+                return (K) keys[index];
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public V value() {
+                return (V) values[index];
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public V setValue(V value) {
+                V oldValue = (V) values[index];
+                values[index] = value;
+                return oldValue;
+            }
+        };
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        for (int g = 0; g < ctrl.length; g++) {
+            for (long full = ~ctrl[g] & MSB; full != 0; full &= full - 1) {
+                int slot = g * GROUP + (Long.numberOfTrailingZeros(full) >>> 3);
+                action.accept((K) keys[slot], (V) values[slot]);
+            }
+        }
+    }
+}
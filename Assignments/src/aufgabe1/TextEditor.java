@@ -2,11 +2,14 @@ package aufgabe1;
 
 import javax.swing.*;
 import java.io.*;
+import java.nio.file.Path;
 import java.util.*;
 
 public class TextEditor {
 
     private static Dictionary<String, String> dic;
+    private static RadixTreeDictionary<String> fuzzyIndex; // copy of dic for suggestions, null after changes
+    private static Path directory; // files of dic (DurableDictionary, LsmTreeDictionary), else null
 
     public static void main (String[] args) throws Exception {
         System.out.println("Welcome to Dictionary TUI");
@@ -55,20 +58,82 @@ public class TextEditor {
                 else
                     remove(args);
                 break;
+            case "c":
+                if (dic == null)
+                    System.out.println("Use 'create' to create your first Dictionary!");
+                else
+                    complete(args);
+                break;
+            case "w":
+                if (dic == null)
+                    System.out.println("Use 'create' to create your first Dictionary!");
+                else
+                    writeSnapshot(args);
+                break;
+            case "l":
+                if (dic == null)
+                    System.out.println("Use 'create' to create your first Dictionary!");
+                else
+                    loadSnapshot(args);
+                break;
+            case "open":
+                if (dic == null)
+                    System.out.println("Use 'create' to create your first Dictionary!");
+                else
+                    open(args);
+                break;
+            case "cp":
+                if (!(dic instanceof DurableDictionary))
+                    System.out.println("Use 'open' to make the Dictionary durable!");
+                else
+                    ((DurableDictionary) dic).checkpoint();
+                break;
             case "exit":
+                closeDictionary();
                 System.exit(0);
                 break;
         }
     }
 
-    private static void create(String[] args) {
-        System.out.println("Creating new Dictionary");
+    // create [type] [dir]: replaces dic; the old dictionary stays open until the new one exists
+    private static void create(String[] args) throws IOException {
+        Dictionary<String, String> created;
+        Path createdDirectory = null;
         if (args.length < 2 || args[1].equals("SortedArrayDictionary"))
-            dic = new SortedArrayDictionary<>();
+            created = new SortedArrayDictionary<>();
+        else if (args[1].equals("RadixTree"))
+            created = new RadixTreeDictionary<>();
+        else if (args[1].equals("OpenHash"))
+            created = new OpenHashDictionary<>();
+        else if (args[1].equals("Lsm")) {
+            if (args.length < 3) {
+                System.out.println("Missing directory: create Lsm <dir>");
+                return;
+            }
+            createdDirectory = new File(args[2]).toPath().toAbsolutePath().normalize();
+            // two dictionaries must not write the same files
+            if (createdDirectory.equals(directory))
+                closeDictionary();
+            try {
+                created = new LsmTreeDictionary(createdDirectory);
+            } catch (IOException | UncheckedIOException e) {
+                System.out.println("Could not create Dictionary: " + e.getMessage());
+                return;
+            }
+        }
        // else if (args[1].equals("HashDictionary"))
-           // dic = new HashDictionary<>(3);
+           // created = new HashDictionary<>(3);
         //else if (args[1].equals("Binary"))
-        //    dic = new BinaryTreeDictionary<>();
+        //    created = new BinaryTreeDictionary<>();
+        else {
+            System.out.println("Usage: create [SortedArrayDictionary | RadixTree | OpenHash | Lsm <dir>]");
+            return;
+        }
+        System.out.println("Creating new Dictionary");
+        closeDictionary();
+        dic = created;
+        directory = createdDirectory;
+        fuzzyIndex = null;
     }
 
     private static void print() {
@@ -77,9 +142,7 @@ public class TextEditor {
     }
 
     private static void read(int n) throws IOException {
-        int counter = 0;
         File selectedFile = null;
-        String line;
 
         JFileChooser chooser = new JFileChooser();
         chooser.setCurrentDirectory(new File("C:\\HTWG_Module\\AlgoDat\\Assignments\\src\\aufgabe1\\dtengl.txt"));
@@ -91,16 +154,54 @@ public class TextEditor {
             return;
         }
 
-        try (BufferedReader br = new BufferedReader(new FileReader(selectedFile))) {
-            long start = System.nanoTime();
-            while ((line = br.readLine()) != null && counter < n) {
-                String[] words = line.split(" ");
-                dic.insert(words[0], words[1]);
-                counter++;
-            }
-            long stop = System.nanoTime();
-            System.out.println("Read took " + ((stop - start) / 1000000) + "ms");
+        long start = System.nanoTime();
+        if (n == Integer.MAX_VALUE)
+            WordPairLoader.load(selectedFile.toPath(), dic, Runtime.getRuntime().availableProcessors());
+        else
+            WordPairLoader.forEach(selectedFile.toPath(), n, dic::insert);
+        long stop = System.nanoTime();
+        fuzzyIndex = null;
+        System.out.println("Read took " + ((stop - start) / 1000000) + "ms");
+    }
+
+    // w <file>: saves the dictionary as binary snapshot
+    private static void writeSnapshot(String[] args) throws IOException {
+        long start = System.nanoTime();
+        int n = DictionarySnapshot.write(dic, new File(args[1]).toPath());
+        long stop = System.nanoTime();
+        System.out.println("Wrote " + n + " entries in " + ((stop - start) / 1000000) + "ms");
+    }
+
+    // l <file>: loads a binary snapshot (much faster than r into an empty dictionary)
+    private static void loadSnapshot(String[] args) throws IOException {
+        long start = System.nanoTime();
+        int n = DictionarySnapshot.read(new File(args[1]).toPath(), dic);
+        long stop = System.nanoTime();
+        fuzzyIndex = null;
+        System.out.println("Loaded " + n + " entries in " + ((stop - start) / 1000000) + "ms");
+    }
+
+    // open <dir>: restores the dictionary from dir and logs every change there (created dictionary must be empty)
+    private static void open(String[] args) throws IOException {
+        if (dic instanceof Closeable) {
+            System.out.println("The Dictionary is already stored in files, use 'create' first!");
+            return;
         }
+        long start = System.nanoTime();
+        Path openedDirectory = new File(args[1]).toPath().toAbsolutePath().normalize();
+        dic = new DurableDictionary(dic, openedDirectory);
+        directory = openedDirectory;
+        long stop = System.nanoTime();
+        fuzzyIndex = null;
+        System.out.println("Restored " + dic.size() + " entries in " + ((stop - start) / 1000000) + "ms");
+    }
+
+    // Writes back dictionaries that keep files open (DurableDictionary, LsmTreeDictionary)
+    private static void closeDictionary() throws IOException {
+        if (dic instanceof Closeable)
+            ((Closeable) dic).close();
+        dic = null;
+        directory = null;
     }
 
     private static void search(String[] args) {
@@ -108,16 +209,44 @@ public class TextEditor {
             System.out.printf(dic.search(args[1]));
         } catch (NullPointerException e) {
             System.err.println("Wort wurde nicht gefunden!");
+            suggest(args[1]);
+        }
+    }
+
+    // Prints the words with the smallest edit distance (at most 2) to word
+    private static void suggest(String word) {
+        if (dic instanceof RadixTreeDictionary)
+            fuzzyIndex = (RadixTreeDictionary<String>) dic;
+        else if (fuzzyIndex == null)
+            fuzzyIndex = new RadixTreeDictionary<>(dic);
+        List<Dictionary.Entry<String, String>> similar = fuzzyIndex.fuzzySearch(word, 1);
+        if (similar.isEmpty())
+            similar = fuzzyIndex.fuzzySearch(word, 2);
+        for (int i = 0; i < Math.min(5, similar.size()); i++)
+            System.out.println("Meinten Sie: " + similar.get(i).getKey() + "?");
+    }
+
+    // c <prefix> [k]: the k (default 10) shortest words starting with prefix
+    private static void complete(String[] args) {
+        if (!(dic instanceof RadixTreeDictionary)) {
+            System.out.println("Autocomplete needs 'create RadixTree'!");
+            return;
         }
+        String prefix = args.length > 1 ? args[1] : "";
+        int k = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        for (Dictionary.Entry<String, String> v : ((RadixTreeDictionary<String>) dic).autocomplete(prefix, k))
+            System.out.println(v.getKey() + ": " + v.getValue());
     }
 
     private static void insert(String[] args) {
         System.out.printf("Adding %s: %s to the Dictionary\n", args[1], args[2]);
         dic.insert(args[1], args[2]);
+        fuzzyIndex = null;
     }
 
     private static void remove(String[] args) {
         System.out.printf("Removing %s from Dictionary\n", args[1]);
         dic.remove(args[1]);
+        fuzzyIndex = null;
     }
 }
\ No newline at end of file
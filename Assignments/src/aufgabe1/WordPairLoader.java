@@ -0,0 +1,239 @@
+package aufgabe1;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+
+/**
+ * Loader for word pair files like dtengl.txt: one pair per line, key and value separated
+ * by the first space, UTF-8, lines end with \n or \r\n. Lines without a space are skipped.
+ * <p>
+ * The file is memory-mapped and scanned byte by byte for the separators, so there is no
+ * reader buffer, no line String, no regex and no split array: the only objects per pair are
+ * the key and the value String. Large files are mapped in chunks that end at line
+ * boundaries; with more than one thread the chunks are parsed in parallel and the pairs
+ * are still delivered in file order.
+ */
+public final class WordPairLoader {
+
+    private static final int MAX_CHUNK = 1 << 30; // bytes mapped at once when parsing sequentially
+    private static final int PARALLEL_CHUNK = 1 << 22; // bytes per task when parsing in parallel
+
+    private WordPairLoader() {
+    }
+
+    /**
+     * Inserts all pairs of file into dict in file order (a later line overwrites an earlier
+     * one with the same key).
+     * @param file word pair file.
+     * @param dict dictionary to fill.
+     * @return number of pairs read.
+     * @throws IOException if the file cannot be read.
+     */
+    public static int load(Path file, Dictionary<String, String> dict) throws IOException {
+        return forEach(file, Integer.MAX_VALUE, dict::insert);
+    }
+
+    /**
+     * Like load(file, dict), but the file is parsed by the given number of threads. The pairs
+     * are inserted by the calling thread in file order, so dict needs not be thread-safe.
+     * @param file word pair file.
+     * @param dict dictionary to fill.
+     * @param threads number of parsing threads.
+     * @return number of pairs read.
+     * @throws IOException if the file cannot be read.
+     */
+    public static int load(Path file, Dictionary<String, String> dict, int threads) throws IOException {
+        if (threads <= 1) {
+            return load(file, dict);
+        }
+        int[] count = new int[1];
+        parallel(file, threads, chunk -> {
+            for (int i = 0; i < chunk.count; i++) {
+                dict.insert(chunk.keys[i], chunk.values[i]);
+            }
+            count[0] += chunk.count;
+        });
+        return count[0];
+    }
+
+    /**
+     * Reads all pairs of file into two arrays, parsed by the given number of threads.
+     * @param file word pair file.
+     * @param threads number of parsing threads.
+     * @return {keys, values} in file order.
+     * @throws IOException if the file cannot be read.
+     */
+    public static String[][] read(Path file, int threads) throws IOException {
+        Chunk all = new Chunk();
+        if (threads <= 1) {
+            forEach(file, Integer.MAX_VALUE, all);
+        } else {
+            parallel(file, threads, chunk -> {
+                for (int i = 0; i < chunk.count; i++) {
+                    all.accept(chunk.keys[i], chunk.values[i]);
+                }
+            });
+        }
+        return new String[][] {Arrays.copyOf(all.keys, all.count), Arrays.copyOf(all.values, all.count)};
+    }
+
+    /**
+     * Calls action for the first limit pairs of file in file order.
+     * @param file word pair file.
+     * @param limit maximal number of pairs.
+     * @param action receives key and value.
+     * @return number of pairs read.
+     * @throws IOException if the file cannot be read.
+     */
+    public static int forEach(Path file, int limit, BiConsumer<String, String> action) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] bounds = split(channel, (channel.size() + MAX_CHUNK - 1) / MAX_CHUNK);
+            int count = 0;
+            for (int i = 0; i + 1 < bounds.length && count < limit; i++) {
+                count += parse(map(channel, bounds[i], bounds[i + 1]), limit - count, action);
+            }
+            return count;
+        }
+    }
+
+    // Pairs of one chunk
+    private static final class Chunk implements BiConsumer<String, String> {
+        String[] keys = new String[16];
+        String[] values = new String[16];
+        int count;
+
+        @Override
+        public void accept(String key, String value) {
+            if (count == keys.length) {
+                keys = Arrays.copyOf(keys, 2 * count);
+                values = Arrays.copyOf(values, 2 * count);
+            }
+            keys[count] = key;
+            values[count++] = value;
+        }
+    }
+
+    private interface ChunkConsumer {
+        void accept(Chunk chunk);
+    }
+
+    // Parses the chunks of file with threads threads and hands them to consumer in file order.
+    // At most 2 * threads parsed chunks wait for the consumer.
+    private static void parallel(Path file, int threads, ChunkConsumer consumer) throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long[] bounds = split(channel, Math.max(threads, (size + PARALLEL_CHUNK - 1) / PARALLEL_CHUNK));
+            Deque<Future<Chunk>> pending = new ArrayDeque<>();
+            for (int i = 0; i + 1 < bounds.length; i++) {
+                long from = bounds[i];
+                long to = bounds[i + 1];
+                pending.add(pool.submit(() -> {
+                    Chunk chunk = new Chunk();
+                    parse(map(channel, from, to), Integer.MAX_VALUE, chunk);
+                    return chunk;
+                }));
+                if (pending.size() >= 2 * threads) {
+                    consumer.accept(pending.poll().get());
+                }
+            }
+            while (!pending.isEmpty()) {
+                consumer.accept(pending.poll().get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long from, long to) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+    }
+
+    // Splits the file into about chunks parts; every part but the first starts at a line start.
+    // Returns the boundaries (the first is 0, the last the file size).
+    private static long[] split(FileChannel channel, long chunks) throws IOException {
+        long size = channel.size();
+        chunks = Math.max(1, Math.min(chunks, size));
+        long[] bounds = new long[(int) chunks + 1];
+        int n = 1;
+        ByteBuffer buf = ByteBuffer.allocate(4096);
+        for (long i = 1; i < chunks; i++) {
+            long pos = Math.max(bounds[n - 1] + 1, size / chunks * i);
+            // the part ends behind the first \n at or after pos - 1
+            long start = -1;
+            for (long p = pos - 1; start < 0 && p < size; p += buf.limit()) {
+                buf.clear();
+                channel.read(buf, p);
+                buf.flip();
+                for (int j = 0; j < buf.limit(); j++) {
+                    if (buf.get(j) == '\n') {
+                        start = p + j + 1;
+                        break;
+                    }
+                }
+            }
+            if (start < 0 || start >= size) {
+                break; // the last line reaches to the end
+            }
+            if (start > bounds[n - 1]) {
+                bounds[n++] = start;
+            }
+        }
+        bounds[n++] = size;
+        return Arrays.copyOf(bounds, n);
+    }
+
+    // Calls action for the first limit pairs in buf; returns their number
+    private static int parse(MappedByteBuffer buf, int limit, BiConsumer<String, String> action) {
+        int n = buf.limit();
+        byte[] bytes = new byte[64];
+        int count = 0;
+        int i = 0;
+        while (i < n && count < limit) {
+            int start = i;
+            int sep = -1;
+            byte b;
+            while (i < n && (b = buf.get(i)) != '\n') {
+                if (b == ' ' && sep < 0) {
+                    sep = i;
+                }
+                i++;
+            }
+            int end = (i > start && buf.get(i - 1) == '\r') ? i - 1 : i;
+            i++;
+            if (sep < 0 || sep >= end) {
+                continue;
+            }
+            if (bytes.length < end - start) {
+                bytes = new byte[Math.max(2 * bytes.length, end - start)];
+            }
+            buf.get(start, bytes, 0, end - start);
+            String key = new String(bytes, 0, sep - start, StandardCharsets.UTF_8);
+            String value = new String(bytes, sep - start + 1, end - sep - 1, StandardCharsets.UTF_8);
+            action.accept(key, value);
+            count++;
+        }
+        return count;
+    }
+}